@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# Time from launch until /actuator/health/readiness answers UP, for a plain
+# java -jar start and for scripts/start-fast.sh. Arguments are passed to the
+# application, e.g.
+#   scripts/benchmark-startup.sh --repository.type=local --storage.type=local
+# RUNS sets the number of starts of each kind (default 5).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+JAR="${JAR:-target/Spring-backend-0.0.1-SNAPSHOT.jar}"
+PORT="${PORT:-8080}"
+RUNS="${RUNS:-5}"
+
+time_to_ready() {
+    local start pid
+    start=$(date +%s%N)
+    "$@" --server.port="$PORT" > /dev/null 2>&1 &
+    pid=$!
+    until curl -sf "http://localhost:$PORT/actuator/health/readiness" > /dev/null; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "Application exited before it was ready" >&2
+            return 1
+        fi
+        sleep 0.02
+    done
+    echo $((($(date +%s%N) - start) / 1000000))
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+}
+
+report() {
+    local name=$1
+    shift
+    local times=()
+    for _ in $(seq "$RUNS"); do
+        times+=("$(time_to_ready "$@")")
+    done
+    printf '%-10s median %5d ms   (%s)\n' "$name" \
+        "$(printf '%s\n' "${times[@]}" | sort -n | sed -n "$(((RUNS + 1) / 2))p")" "${times[*]}"
+}
+
+# Create the CDS archive up front so it is not part of the measurement
+scripts/start-fast.sh --prepare "$@"
+
+report "java -jar" "$JAVA" -jar "$JAR" "$@"
+report "cds" scripts/start-fast.sh "$@"
@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# Start the backend from an unpacked jar with a class data sharing (CDS) archive.
+#
+# The first run after a build unpacks the jar into target/cds and does a
+# training run that stops right after the context refreshes
+# (spring.context.exit=onRefresh), recording the loaded classes in
+# application.jsa. Later starts map those classes instead of loading and
+# verifying them again. Arguments are passed to the application, e.g.
+#   scripts/start-fast.sh --repository.type=local --storage.type=local
+# With --prepare as the first argument only the archive is created.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+JAR_TOOL="${JAVA_HOME:+$JAVA_HOME/bin/}jar"
+JAR="$(pwd)/${JAR:-target/Spring-backend-0.0.1-SNAPSHOT.jar}"
+CDS_DIR="${CDS_DIR:-target/cds}"
+LAUNCHER=org.springframework.boot.loader.launch.JarLauncher
+PREPARE_ONLY=false
+if [ "${1:-}" = "--prepare" ]; then
+    PREPARE_ONLY=true
+    shift
+fi
+
+if [ ! -f "$JAR" ]; then
+    echo "No $JAR; build it first with ./mvnw -DskipTests package" >&2
+    exit 1
+fi
+
+# Rebuild the archive whenever the jar changed, since it must match the classpath exactly
+if [ ! -f "$CDS_DIR/application.jsa" ] || [ "$JAR" -nt "$CDS_DIR/application.jsa" ]; then
+    echo "Creating CDS archive in $CDS_DIR"
+    rm -rf "$CDS_DIR"
+    mkdir -p "$CDS_DIR"
+    (cd "$CDS_DIR" && "$JAR_TOOL" -xf "$JAR")
+    (cd "$CDS_DIR" && "$JAVA" -XX:ArchiveClassesAtExit=application.jsa -Dspring.context.exit=onRefresh \
+        $LAUNCHER "$@" > training.log 2>&1) || {
+        echo "Training run failed, see $CDS_DIR/training.log" >&2
+        exit 1
+    }
+fi
+
+if [ "$PREPARE_ONLY" = true ]; then
+    exit 0
+fi
+
+cd "$CDS_DIR"
+exec "$JAVA" -XX:SharedArchiveFile=application.jsa ${JAVA_OPTS:-} $LAUNCHER "$@"
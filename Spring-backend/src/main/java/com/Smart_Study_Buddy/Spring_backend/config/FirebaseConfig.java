@@ -6,13 +6,32 @@ import org.springframework.core.io.Resource;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.cloud.FirestoreClient;
+import com.google.firebase.cloud.StorageClient;
 
 import jakarta.annotation.PostConstruct;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.beans.factory.annotation.Value;
 
+/**
+ * Firebase app and clients, initialized in the background so the context
+ * does not wait for credentials and gRPC channels on startup.
+ *
+ * Firestore, Storage and Auth are set up side by side once the app exists.
+ * Services call awaitInitialized() before their first Firebase call, which
+ * returns at once after startup. Until then the firebase health indicator
+ * keeps the readiness probe down while liveness stays up.
+ */
 @Configuration
 public class FirebaseConfig {
 
@@ -22,16 +41,97 @@ public class FirebaseConfig {
     @Value("${firebase.storage-bucket}")
     private String storageBucket;
 
+    @Value("${repository.type:firestore}")
+    private String repositoryType;
+
+    @Value("${storage.type:firebase}")
+    private String storageType;
+
+    @Value("${firebase.init-timeout-seconds:60}")
+    private long initTimeoutSeconds;
+
+    private final CompletableFuture<Void> initialized = new CompletableFuture<>();
+    private volatile boolean offline;
+
     @PostConstruct
-    public void initialize() throws IOException {
-        FirebaseOptions options = FirebaseOptions.builder()
-                .setCredentials(GoogleCredentials.fromStream(
-                        serviceAccountKey.getInputStream()))
-                .setStorageBucket(storageBucket)
-                .build();
-
-        if (FirebaseApp.getApps().isEmpty()) {
-            FirebaseApp.initializeApp(options);
+    public void initialize() {
+        // The local repository runs without Firebase
+        if ("local".equals(repositoryType) && !serviceAccountKey.exists()) {
+            System.out.println("🔌 No Firebase credentials found, running offline with the local repository");
+            offline = true;
+            initialized.completeExceptionally(new IllegalStateException("Firebase is not configured"));
+            return;
+        }
+
+        Thread thread = new Thread(this::initializeClients, "firebase-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Block until Firebase is ready to use
+     *
+     * @throws IllegalStateException if initialization failed or timed out
+     */
+    public void awaitInitialized() {
+        if (initialized.isDone() && !initialized.isCompletedExceptionally()) {
+            return;
+        }
+        try {
+            initialized.get(initTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Firebase", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Firebase failed to initialize: " + e.getCause().getMessage(), e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Firebase did not initialize within " + initTimeoutSeconds + "s");
+        }
+    }
+
+    public boolean isInitialized() {
+        return initialized.isDone() && !initialized.isCompletedExceptionally();
+    }
+
+    public boolean isFailed() {
+        return !offline && initialized.isCompletedExceptionally();
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    private void initializeClients() {
+        long start = System.nanoTime();
+        try {
+            FirebaseOptions options = FirebaseOptions.builder()
+                    .setCredentials(GoogleCredentials.fromStream(
+                            serviceAccountKey.getInputStream()))
+                    .setStorageBucket(storageBucket)
+                    .build();
+
+            if (FirebaseApp.getApps().isEmpty()) {
+                FirebaseApp.initializeApp(options);
+            }
+
+            // Each client builds its own channels and clients; none depends on another
+            List<CompletableFuture<?>> clients = new ArrayList<>();
+            clients.add(CompletableFuture.runAsync(FirebaseAuth::getInstance));
+            if (!"local".equals(repositoryType)) {
+                clients.add(CompletableFuture.runAsync(FirestoreClient::getFirestore));
+            }
+            if ("firebase".equals(storageType)) {
+                clients.add(CompletableFuture.runAsync(() -> StorageClient.getInstance().bucket()));
+            }
+            CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).join();
+
+            initialized.complete(null);
+            System.out.println("🔥 Firebase ready in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                    + " ms");
+        } catch (IOException | RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            System.err.println("❌ Firebase failed to initialize: " + cause.getMessage());
+            initialized.completeExceptionally(cause);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.Smart_Study_Buddy.Spring_backend.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Firebase initialization state, part of the readiness group: an instance
+ * is live as soon as the context is up but only takes traffic once its
+ * Firebase clients are ready.
+ */
+@Component("firebase")
+public class FirebaseHealthIndicator implements HealthIndicator {
+
+    private final FirebaseConfig firebaseConfig;
+
+    public FirebaseHealthIndicator(FirebaseConfig firebaseConfig) {
+        this.firebaseConfig = firebaseConfig;
+    }
+
+    @Override
+    public Health health() {
+        if (firebaseConfig.isOffline()) {
+            return Health.up().withDetail("mode", "offline").build();
+        }
+        if (firebaseConfig.isInitialized()) {
+            return Health.up().build();
+        }
+        if (firebaseConfig.isFailed()) {
+            return Health.down().withDetail("error", "initialization failed").build();
+        }
+        return Health.outOfService().withDetail("state", "initializing").build();
+    }
+}
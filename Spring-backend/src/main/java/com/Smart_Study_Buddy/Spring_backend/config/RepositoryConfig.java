@@ -0,0 +1,75 @@
+package com.Smart_Study_Buddy.Spring_backend.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.Smart_Study_Buddy.Spring_backend.service.CachingDocumentRepository;
+import com.Smart_Study_Buddy.Spring_backend.service.DocumentRepository;
+import com.Smart_Study_Buddy.Spring_backend.service.FirestoreService;
+import com.Smart_Study_Buddy.Spring_backend.service.LocalDocumentRepository;
+import com.Smart_Study_Buddy.Spring_backend.service.MemoryCachedDocumentRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class RepositoryConfig {
+
+    @Value("${repository.type:firestore}")
+    private String type;
+
+    @Value("${repository.local.dir:data/repository}")
+    private String localDir;
+
+    @Value("${repository.cache.listing-ttl-seconds:30}")
+    private long listingTtlSeconds;
+
+    @Value("${repository.memory-cache.max-bytes:67108864}")
+    private long memoryCacheMaxBytes;
+
+    @Value("${firestore.compression.min-chars:1024}")
+    private int compressionMinChars;
+
+    @Bean
+    @Primary
+    public DocumentRepository documentRepository(ObjectProvider<FirestoreService> firestoreService,
+            MeterRegistry meterRegistry) throws IOException {
+        DocumentRepository repository = create(firestoreService);
+        // The local repository already serves reads from memory
+        if (memoryCacheMaxBytes <= 0 || "local".equals(type)) {
+            return repository;
+        }
+        System.out.println("🗄️ Caching up to " + memoryCacheMaxBytes / (1024 * 1024) + " MB of records in memory");
+        MemoryCachedDocumentRepository cached = new MemoryCachedDocumentRepository(repository,
+                memoryCacheMaxBytes, meterRegistry);
+        // Registered once the cache is constructed, since the gauge reads it
+        Gauge.builder("repository.memory-cache.bytes", cached, MemoryCachedDocumentRepository::getWeight)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        return cached;
+    }
+
+    private DocumentRepository create(ObjectProvider<FirestoreService> firestoreService) throws IOException {
+        switch (type) {
+            case "firestore":
+                return firestoreService.getObject();
+            case "local":
+                System.out.println("🗄️ Using the local document repository at " + localDir);
+                return new LocalDocumentRepository(Path.of(localDir), compressionMinChars);
+            case "cached":
+                System.out.println("🗄️ Using Firestore with a local near-cache at " + localDir);
+                return new CachingDocumentRepository(firestoreService.getObject(),
+                        new LocalDocumentRepository(Path.of(localDir), compressionMinChars),
+                        listingTtlSeconds * 1000);
+            default:
+                throw new IllegalArgumentException("Unknown repository.type: " + type
+                        + " (expected firestore, local or cached)");
+        }
+    }
+}
@@ -15,6 +15,8 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import java.util.Arrays;
 import java.util.List;
 
+import jakarta.servlet.DispatcherType;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
@@ -41,6 +43,12 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // Allow public access to auth endpoints
                         .requestMatchers("/api/auth/**").permitAll()
+                        // Local storage download URLs carry their own signature
+                        .requestMatchers("/api/files/**").permitAll()
+                        // Liveness and readiness probes of the orchestrator
+                        .requestMatchers("/actuator/health/**").permitAll()
+                        // Results of deferred AI calls; the request was authorized when it came in
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Require authentication for all other endpoints
                         .anyRequest().authenticated())
 
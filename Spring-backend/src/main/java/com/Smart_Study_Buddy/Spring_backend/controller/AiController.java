@@ -1,72 +1,276 @@
 package com.Smart_Study_Buddy.Spring_backend.controller;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
-import org.springframework.http.HttpEntity;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.Smart_Study_Buddy.Spring_backend.service.AiCallExecutor;
+import com.Smart_Study_Buddy.Spring_backend.service.AiCallExecutor.Priority;
+import com.Smart_Study_Buddy.Spring_backend.service.AiServiceClient;
+import com.Smart_Study_Buddy.Spring_backend.service.ChatContextManager;
+import com.Smart_Study_Buddy.Spring_backend.service.ChatContextManager.ChatContext;
+import com.Smart_Study_Buddy.Spring_backend.service.ContextRetrievalService;
+import com.Smart_Study_Buddy.Spring_backend.service.DocumentTextService;
+import com.Smart_Study_Buddy.Spring_backend.service.StudyArtifactService;
+import com.Smart_Study_Buddy.Spring_backend.service.StudyArtifactService.Artifact;
+import com.Smart_Study_Buddy.Spring_backend.service.StudyArtifactService.Kind;
+import com.Smart_Study_Buddy.Spring_backend.service.UsageMeter;
+import com.Smart_Study_Buddy.Spring_backend.service.UsageMeter.Metric;
 
 @RestController
 @RequestMapping("/api/ai")
 @CrossOrigin(origins = "http://localhost:5173")
 public class AiController {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final String AI_SERVICE_URL = "http://localhost:8000/api/ai";
+    private final AiServiceClient aiServiceClient;
+    private final ContextRetrievalService contextRetrievalService;
+    private final DocumentTextService documentTextService;
+    private final ChatContextManager chatContextManager;
+    private final StudyArtifactService studyArtifactService;
+    private final UsageMeter usageMeter;
+    private final AiCallExecutor aiCallExecutor;
+
+    public AiController(AiServiceClient aiServiceClient, ContextRetrievalService contextRetrievalService,
+            DocumentTextService documentTextService, ChatContextManager chatContextManager,
+            StudyArtifactService studyArtifactService, UsageMeter usageMeter, AiCallExecutor aiCallExecutor) {
+        this.aiServiceClient = aiServiceClient;
+        this.contextRetrievalService = contextRetrievalService;
+        this.documentTextService = documentTextService;
+        this.chatContextManager = chatContextManager;
+        this.studyArtifactService = studyArtifactService;
+        this.usageMeter = usageMeter;
+        this.aiCallExecutor = aiCallExecutor;
+    }
 
     @PostMapping("/summarize")
-    public ResponseEntity<?> summarize(@RequestBody Map<String, String> request) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<Map<String, String>> entity = new HttpEntity<>(request, headers);
-
-        return restTemplate.postForEntity(
-                AI_SERVICE_URL + "/summarize",
-                entity,
-                String.class);
+    public DeferredResult<ResponseEntity<?>> summarize(@RequestBody Map<String, Object> request,
+            @RequestHeader(value = AiCallExecutor.TIMEOUT_HEADER, required = false) Long timeoutMillis) {
+        return aiCallExecutor.defer(Priority.STANDARD, timeoutMillis, () -> generate(Kind.SUMMARY, request));
     }
 
     @PostMapping("/ask")
-    public ResponseEntity<?> askQuestion(@RequestBody Map<String, Object> request) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
-
-        return restTemplate.postForEntity(
-                AI_SERVICE_URL + "/ask",
-                entity,
-                String.class);
+    public DeferredResult<ResponseEntity<?>> askQuestion(@RequestBody Map<String, Object> request,
+            @RequestHeader(value = AiCallExecutor.TIMEOUT_HEADER, required = false) Long timeoutMillis) {
+        return aiCallExecutor.defer(Priority.INTERACTIVE, timeoutMillis, () -> ask(request));
     }
 
     @PostMapping("/flashcards")
-    public ResponseEntity<?> generateFlashcards(@RequestBody Map<String, String> request) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<Map<String, String>> entity = new HttpEntity<>(request, headers);
-
-        return restTemplate.postForEntity(
-                AI_SERVICE_URL + "/flashcards",
-                entity,
-                String.class);
+    public DeferredResult<ResponseEntity<?>> generateFlashcards(@RequestBody Map<String, Object> request,
+            @RequestHeader(value = AiCallExecutor.TIMEOUT_HEADER, required = false) Long timeoutMillis) {
+        return aiCallExecutor.defer(Priority.STANDARD, timeoutMillis, () -> generate(Kind.FLASHCARDS, request));
     }
 
     @PostMapping("/generate-quiz")
-    public ResponseEntity<?> generateQuiz(@RequestBody Map<String, String> request) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity<Map<String, String>> entity = new HttpEntity<>(request, headers);
-
-        return restTemplate.postForEntity(
-                AI_SERVICE_URL + "/generate-quiz",
-                entity,
-                String.class);
+    public DeferredResult<ResponseEntity<?>> generateQuiz(@RequestBody Map<String, Object> request,
+            @RequestHeader(value = AiCallExecutor.TIMEOUT_HEADER, required = false) Long timeoutMillis) {
+        return aiCallExecutor.defer(Priority.STANDARD, timeoutMillis, () -> generate(Kind.QUIZ, request));
+    }
+
+    private ResponseEntity<?> ask(Map<String, Object> request) {
+        ResponseEntity<?> error = resolveText(request);
+        if (error != null) {
+            return error;
+        }
+
+        // Send only the passages relevant to the question instead of the whole document
+        if (request.get("text") instanceof String text && request.get("question") instanceof String question) {
+            request.put("text", contextRetrievalService.selectContext(documentId(request), text, question));
+        }
+
+        // Recent turns verbatim, older ones as a rolling summary, all within the token budget
+        try {
+            ChatContext chat = chatContextManager.window(documentId(request),
+                    userId(request),
+                    chatHistory(request.get("chat_history")));
+            request.put("chat_history", chat.getTurns());
+            if (chat.getSummary() != null) {
+                request.put("conversation_summary", chat.getSummary());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error: " + e.getMessage());
+        }
+
+        usageMeter.record(userId(request), Metric.AI_CALLS, 1);
+        return aiServiceClient.post("/ask", request);
+    }
+
+    /**
+     * A stored summary, flashcards or quiz, if one was generated from the
+     * document's current text. Supports If-None-Match; 404 means the client
+     * should POST to generate it.
+     */
+    @GetMapping("/artifacts/{documentId}/{kind}")
+    public ResponseEntity<?> getArtifact(
+            @PathVariable String documentId,
+            @PathVariable String kind,
+            @RequestParam String userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Kind artifactKind = Kind.fromName(kind);
+        if (artifactKind == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown artifact kind: " + kind));
+        }
+
+        try {
+            String text = documentTextService.getText(documentId, userId);
+            Artifact artifact = text != null ? studyArtifactService.get(documentId, artifactKind, text) : null;
+            if (artifact == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "No " + kind + " generated for this document yet"));
+            }
+            if (etagMatches(ifNoneMatch, artifact.getEtag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(artifact.getEtag())
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .build();
+            }
+            return artifactResponse(artifact);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Serve a summary, flashcards or quiz generated earlier from the same
+     * text (possibly precomputed), or generate and store it. "regenerate": true
+     * forces a new one.
+     */
+    private ResponseEntity<?> generate(Kind kind, Map<String, Object> request) {
+        ResponseEntity<?> error = resolveText(request);
+        if (error != null) {
+            return error;
+        }
+
+        String documentId = documentId(request);
+        String text = (String) request.get("text");
+        // Text sent by the client skipped the ownership check of resolveText
+        if (documentId != null) {
+            try {
+                if (documentTextService.getText(documentId, userId(request)) == null) {
+                    return ResponseEntity.status(404).body(Map.of("error", "Document not found or text not extracted yet"));
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                return ResponseEntity.status(500).body("Error: " + e.getMessage());
+            }
+        }
+        boolean regenerate = Boolean.TRUE.equals(request.remove("regenerate"));
+        if (documentId != null && !regenerate) {
+            try {
+                Artifact stored = studyArtifactService.get(documentId, kind, text);
+                if (stored != null) {
+                    return artifactResponse(stored);
+                }
+            } catch (Exception e) {
+                // Generating again is always a valid fallback
+                System.err.println("⚠️ Failed to read stored " + kind.getName() + ": " + e.getMessage());
+            }
+        }
+
+        usageMeter.record(userId(request), Metric.AI_CALLS, 1);
+        ResponseEntity<String> response = aiServiceClient.post(kind.getPath(), request);
+        if (documentId != null && response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+            return artifactResponse(studyArtifactService.put(documentId, kind, text, response.getBody()));
+        }
+        return response;
+    }
+
+    private static ResponseEntity<String> artifactResponse(Artifact artifact) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(artifact.getEtag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(artifact.getContent());
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals("\"" + etag + "\"")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fill in "text" from the stored document when the client sent only its
+     * id; returns an error response if that is not possible
+     */
+    private ResponseEntity<?> resolveText(Map<String, Object> request) {
+        if (request.get("text") instanceof String text && !text.isEmpty()) {
+            return null;
+        }
+
+        String documentId = documentId(request);
+        if (documentId == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Either text or documentId is required"));
+        }
+        if (!(request.get("userId") instanceof String userId) || userId.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "userId is required with documentId"));
+        }
+
+        try {
+            String text = documentTextService.getText(documentId, userId);
+            if (text == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "Document not found or text not extracted yet"));
+            }
+            request.put("text", text);
+            request.put("document_id", documentId);
+            return null;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The client's chat_history as {question, answer} turns, or null if it sent none
+     */
+    private static List<Map<String, String>> chatHistory(Object value) {
+        if (!(value instanceof List<?> list)) {
+            return null;
+        }
+        List<Map<String, String>> turns = new ArrayList<>(list.size());
+        for (Object item : list) {
+            if (item instanceof Map<?, ?> turn) {
+                turns.add(Map.of(
+                        "question", Objects.toString(turn.get("question"), ""),
+                        "answer", Objects.toString(turn.get("answer"), "")));
+            }
+        }
+        return turns;
     }
 
+    private static String documentId(Map<String, Object> request) {
+        Object documentId = request.containsKey("document_id") ? request.get("document_id") : request.get("documentId");
+        return documentId instanceof String id && !id.isEmpty() ? id : null;
+    }
+
+    private static String userId(Map<String, Object> request) {
+        return request.get("userId") instanceof String userId ? userId : null;
+    }
 }
@@ -1,35 +1,93 @@
 package com.Smart_Study_Buddy.Spring_backend.controller;
 
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.Smart_Study_Buddy.Spring_backend.service.FirestoreService;
+import com.Smart_Study_Buddy.Spring_backend.service.ChatContextManager;
+import com.Smart_Study_Buddy.Spring_backend.service.DocumentTextService;
+import com.Smart_Study_Buddy.Spring_backend.service.DocumentRepository;
+import com.Smart_Study_Buddy.Spring_backend.service.FileProcessingBudget;
+import com.Smart_Study_Buddy.Spring_backend.service.LibrarySearchService;
 import com.Smart_Study_Buddy.Spring_backend.service.StorageService;
+import com.Smart_Study_Buddy.Spring_backend.service.StudyArtifactService;
+import com.Smart_Study_Buddy.Spring_backend.service.ThumbnailService;
+import com.Smart_Study_Buddy.Spring_backend.service.TranscriptWindowService;
+import com.Smart_Study_Buddy.Spring_backend.service.UploadDeduplicationService;
+import com.Smart_Study_Buddy.Spring_backend.service.UploadSessionService;
+import com.Smart_Study_Buddy.Spring_backend.service.UploadSessionService.UploadSession;
+import com.Smart_Study_Buddy.Spring_backend.service.UsageMeter;
+import com.Smart_Study_Buddy.Spring_backend.service.UsageMeter.Metric;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/api/documents")
 @CrossOrigin(origins = "http://localhost:5173")
 public class DocumentController {
 
+    private static final int MAX_BATCH_DOCUMENTS = 100;
+
     private final StorageService storageService;
-    private final FirestoreService firestoreService;
+    private final DocumentRepository documentRepository;
+    private final TranscriptWindowService transcriptWindowService;
+    private final DocumentTextService documentTextService;
+    private final LibrarySearchService librarySearchService;
+    private final ChatContextManager chatContextManager;
+    private final StudyArtifactService studyArtifactService;
+    private final UploadSessionService uploadSessionService;
+    private final UploadDeduplicationService uploadDeduplicationService;
+    private final FileProcessingBudget fileProcessingBudget;
+    private final UsageMeter usageMeter;
+    private final ThumbnailService thumbnailService;
 
-    public DocumentController(StorageService storageService, FirestoreService firestoreService) {
+    public DocumentController(StorageService storageService, DocumentRepository documentRepository,
+            TranscriptWindowService transcriptWindowService, DocumentTextService documentTextService,
+            LibrarySearchService librarySearchService, ChatContextManager chatContextManager,
+            StudyArtifactService studyArtifactService, UploadSessionService uploadSessionService,
+            UploadDeduplicationService uploadDeduplicationService, FileProcessingBudget fileProcessingBudget,
+            UsageMeter usageMeter, ThumbnailService thumbnailService) {
         this.storageService = storageService;
-        this.firestoreService = firestoreService;
+        this.documentRepository = documentRepository;
+        this.transcriptWindowService = transcriptWindowService;
+        this.documentTextService = documentTextService;
+        this.librarySearchService = librarySearchService;
+        this.chatContextManager = chatContextManager;
+        this.studyArtifactService = studyArtifactService;
+        this.uploadSessionService = uploadSessionService;
+        this.uploadDeduplicationService = uploadDeduplicationService;
+        this.fileProcessingBudget = fileProcessingBudget;
+        this.usageMeter = usageMeter;
+        this.thumbnailService = thumbnailService;
     }
 
     @PostMapping("/upload")
@@ -42,28 +100,213 @@ public class DocumentController {
             }
 
             String filename = file.getOriginalFilename();
-            String storagePath = "users/" + userId + "/documents/" + java.util.UUID.randomUUID() + "_" + filename;
+            if (!StorageService.isPlainFilename(filename)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid filename"));
+            }
+            String contentHash;
+            try (InputStream in = file.getInputStream()) {
+                contentHash = uploadDeduplicationService.hash(in);
+            }
+            Map<String, Object> existing = uploadDeduplicationService.findOwn(userId, contentHash);
+            if (existing != null) {
+                usageMeter.record(userId, Metric.UPLOADED_BYTES, file.getSize());
+                return ResponseEntity.ok(duplicateResponse(existing));
+            }
 
-            String downloadUrl = storageService.uploadFile(file, storagePath);
+            String storagePath = uploadDeduplicationService.findSharedStoragePath(contentHash);
+            String downloadUrl;
+            if (storagePath != null) {
+                downloadUrl = storageService.getDownloadUrl(storagePath);
+            } else {
+                storagePath = storagePath(userId, filename);
+                // Storage may read the whole file into memory to upload it
+                try (FileProcessingBudget.Reservation reservation = fileProcessingBudget.reserve(file.getSize())) {
+                    if (reservation == null) {
+                        return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "5")
+                                .body(Map.of("error", "Too many files are being processed, please try again shortly"));
+                    }
+                    downloadUrl = storageService.uploadFile(file, storagePath);
+                }
+            }
+            // Only accepted uploads count; a 503 above is retried by the client
+            usageMeter.record(userId, Metric.UPLOADED_BYTES, file.getSize());
 
-            String documentId = firestoreService.saveDocument(userId, filename, storagePath, downloadUrl);
+            String documentId = documentRepository.saveDocument(userId, filename, storagePath, downloadUrl,
+                    contentHash);
+            if (ThumbnailService.isPdf(filename)) {
+                thumbnailService.generateInBackground(documentId, storagePath);
+            }
 
-            Map<String, String> response = new HashMap<>();
-            response.put("documentId", documentId);
-            response.put("filename", filename);
-            response.put("downloadUrl", downloadUrl);
+            return ResponseEntity.ok(uploadResponse(documentId, filename, downloadUrl));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error: " + e.getMessage());
+        }
+    }
 
-            return ResponseEntity.ok(response);
+    /**
+     * Start a resumable upload. Body: userId, filename, size in bytes and
+     * optionally contentType. Chunks are then PUT to
+     * /uploads/{uploadId}?offset=..., in any order, and the upload is
+     * finished with POST /uploads/{uploadId}/complete.
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<?> createUpload(@RequestBody Map<String, Object> request) {
+        try {
+            String userId = (String) request.get("userId");
+            if (userId == null || userId.isBlank()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "userId is required"));
+            }
+            if (!(request.get("size") instanceof Number size)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "size is required"));
+            }
+
+            UploadSession session = uploadSessionService.create(userId, (String) request.get("filename"),
+                    size.longValue(), (String) request.get("contentType"));
+            return ResponseEntity.ok(uploadStatus(session));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (UploadSessionService.TooManyUploadsException e) {
+            return ResponseEntity.status(429).header(HttpHeaders.RETRY_AFTER, "60")
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write one chunk; the raw request body is the chunk's bytes
+     */
+    @PutMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> uploadChunk(
+            @PathVariable String uploadId,
+            @RequestParam String userId,
+            @RequestParam long offset,
+            HttpServletRequest request) {
+        UploadSession session = uploadSessionService.get(uploadId, userId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        long length = request.getContentLengthLong();
+        if (length < 0) {
+            return ResponseEntity.status(411).body(Map.of("error", "Content-Length is required"));
+        }
+
+        try {
+            uploadSessionService.writeChunk(session, offset, length, request.getInputStream());
+            return ResponseEntity.ok(Map.of(
+                    "uploadId", uploadId,
+                    "receivedBytes", session.getReceivedBytes(),
+                    "size", session.getSize()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            // Completed or cancelled while this chunk was on its way
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body("Error: " + e.getMessage());
         }
     }
 
+    /**
+     * Progress of an upload, including the byte ranges still missing
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> getUpload(@PathVariable String uploadId, @RequestParam String userId) {
+        UploadSession session = uploadSessionService.get(uploadId, userId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(uploadStatus(session));
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeUpload(@PathVariable String uploadId, @RequestParam String userId) {
+        UploadSession session = uploadSessionService.get(uploadId, userId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!session.isComplete()) {
+            Map<String, Object> response = uploadStatus(session);
+            response.put("error", "Upload is incomplete");
+            return ResponseEntity.status(409).body(response);
+        }
+
+        Path file;
+        try {
+            file = uploadSessionService.complete(session);
+        } catch (IllegalStateException e) {
+            // Completed or cancelled by a concurrent request
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        }
+        try {
+            usageMeter.record(userId, Metric.UPLOADED_BYTES, session.getSize());
+            String contentHash;
+            try (InputStream in = Files.newInputStream(file)) {
+                contentHash = uploadDeduplicationService.hash(in);
+            }
+            Map<String, Object> existing = uploadDeduplicationService.findOwn(userId, contentHash);
+            if (existing != null) {
+                System.out.println("📤 Upload " + uploadId + " duplicates document " + existing.get("id"));
+                return ResponseEntity.ok(duplicateResponse(existing));
+            }
+
+            String storagePath = uploadDeduplicationService.findSharedStoragePath(contentHash);
+            String downloadUrl;
+            if (storagePath != null) {
+                downloadUrl = storageService.getDownloadUrl(storagePath);
+            } else {
+                storagePath = storagePath(userId, session.getFilename());
+                downloadUrl = storageService.storeFile(file, storagePath, session.getContentType());
+            }
+
+            String documentId = documentRepository.saveDocument(userId, session.getFilename(), storagePath,
+                    downloadUrl, contentHash);
+            if (ThumbnailService.isPdf(session.getFilename())) {
+                thumbnailService.generateInBackground(documentId, storagePath);
+            }
+            System.out.println("📤 Upload " + uploadId + " stored as document " + documentId);
+
+            return ResponseEntity.ok(uploadResponse(documentId, session.getFilename(), downloadUrl));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error: " + e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (Exception e) {
+                System.err.println("⚠️ Failed to delete upload spool file " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> cancelUpload(@PathVariable String uploadId, @RequestParam String userId) {
+        UploadSession session = uploadSessionService.get(uploadId, userId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        uploadSessionService.cancel(session);
+        return ResponseEntity.ok(Map.of("message", "Upload cancelled"));
+    }
+
     @GetMapping
     public ResponseEntity<?> getUserDocuments(@RequestParam String userId) {
         try {
-            List<Map<String, Object>> documents = firestoreService.getUserDocuments(userId);
+            List<Map<String, Object>> documents = documentRepository.getUserDocuments(userId);
+            for (Map<String, Object> doc : documents) {
+                if (ThumbnailService.needsThumbnail(doc)) {
+                    // Uploaded before thumbnails existed; it shows up in a later listing
+                    thumbnailService.generateInBackground((String) doc.get("id"), (String) doc.get("storagePath"));
+                }
+                doc.remove("thumbnailFailed");
+                if (doc.remove("thumbnailPath") != null) {
+                    doc.put("thumbnailUrl", "/api/documents/" + doc.get("id") + "/thumbnail?userId="
+                            + URLEncoder.encode(userId, StandardCharsets.UTF_8));
+                }
+            }
             return ResponseEntity.ok(documents);
         } catch (Exception e) {
             e.printStackTrace();
@@ -74,43 +317,111 @@ public class DocumentController {
     @GetMapping("/{documentId}/content")
     public ResponseEntity<?> getDocumentContent(
             @PathVariable String documentId,
-            @RequestParam String userId) {
+            @RequestParam String userId,
+            @RequestParam(defaultValue = "true") boolean includeText) {
         try {
-            Map<String, Object> doc = firestoreService.getDocument(documentId);
+            Map<String, Object> doc = documentRepository.getDocument(documentId);
 
             if (doc == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            String storagePath = (String) doc.get("storagePath");
-            String freshDownloadUrl;
+            Map<String, Object> response = contentResponse(documentId, doc, includeText);
 
-            // Fallback for old documents without storagePath
-            if (storagePath == null || storagePath.isEmpty()) {
-                // For old documents, just use the stored URL (may be expired)
-                freshDownloadUrl = (String) doc.get("downloadUrl");
-                System.out.println("Warning: Old document without storagePath, using stored URL");
-            } else {
-                // Generate fresh URL for new documents
-                freshDownloadUrl = storageService.getDownloadUrl(storagePath);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Several documents of a user at once, for study sets and multi-document
+     * quizzes. The records are read in one round trip and the download URLs
+     * are signed in parallel. Ids that do not exist or belong to another user
+     * are listed in "missing" and "forbidden".
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> getDocumentsContent(@RequestBody Map<String, Object> request) {
+        try {
+            String userId = (String) request.get("userId");
+            if (userId == null || !(request.get("documentIds") instanceof List<?> ids) || ids.isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "userId and documentIds are required"));
             }
+            if (ids.size() > MAX_BATCH_DOCUMENTS) {
+                return ResponseEntity.badRequest().body(Map.of("error",
+                        "At most " + MAX_BATCH_DOCUMENTS + " documents per request"));
+            }
+            List<String> documentIds = ids.stream().map(String::valueOf).distinct().toList();
+            boolean includeText = !Boolean.FALSE.equals(request.get("includeText"));
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("documentId", documentId);
-            response.put("filename", doc.get("filename"));
-            response.put("downloadUrl", freshDownloadUrl);
-            response.put("storagePath", storagePath);
+            Map<String, Map<String, Object>> docs = documentRepository.getDocuments(documentIds);
 
-            // Include cached extracted text if available
-            String extractedText = (String) doc.get("extractedText");
-            if (extractedText != null && !extractedText.isEmpty()) {
-                response.put("extractedText", extractedText);
-                response.put("textCached", true);
-            } else {
-                response.put("textCached", false);
+            List<String> missing = new ArrayList<>();
+            List<String> forbidden = new ArrayList<>();
+            Map<String, Future<Map<String, Object>>> responses = new LinkedHashMap<>();
+            // Virtual threads: each task mostly waits on the storage service
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (String documentId : documentIds) {
+                    Map<String, Object> doc = docs.get(documentId);
+                    if (doc == null) {
+                        missing.add(documentId);
+                    } else if (!userId.equals(doc.get("userId"))) {
+                        forbidden.add(documentId);
+                    } else {
+                        responses.put(documentId, executor.submit(() -> contentResponse(documentId, doc, includeText)));
+                    }
+                }
             }
 
-            return ResponseEntity.ok(response);
+            List<Map<String, Object>> documents = new ArrayList<>();
+            for (Future<Map<String, Object>> response : responses.values()) {
+                documents.add(response.get());
+            }
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("documents", documents);
+            result.put("missing", missing);
+            result.put("forbidden", forbidden);
+            return ResponseEntity.ok(result);
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            return ResponseEntity.status(500).body("Error: " + e.getCause().getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * First-page thumbnail of a PDF as JPEG. 404 while it is not rendered
+     * yet; asking for one a document does not have yet starts rendering it.
+     */
+    @GetMapping("/{documentId}/thumbnail")
+    public ResponseEntity<?> getThumbnail(@PathVariable String documentId, @RequestParam String userId) {
+        try {
+            Map<String, Object> doc = documentRepository.getDocument(documentId);
+            if (doc == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (!userId.equals(doc.get("userId"))) {
+                return ResponseEntity.status(403).body("Unauthorized");
+            }
+
+            String thumbnailPath = (String) doc.get("thumbnailPath");
+            byte[] thumbnail = thumbnailPath != null ? thumbnailService.get(thumbnailPath) : null;
+            if (thumbnail == null) {
+                if (ThumbnailService.needsThumbnail(doc)) {
+                    thumbnailService.generateInBackground(documentId, (String) doc.get("storagePath"));
+                }
+                return ResponseEntity.notFound().build();
+            }
+
+            // A thumbnail never changes; a new upload gets a new storage path
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_JPEG)
+                    .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate())
+                    .body(thumbnail);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body("Error: " + e.getMessage());
@@ -122,7 +433,7 @@ public class DocumentController {
             @PathVariable String documentId,
             @RequestParam String userId) {
         try {
-            Map<String, Object> doc = firestoreService.getDocument(documentId);
+            Map<String, Object> doc = documentRepository.getDocument(documentId);
 
             if (doc == null) {
                 return ResponseEntity.notFound().build();
@@ -134,7 +445,12 @@ public class DocumentController {
             }
 
             // Delete from Firestore
-            firestoreService.deleteDocument(documentId);
+            documentRepository.deleteDocument(documentId);
+            transcriptWindowService.evict(documentId);
+            documentTextService.evict(documentId);
+            librarySearchService.remove(documentId);
+            chatContextManager.evict(documentId);
+            studyArtifactService.evict(documentId);
 
             return ResponseEntity.ok(Map.of("message", "Document deleted successfully"));
         } catch (Exception e) {
@@ -149,7 +465,7 @@ public class DocumentController {
             @RequestParam String userId,
             @RequestBody List<Map<String, String>> chatHistory) {
         try {
-            firestoreService.saveChatHistory(documentId, userId, chatHistory);
+            documentRepository.saveChatHistory(documentId, userId, chatHistory);
             return ResponseEntity.ok(Map.of("message", "Chat history saved"));
         } catch (Exception e) {
             e.printStackTrace();
@@ -162,11 +478,98 @@ public class DocumentController {
             @PathVariable String documentId,
             @RequestParam String userId) {
         try {
-            List<Map<String, String>> chatHistory = firestoreService.getChatHistory(documentId, userId);
+            List<Map<String, String>> chatHistory = documentRepository.getChatHistory(documentId, userId);
             return ResponseEntity.ok(Map.of("chatHistory", chatHistory));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body("Error: " + e.getMessage());
         }
     }
+
+    /**
+     * Content response of one document with a fresh download URL
+     */
+    private Map<String, Object> contentResponse(String documentId, Map<String, Object> doc, boolean includeText)
+            throws ExecutionException, InterruptedException {
+        String storagePath = (String) doc.get("storagePath");
+        String freshDownloadUrl;
+
+        // Fallback for old documents without storagePath
+        if (storagePath == null || storagePath.isEmpty()) {
+            // For old documents, just use the stored URL (may be expired)
+            freshDownloadUrl = (String) doc.get("downloadUrl");
+            System.out.println("Warning: Old document without storagePath, using stored URL");
+        } else {
+            // Generate fresh URL for new documents
+            freshDownloadUrl = storageService.getDownloadUrl(storagePath);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("documentId", documentId);
+        response.put("filename", doc.get("filename"));
+        response.put("downloadUrl", freshDownloadUrl);
+        response.put("storagePath", storagePath);
+
+        // Include cached extracted text if available. Clients that only send the
+        // document id to the AI endpoints skip it; resolving it still warms the text cache.
+        String extractedText = documentTextService.getText(documentId, doc);
+        if (extractedText != null && !extractedText.isEmpty()) {
+            if (includeText) {
+                response.put("extractedText", extractedText);
+            }
+            response.put("textCached", true);
+        } else {
+            response.put("textCached", false);
+        }
+
+        return response;
+    }
+
+    private static String storagePath(String userId, String filename) {
+        // The filename becomes part of the path; it must not climb out of the user's directory
+        if (!StorageService.isPlainFilename(filename)) {
+            throw new IllegalArgumentException("Invalid filename");
+        }
+        return "users/" + userId + "/documents/" + UUID.randomUUID() + "_" + filename;
+    }
+
+    private static Map<String, Object> uploadResponse(String documentId, String filename, String downloadUrl) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("documentId", documentId);
+        response.put("filename", filename);
+        response.put("downloadUrl", downloadUrl);
+        return response;
+    }
+
+    /**
+     * Upload response for content the user already has: their existing document
+     */
+    private Map<String, Object> duplicateResponse(Map<String, Object> existing) {
+        String storagePath = (String) existing.get("storagePath");
+        String downloadUrl = storagePath != null && !storagePath.isEmpty()
+                ? storageService.getDownloadUrl(storagePath)
+                : (String) existing.get("downloadUrl");
+
+        Map<String, Object> response = uploadResponse((String) existing.get("id"),
+                (String) existing.get("filename"), downloadUrl);
+        response.put("duplicate", true);
+        return response;
+    }
+
+    private Map<String, Object> uploadStatus(UploadSession session) {
+        List<List<Long>> missing = new ArrayList<>();
+        for (long[] range : session.getMissing()) {
+            missing.add(List.of(range[0], range[1]));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("uploadId", session.getId());
+        response.put("filename", session.getFilename());
+        response.put("size", session.getSize());
+        response.put("receivedBytes", session.getReceivedBytes());
+        response.put("missing", missing);
+        response.put("chunkSize", uploadSessionService.getChunkBytes());
+        response.put("maxChunkSize", uploadSessionService.getMaxChunkBytes());
+        return response;
+    }
 }
@@ -1,14 +1,21 @@
 package com.Smart_Study_Buddy.Spring_backend.controller;
 
-import com.Smart_Study_Buddy.Spring_backend.service.FirestoreService;
-import com.google.cloud.storage.Blob;
-import com.google.cloud.storage.Bucket;
-import com.google.firebase.cloud.StorageClient;
+import com.Smart_Study_Buddy.Spring_backend.service.AiCallExecutor;
+import com.Smart_Study_Buddy.Spring_backend.service.AiServiceTransport;
+import com.Smart_Study_Buddy.Spring_backend.service.DocumentTextService;
+import com.Smart_Study_Buddy.Spring_backend.service.DocumentRepository;
+import com.Smart_Study_Buddy.Spring_backend.service.FileProcessingBudget;
+import com.Smart_Study_Buddy.Spring_backend.service.LibrarySearchService;
+import com.Smart_Study_Buddy.Spring_backend.service.PrecomputeService;
+import com.Smart_Study_Buddy.Spring_backend.service.StorageService;
+import com.Smart_Study_Buddy.Spring_backend.service.TextNormalizer;
+import com.Smart_Study_Buddy.Spring_backend.service.UsageMeter;
+import com.Smart_Study_Buddy.Spring_backend.service.UsageMeter.Metric;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.*;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -18,37 +25,67 @@ import java.util.Map;
 @CrossOrigin(origins = "http://localhost:5173")
 public class PdfController {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final String AI_SERVICE_URL = "http://localhost:8000/api/ai";
-    private final FirestoreService firestoreService;
-
-    public PdfController(FirestoreService firestoreService) {
-        this.firestoreService = firestoreService;
+    private final AiServiceTransport transport;
+    private final DocumentRepository documentRepository;
+    private final DocumentTextService documentTextService;
+    private final LibrarySearchService librarySearchService;
+    private final TextNormalizer textNormalizer;
+    private final PrecomputeService precomputeService;
+    private final StorageService storageService;
+    private final FileProcessingBudget fileProcessingBudget;
+    private final UsageMeter usageMeter;
+    private final AiCallExecutor aiCallExecutor;
+
+    public PdfController(AiServiceTransport transport, DocumentRepository documentRepository, DocumentTextService documentTextService,
+            LibrarySearchService librarySearchService, TextNormalizer textNormalizer,
+            PrecomputeService precomputeService, StorageService storageService,
+            FileProcessingBudget fileProcessingBudget, UsageMeter usageMeter, AiCallExecutor aiCallExecutor) {
+        this.transport = transport;
+        this.documentRepository = documentRepository;
+        this.documentTextService = documentTextService;
+        this.librarySearchService = librarySearchService;
+        this.textNormalizer = textNormalizer;
+        this.precomputeService = precomputeService;
+        this.storageService = storageService;
+        this.fileProcessingBudget = fileProcessingBudget;
+        this.usageMeter = usageMeter;
+        this.aiCallExecutor = aiCallExecutor;
     }
 
     @PostMapping("/extract-from-storage-path")
-    public ResponseEntity<?> extractTextFromStoragePath(@RequestBody Map<String, String> request) {
+    public DeferredResult<ResponseEntity<?>> extractTextFromStoragePath(@RequestBody Map<String, String> request,
+            @RequestHeader(value = AiCallExecutor.TIMEOUT_HEADER, required = false) Long timeoutMillis) {
+        return aiCallExecutor.deferExtraction(timeoutMillis, () -> extract(request));
+    }
+
+    private ResponseEntity<?> extract(Map<String, String> request) {
+        FileProcessingBudget.Reservation reservation = null;
         try {
             String storagePath = request.get("storagePath");
             String documentId = request.get("documentId");
 
-            System.out.println("Downloading PDF from Firebase Storage: " + storagePath);
+            long size = storageService.getFileSize(storagePath);
+            if (size < 0) {
+                return ResponseEntity.status(404).body(Map.of("error", "File not found in storage"));
+            }
+            // The download, RestTemplate's buffer of the multipart body and the transport's copy it sends from
+            reservation = fileProcessingBudget.reserve(3 * size);
+            if (reservation == null) {
+                return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "5")
+                        .body(Map.of("error", "Too many files are being processed, please try again shortly"));
+            }
+
+            System.out.println("Downloading PDF from storage: " + storagePath);
 
-            // Download PDF directly from Firebase Storage using Admin SDK
-            Bucket bucket = StorageClient.getInstance().bucket();
-            Blob blob = bucket.get(storagePath);
+            byte[] pdfBytes = storageService.downloadFile(storagePath);
 
-            if (blob == null || !blob.exists()) {
+            if (pdfBytes == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "File not found in storage"));
             }
 
-            byte[] pdfBytes = blob.getContent();
             System.out.println("PDF downloaded successfully, size: " + pdfBytes.length + " bytes");
 
             // Prepare multipart request to Python service
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-
             LinkedMultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
             body.add("file", new ByteArrayResource(pdfBytes) {
                 @Override
@@ -57,25 +94,46 @@ public class PdfController {
                 }
             });
 
-            HttpEntity<LinkedMultiValueMap<String, Object>> entity = new HttpEntity<>(body, headers);
-
             System.out.println("Sending PDF to Python service for text extraction...");
             @SuppressWarnings("unchecked")
             Class<Map<String, Object>> responseType = (Class<Map<String, Object>>) (Class<?>) Map.class;
-            ResponseEntity<Map<String, Object>> response = restTemplate.postForEntity(
-                    AI_SERVICE_URL + "/extract-text",
-                    entity,
+            ResponseEntity<Map<String, Object>> response = transport.post(
+                    "/api/ai/extract-text",
+                    body,
                     responseType);
 
 
             System.out.println("Text extraction successful!");
 
+            // Compact the text once; the stored copy and the client's copy are both the compacted form
+            long pages = 0;
+            if (response.getBody() != null && response.getBody().get("text") instanceof String rawText) {
+                // The extractor separates pages with form feeds
+                pages = rawText.chars().filter(c -> c == '\f').count() + 1;
+                String normalized = textNormalizer.normalize(rawText);
+                response.getBody().put("text", normalized);
+                response.getBody().put("length", normalized.length());
+            }
+
             // Cache the extracted text in Firestore if documentId is provided
             if (documentId != null && !documentId.isEmpty() && response.getBody() != null) {
+                try {
+                    // Extraction is billed to the document's owner
+                    Map<String, Object> doc = documentRepository.getDocument(documentId);
+                    if (doc != null) {
+                        usageMeter.record((String) doc.get("userId"), Metric.EXTRACTED_PAGES, pages);
+                    }
+                } catch (Exception e) {
+                    System.err.println("⚠️ Failed to meter extraction: " + e.getMessage());
+                }
+
                 String extractedText = (String) response.getBody().get("text");
                 if (extractedText != null && !extractedText.isEmpty()) {
                     try {
-                        firestoreService.updateDocumentText(documentId, extractedText);
+                        documentRepository.updateDocumentText(documentId, extractedText);
+                        documentTextService.evict(documentId);
+                        librarySearchService.indexText(documentId, extractedText);
+                        precomputeService.enqueue(documentId);
                         System.out.println("✅ Cached extracted text in Firestore for document: " + documentId);
                     } catch (Exception e) {
                         System.err.println("⚠️ Failed to cache text: " + e.getMessage());
@@ -93,6 +151,10 @@ public class PdfController {
             error.put("error", e.getMessage());
             error.put("type", e.getClass().getName());
             return ResponseEntity.status(500).body(error);
+        } finally {
+            if (reservation != null) {
+                reservation.close();
+            }
         }
     }
 }
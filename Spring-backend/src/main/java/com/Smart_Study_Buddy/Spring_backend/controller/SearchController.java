@@ -0,0 +1,55 @@
+package com.Smart_Study_Buddy.Spring_backend.controller;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.SearchHit;
+import com.Smart_Study_Buddy.Spring_backend.service.LibrarySearchService;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "http://localhost:5173")
+public class SearchController {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final LibrarySearchService librarySearchService;
+
+    public SearchController(LibrarySearchService librarySearchService) {
+        this.librarySearchService = librarySearchService;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> search(
+            @RequestParam String userId,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            if (q.isBlank()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Query cannot be empty"));
+            }
+
+            long startTime = System.nanoTime();
+            List<SearchHit> hits = librarySearchService.search(userId, q, Math.max(1, Math.min(limit, MAX_LIMIT)));
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("query", q);
+            response.put("count", hits.size());
+            response.put("hits", hits);
+            response.put("tookMs", (System.nanoTime() - startTime) / 1_000_000);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.Smart_Study_Buddy.Spring_backend.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.Smart_Study_Buddy.Spring_backend.service.UsageMeter;
+
+@RestController
+@RequestMapping("/api/usage")
+@CrossOrigin(origins = "http://localhost:5173")
+public class UsageController {
+
+    private final UsageMeter usageMeter;
+
+    public UsageController(UsageMeter usageMeter) {
+        this.usageMeter = usageMeter;
+    }
+
+    /**
+     * AI calls, uploaded bytes and extracted pages of a user so far
+     */
+    @GetMapping
+    public ResponseEntity<?> getUsage(@RequestParam String userId) {
+        try {
+            Map<String, Object> usage = usageMeter.getUsage(userId);
+            usage.put("userId", userId);
+            return ResponseEntity.ok(usage);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error: " + e.getMessage());
+        }
+    }
+}
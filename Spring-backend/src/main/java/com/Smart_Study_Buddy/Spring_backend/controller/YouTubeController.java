@@ -1,33 +1,63 @@
 package com.Smart_Study_Buddy.Spring_backend.controller;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.Smart_Study_Buddy.Spring_backend.dto.CompactTranscript;
+import com.Smart_Study_Buddy.Spring_backend.dto.YouTubeBatchRequest;
 import com.Smart_Study_Buddy.Spring_backend.dto.YouTubeUploadRequest;
 import com.Smart_Study_Buddy.Spring_backend.dto.YouTubeResponse;
-import com.Smart_Study_Buddy.Spring_backend.service.FirestoreService;
+import com.Smart_Study_Buddy.Spring_backend.service.AiCallExecutor;
+import com.Smart_Study_Buddy.Spring_backend.service.AiCallExecutor.Priority;
+import com.Smart_Study_Buddy.Spring_backend.service.TranscriptWindowService;
+import com.Smart_Study_Buddy.Spring_backend.service.YouTubeBatchService;
+import com.Smart_Study_Buddy.Spring_backend.service.YouTubeBatchService.BatchItem;
+import com.Smart_Study_Buddy.Spring_backend.service.YouTubeBatchService.BatchJob;
+import com.Smart_Study_Buddy.Spring_backend.service.YouTubeBatchService.ItemStatus;
+import com.Smart_Study_Buddy.Spring_backend.service.YouTubeIngestionService;
+import com.Smart_Study_Buddy.Spring_backend.service.YouTubeIngestionService.IngestedVideo;
 
 @RestController
 @RequestMapping("/api/youtube")
 public class YouTubeController {
 
     @Autowired
-    private FirestoreService firestoreService;
+    private YouTubeIngestionService youTubeIngestionService;
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private static final String AI_SERVICE_URL = "http://localhost:8000";
+    @Autowired
+    private TranscriptWindowService transcriptWindowService;
+
+    @Autowired
+    private YouTubeBatchService youTubeBatchService;
+
+    @Autowired
+    private AiCallExecutor aiCallExecutor;
+
+    // Window length used when the client only sends a start time
+    private static final double DEFAULT_WINDOW_SECONDS = 60.0;
 
     @PostMapping("/upload")
-    public ResponseEntity<?> uploadYouTubeVideo(@RequestBody YouTubeUploadRequest request) {
+    public DeferredResult<ResponseEntity<?>> uploadYouTubeVideo(@RequestBody YouTubeUploadRequest request,
+            @RequestHeader(value = AiCallExecutor.TIMEOUT_HEADER, required = false) Long timeoutMillis) {
+        return aiCallExecutor.deferExtraction(timeoutMillis, () -> upload(request));
+    }
+
+    private ResponseEntity<?> upload(YouTubeUploadRequest request) {
         try {
             System.out.println("📹 YouTube upload request received");
             System.out.println("  URL: " + request.getUrl());
@@ -44,45 +74,34 @@ public class YouTubeController {
                         .body(Map.of("error", "User ID is required"));
             }
 
-            // Call Python AI service to extract transcript
-            String extractUrl = AI_SERVICE_URL + "/api/youtube/extract";
-            Map<String, String> aiRequest = new HashMap<>();
-            aiRequest.put("url", request.getUrl());
-
-            System.out.println("🔄 Calling AI service: " + extractUrl);
-
             try {
-                ResponseEntity<YouTubeResponse> aiResponse = restTemplate.postForEntity(
-                        extractUrl,
-                        aiRequest,
-                        YouTubeResponse.class);
+                String language = request.getLanguage() != null && !request.getLanguage().isBlank()
+                        ? request.getLanguage().trim()
+                        : "en";
 
-                if (aiResponse.getBody() == null || !aiResponse.getBody().isSuccess()) {
-                    String error = aiResponse.getBody() != null ? aiResponse.getBody().getError()
+                // Reuses the shared transcript if anyone has added this video before;
+                // otherwise streams the Python extract response straight into Firestore
+                IngestedVideo ingested = youTubeIngestionService.ingest(request.getUserId(), request.getUrl(),
+                        language);
+                YouTubeResponse youtubeData = ingested.getVideo();
+
+                if (!youtubeData.isSuccess()) {
+                    String error = youtubeData.getError() != null ? youtubeData.getError()
                             : "Failed to extract transcript";
                     System.err.println("❌ AI service error: " + error);
                     return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                             .body(Map.of("error", error));
                 }
 
-                YouTubeResponse youtubeData = aiResponse.getBody();
-                System.out.println("✅ Transcript extracted successfully");
+                String documentId = ingested.getDocumentId();
+                System.out.println(ingested.isSharedTranscriptReused()
+                        ? "♻️ Reused shared transcript"
+                        : "✅ Transcript extracted successfully");
                 System.out.println("  Video ID: " + youtubeData.getVideoId());
                 System.out.println("  Title: " + youtubeData.getTitle());
                 System.out.println("  Duration: " + youtubeData.getDuration() + "s");
-                System.out.println("  Transcript length: " + youtubeData.getFullText().length() + " characters");
-
-                // Save to Firestore
-                String documentId = firestoreService.saveYouTubeVideo(
-                        request.getUserId(),
-                        youtubeData.getVideoId(),
-                        youtubeData.getTitle(),
-                        youtubeData.getChannel(),
-                        youtubeData.getThumbnailUrl(),
-                        youtubeData.getFullText(),
-                        youtubeData.getTranscript(),
-                        youtubeData.getDuration());
-
+                System.out.println("  Transcript entries: " + ingested.getTranscriptEntryCount()
+                        + " in " + ingested.getTranscriptChunkCount() + " chunks");
                 System.out.println("💾 Saved to Firestore with ID: " + documentId);
 
                 // Return response
@@ -94,6 +113,7 @@ public class YouTubeController {
                 response.put("channel", youtubeData.getChannel());
                 response.put("thumbnailUrl", youtubeData.getThumbnailUrl());
                 response.put("duration", youtubeData.getDuration());
+                response.put("sharedTranscript", ingested.isSharedTranscriptReused());
                 response.put("message", "YouTube video added successfully");
 
                 return ResponseEntity.ok(response);
@@ -104,22 +124,7 @@ public class YouTubeController {
                 System.err.println("   Response body: " + e.getResponseBodyAsString());
 
                 // Try to extract error message from response
-                String errorMessage = "This video doesn't have captions/subtitles available. Please try a different video.";
-                try {
-                    if (e.getResponseBodyAsString().contains("no element found")) {
-                        errorMessage = "No transcript found for this video. The video may not have captions enabled.";
-                    } else if (e.getResponseBodyAsString().contains("detail")) {
-                        // Extract error from JSON response
-                        String body = e.getResponseBodyAsString();
-                        int start = body.indexOf("\"detail\":\"") + 10;
-                        int end = body.indexOf("\"", start);
-                        if (start > 9 && end > start) {
-                            errorMessage = body.substring(start, end);
-                        }
-                    }
-                } catch (Exception parseError) {
-                    // Use default message if parsing fails
-                }
+                String errorMessage = YouTubeIngestionService.describeAiServiceError(e);
 
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                         .body(Map.of("error", errorMessage));
@@ -132,4 +137,125 @@ public class YouTubeController {
                     .body(Map.of("error", "Failed to upload YouTube video: " + e.getMessage()));
         }
     }
+
+    @PostMapping("/batch")
+    public DeferredResult<ResponseEntity<?>> startBatchImport(@RequestBody YouTubeBatchRequest request,
+            @RequestHeader(value = AiCallExecutor.TIMEOUT_HEADER, required = false) Long timeoutMillis) {
+        // Expanding a playlist calls the AI service
+        return aiCallExecutor.defer(Priority.STANDARD, timeoutMillis, () -> startBatch(request));
+    }
+
+    private ResponseEntity<?> startBatch(YouTubeBatchRequest request) {
+        try {
+            if (request.getUserId() == null || request.getUserId().trim().isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "User ID is required"));
+            }
+
+            List<String> urls = new ArrayList<>();
+            if (request.getUrls() != null) {
+                for (String url : request.getUrls()) {
+                    if (url != null && !url.trim().isEmpty()) {
+                        urls.add(url.trim());
+                    }
+                }
+            }
+            if (request.getPlaylistUrl() != null && !request.getPlaylistUrl().trim().isEmpty()) {
+                urls.addAll(youTubeIngestionService.expandPlaylist(request.getPlaylistUrl().trim()));
+            }
+
+            if (urls.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "At least one YouTube URL or a playlist URL is required"));
+            }
+            if (urls.size() > youTubeBatchService.getMaxVideos()) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "A batch can import at most " + youTubeBatchService.getMaxVideos()
+                                + " videos"));
+            }
+
+            String language = request.getLanguage() != null && !request.getLanguage().isBlank()
+                    ? request.getLanguage().trim()
+                    : "en";
+
+            BatchJob job = youTubeBatchService.submit(request.getUserId(), urls, language);
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(batchStatus(job));
+
+        } catch (org.springframework.web.client.HttpClientErrorException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", YouTubeIngestionService.describeAiServiceError(e)));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to start batch import: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/batch/{jobId}")
+    public ResponseEntity<?> getBatchImport(
+            @PathVariable String jobId,
+            @RequestParam String userId) {
+        BatchJob job = youTubeBatchService.getJob(jobId, userId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(batchStatus(job));
+    }
+
+    private Map<String, Object> batchStatus(BatchJob job) {
+        List<Map<String, Object>> videos = new ArrayList<>();
+        for (BatchItem item : job.getItems()) {
+            Map<String, Object> video = new HashMap<>();
+            video.put("url", item.getUrl());
+            video.put("status", item.getStatus());
+            video.put("title", item.getTitle());
+            video.put("documentId", item.getDocumentId());
+            video.put("error", item.getError());
+            video.put("sharedTranscript", item.isSharedTranscript());
+            videos.add(video);
+        }
+
+        Map<String, Object> status = new HashMap<>();
+        status.put("jobId", job.getId());
+        status.put("complete", job.isComplete());
+        status.put("total", videos.size());
+        status.put("succeeded", job.count(ItemStatus.DONE));
+        status.put("failed", job.count(ItemStatus.FAILED));
+        status.put("videos", videos);
+        return status;
+    }
+
+    @GetMapping("/{documentId}/transcript")
+    public ResponseEntity<?> getTranscriptWindow(
+            @PathVariable String documentId,
+            @RequestParam String userId,
+            @RequestParam double start,
+            @RequestParam(required = false) Double end) {
+        try {
+            double windowEnd = end != null ? end : start + DEFAULT_WINDOW_SECONDS;
+            if (windowEnd < start) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "end must not be before start"));
+            }
+
+            CompactTranscript entries = transcriptWindowService.getWindow(documentId, userId, start, windowEnd);
+            if (entries == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("documentId", documentId);
+            response.put("start", start);
+            response.put("end", windowEnd);
+            response.put("count", entries.size());
+            response.put("entries", entries);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to load transcript: " + e.getMessage()));
+        }
+    }
 }
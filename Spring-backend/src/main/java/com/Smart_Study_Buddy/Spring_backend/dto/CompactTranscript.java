@@ -0,0 +1,338 @@
+package com.Smart_Study_Buddy.Spring_backend.dto;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Columnar, read-only transcript: start times and durations live in primitive
+ * arrays and all caption text shares one char buffer addressed by offsets.
+ * Serializes to the same JSON array of {text, start, duration} objects that the
+ * Python service produces.
+ */
+@JsonSerialize(using = CompactTranscript.Serializer.class)
+@JsonDeserialize(using = CompactTranscript.Deserializer.class)
+public class CompactTranscript {
+
+    private static final CompactTranscript EMPTY = new Builder(0).build();
+
+    private final int size;
+    private final double[] starts;
+    private final double[] durations;
+    private final char[] text;
+    // offsets[i]..offsets[i + 1] is the text of entry i
+    private final int[] offsets;
+
+    private CompactTranscript(int size, double[] starts, double[] durations, char[] text, int[] offsets) {
+        this.size = size;
+        this.starts = starts;
+        this.durations = durations;
+        this.text = text;
+        this.offsets = offsets;
+    }
+
+    public static CompactTranscript empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double getStart(int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    public double getDuration(int index) {
+        checkIndex(index);
+        return durations[index];
+    }
+
+    public String getText(int index) {
+        checkIndex(index);
+        return new String(text, offsets[index], offsets[index + 1] - offsets[index]);
+    }
+
+    public YouTubeResponse.TranscriptEntry getEntry(int index) {
+        YouTubeResponse.TranscriptEntry entry = new YouTubeResponse.TranscriptEntry();
+        entry.setText(getText(index));
+        entry.setStart(getStart(index));
+        entry.setDuration(getDuration(index));
+        return entry;
+    }
+
+    /**
+     * Copy the entries at the given positions, in order, into a new transcript
+     */
+    public CompactTranscript select(int[] positions) {
+        Builder builder = new Builder(positions.length);
+        for (int i : positions) {
+            checkIndex(i);
+            builder.add(text, offsets[i], offsets[i + 1] - offsets[i], starts[i], durations[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Total number of text characters held, excluding separators
+     */
+    public int getTextLength() {
+        return offsets[size];
+    }
+
+    /**
+     * Caption text joined with single spaces, matching the Python service's
+     * full_text field
+     */
+    public String getFullText() {
+        if (size == 0) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(offsets[size] + size - 1);
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(text, offsets[i], offsets[i + 1] - offsets[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Materialize entries as maps for Firestore, which cannot store this type
+     * directly. The list is built on demand and is not retained.
+     */
+    public List<Map<String, Object>> toMaps() {
+        List<Map<String, Object>> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("text", getText(i));
+            entry.put("start", starts[i]);
+            entry.put("duration", durations[i]);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Rebuild a transcript from the list-of-maps form stored in Firestore
+     */
+    public static CompactTranscript fromMaps(List<?> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return EMPTY;
+        }
+        Builder builder = new Builder(entries.size());
+        for (Object item : entries) {
+            if (item instanceof Map<?, ?> entry) {
+                Object text = entry.get("text");
+                builder.add(text != null ? text.toString() : "",
+                        toDouble(entry.get("start")),
+                        toDouble(entry.get("duration")));
+            }
+        }
+        return builder.build();
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0.0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    /**
+     * Append-only builder that grows the primitive arrays geometrically
+     */
+    public static class Builder {
+        private int size;
+        private double[] starts;
+        private double[] durations;
+        private char[] text;
+        private int[] offsets;
+        // chars already written for an entry whose start/duration are not known yet
+        private int pending;
+
+        public Builder() {
+            this(64);
+        }
+
+        public Builder(int expectedEntries) {
+            int capacity = Math.max(expectedEntries, 1);
+            this.starts = new double[capacity];
+            this.durations = new double[capacity];
+            this.offsets = new int[capacity + 1];
+            this.text = new char[capacity * 32];
+        }
+
+        public Builder add(CharSequence entryText, double start, double duration) {
+            ensureEntryCapacity();
+            int length = entryText.length();
+            ensureTextCapacity(length);
+            int textEnd = offsets[size];
+            for (int i = 0; i < length; i++) {
+                text[textEnd + i] = entryText.charAt(i);
+            }
+            return commit(length, start, duration);
+        }
+
+        public Builder add(char[] source, int offset, int length, double start, double duration) {
+            ensureEntryCapacity();
+            ensureTextCapacity(length);
+            System.arraycopy(source, offset, text, offsets[size], length);
+            return commit(length, start, duration);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        void appendPending(char[] source, int offset, int length) {
+            ensureTextCapacity(pending + length);
+            System.arraycopy(source, offset, text, offsets[size] + pending, length);
+            pending += length;
+        }
+
+        void commitPending(double start, double duration) {
+            ensureEntryCapacity();
+            int length = pending;
+            pending = 0;
+            commit(length, start, duration);
+        }
+
+        public CompactTranscript build() {
+            int textLength = offsets[size];
+            return new CompactTranscript(size,
+                    Arrays.copyOf(starts, size),
+                    Arrays.copyOf(durations, size),
+                    Arrays.copyOf(text, textLength),
+                    Arrays.copyOf(offsets, size + 1));
+        }
+
+        private Builder commit(int length, double start, double duration) {
+            starts[size] = start;
+            durations[size] = duration;
+            offsets[size + 1] = offsets[size] + length;
+            size++;
+            return this;
+        }
+
+        private void ensureEntryCapacity() {
+            if (size == starts.length) {
+                int capacity = starts.length * 2;
+                starts = Arrays.copyOf(starts, capacity);
+                durations = Arrays.copyOf(durations, capacity);
+                offsets = Arrays.copyOf(offsets, capacity + 1);
+            }
+        }
+
+        private void ensureTextCapacity(int additional) {
+            int required = offsets[size] + additional;
+            if (required > text.length) {
+                text = Arrays.copyOf(text, Math.max(required, text.length * 2));
+            }
+        }
+    }
+
+    public static class Serializer extends StdSerializer<CompactTranscript> {
+
+        private static final long serialVersionUID = 1L;
+
+        public Serializer() {
+            super(CompactTranscript.class);
+        }
+
+        @Override
+        public void serialize(CompactTranscript value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartArray(value, value.size);
+            for (int i = 0; i < value.size; i++) {
+                gen.writeStartObject();
+                gen.writeFieldName("text");
+                gen.writeString(value.text, value.offsets[i], value.offsets[i + 1] - value.offsets[i]);
+                gen.writeNumberField("start", value.starts[i]);
+                gen.writeNumberField("duration", value.durations[i]);
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    public static class Deserializer extends StdDeserializer<CompactTranscript> {
+
+        private static final long serialVersionUID = 1L;
+
+        public Deserializer() {
+            super(CompactTranscript.class);
+        }
+
+        @Override
+        public CompactTranscript deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                return (CompactTranscript) context.handleUnexpectedToken(CompactTranscript.class, parser);
+            }
+            Builder builder = new Builder();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                readEntry(parser, builder);
+            }
+            return builder.build();
+        }
+
+        @Override
+        public CompactTranscript getNullValue(DeserializationContext context) {
+            return null;
+        }
+
+        /**
+         * Read one {text, start, duration} object positioned at START_OBJECT.
+         * Text is copied straight from the parser's buffer into the builder's
+         * shared char buffer, so no per-entry String is created. Also used by
+         * the streaming YouTube ingestion path, which has no databind context.
+         */
+        public static void readEntry(JsonParser parser, Builder builder) throws IOException {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected transcript entry object but found "
+                        + parser.currentToken());
+            }
+            double start = 0.0;
+            double duration = 0.0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+                switch (field) {
+                    case "text" -> {
+                        if (valueToken == JsonToken.VALUE_STRING) {
+                            builder.appendPending(parser.getTextCharacters(), parser.getTextOffset(),
+                                    parser.getTextLength());
+                        }
+                    }
+                    case "start" -> start = valueToken.isNumeric() ? parser.getDoubleValue() : 0.0;
+                    case "duration" -> duration = valueToken.isNumeric() ? parser.getDoubleValue() : 0.0;
+                    default -> parser.skipChildren();
+                }
+            }
+            builder.commitPending(start, duration);
+        }
+    }
+}
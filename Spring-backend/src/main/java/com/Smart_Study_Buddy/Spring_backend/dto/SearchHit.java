@@ -0,0 +1,73 @@
+package com.Smart_Study_Buddy.Spring_backend.dto;
+
+import java.util.List;
+
+public class SearchHit {
+    private String documentId;
+    private String type;
+    private String title;
+    private double score;
+    private String snippet;
+    // Videos only: where the snippet is spoken, and the starts of matching captions
+    private Double timestamp;
+    private List<Double> timestamps;
+
+    public SearchHit() {
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(String documentId) {
+        this.documentId = documentId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public void setSnippet(String snippet) {
+        this.snippet = snippet;
+    }
+
+    public Double getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Double timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public List<Double> getTimestamps() {
+        return timestamps;
+    }
+
+    public void setTimestamps(List<Double> timestamps) {
+        this.timestamps = timestamps;
+    }
+}
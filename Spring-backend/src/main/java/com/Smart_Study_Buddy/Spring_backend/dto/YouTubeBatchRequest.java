@@ -0,0 +1,46 @@
+package com.Smart_Study_Buddy.Spring_backend.dto;
+
+import java.util.List;
+
+public class YouTubeBatchRequest {
+    private String userId;
+    private List<String> urls;
+    // Optional playlist whose videos are imported along with urls
+    private String playlistUrl;
+    private String language = "en";
+
+    public YouTubeBatchRequest() {
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public List<String> getUrls() {
+        return urls;
+    }
+
+    public void setUrls(List<String> urls) {
+        this.urls = urls;
+    }
+
+    public String getPlaylistUrl() {
+        return playlistUrl;
+    }
+
+    public void setPlaylistUrl(String playlistUrl) {
+        this.playlistUrl = playlistUrl;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+}
@@ -1,7 +1,5 @@
 package com.Smart_Study_Buddy.Spring_backend.dto;
 
-import java.util.List;
-
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class YouTubeResponse {
@@ -18,7 +16,7 @@ public class YouTubeResponse {
     @JsonProperty("thumbnail_url")
     private String thumbnailUrl;
 
-    private List<TranscriptEntry> transcript;
+    private CompactTranscript transcript;
 
     @JsonProperty("full_text")
     private String fullText;
@@ -32,7 +30,7 @@ public class YouTubeResponse {
 
     private String error;
 
-    // Nested class for transcript entries
+    // Single transcript entry, materialized on demand from CompactTranscript
     public static class TranscriptEntry {
         private String text;
         private double start;
@@ -111,11 +109,11 @@ public class YouTubeResponse {
         this.thumbnailUrl = thumbnailUrl;
     }
 
-    public List<TranscriptEntry> getTranscript() {
+    public CompactTranscript getTranscript() {
         return transcript;
     }
 
-    public void setTranscript(List<TranscriptEntry> transcript) {
+    public void setTranscript(CompactTranscript transcript) {
         this.transcript = transcript;
     }
 
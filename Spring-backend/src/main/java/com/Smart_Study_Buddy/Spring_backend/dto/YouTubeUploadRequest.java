@@ -3,6 +3,8 @@ package com.Smart_Study_Buddy.Spring_backend.dto;
 public class YouTubeUploadRequest {
     private String url;
     private String userId;
+    // Preferred transcript language; the shared transcript store is keyed by it
+    private String language = "en";
 
     public YouTubeUploadRequest() {
     }
@@ -27,4 +29,12 @@ public class YouTubeUploadRequest {
     public void setUserId(String userId) {
         this.userId = userId;
     }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
 }
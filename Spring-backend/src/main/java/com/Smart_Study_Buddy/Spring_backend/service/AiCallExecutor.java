@@ -0,0 +1,319 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bounded pool for work that calls the Python AI service, so those calls no
+ * longer run on request threads without limit or deadline.
+ *
+ * Queued work runs by priority class, then earliest deadline first.
+ * Background work has threads of its own (ai-service.executor.background-threads),
+ * so steady interactive load cannot starve it. Each request gets the
+ * client's remaining time (X-Timeout-Millis, capped by
+ * ai-service.max-timeout-millis) as its deadline: work still queued when it
+ * passes is dropped without running, and the upstream call of running work
+ * is given only the time left (see DeadlineRequestFactory). When the deadline
+ * passes or the container reports the client gone, the work is cancelled
+ * along with its upstream call, so no capacity is spent on answers nobody
+ * will read. Tomcat rarely notices a silent disconnect while a request is
+ * async, which is why clients send the time they are willing to wait.
+ */
+@Service
+public class AiCallExecutor {
+
+    public enum Priority {
+        // A user waiting on a short answer, e.g. a chat question
+        INTERACTIVE,
+        // A user waiting on a long generation or extraction
+        STANDARD,
+        // Nobody waiting: precomputation, chat folding, batch imports; runs on its own threads
+        BACKGROUND
+    }
+
+    public static final String TIMEOUT_HEADER = "X-Timeout-Millis";
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+    private static final ThreadLocal<Task<?>> CURRENT = new ThreadLocal<>();
+
+    private final ThreadPoolExecutor pool;
+    private final ThreadPoolExecutor backgroundPool;
+    private final int maxQueue;
+    private final long defaultTimeoutMillis;
+    private final long maxTimeoutMillis;
+    private final long extractionTimeoutMillis;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Counter expired;
+    private final Counter cancelled;
+    private final Counter rejected;
+
+    public AiCallExecutor(@Value("${ai-service.executor.threads:8}") int threads,
+            @Value("${ai-service.executor.background-threads:2}") int backgroundThreads,
+            @Value("${ai-service.executor.max-queue:200}") int maxQueue,
+            @Value("${ai-service.default-timeout-millis:120000}") long defaultTimeoutMillis,
+            @Value("${ai-service.max-timeout-millis:300000}") long maxTimeoutMillis,
+            @Value("${ai-service.extraction-timeout-millis:1800000}") long extractionTimeoutMillis,
+            MeterRegistry meterRegistry) {
+        this.maxQueue = maxQueue;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.maxTimeoutMillis = maxTimeoutMillis;
+        this.extractionTimeoutMillis = extractionTimeoutMillis;
+        this.pool = newPool(threads, "ai-call-");
+        this.backgroundPool = newPool(backgroundThreads, "ai-background-");
+
+        for (Map.Entry<String, ThreadPoolExecutor> entry : Map.of("foreground", pool, "background", backgroundPool)
+                .entrySet()) {
+            Gauge.builder("ai.executor.queued", entry.getValue(), executor -> executor.getQueue().size())
+                    .tag("pool", entry.getKey())
+                    .register(meterRegistry);
+            Gauge.builder("ai.executor.active", entry.getValue(), ThreadPoolExecutor::getActiveCount)
+                    .tag("pool", entry.getKey())
+                    .register(meterRegistry);
+        }
+        this.expired = Counter.builder("ai.executor.expired").register(meterRegistry);
+        this.cancelled = Counter.builder("ai.executor.cancelled").register(meterRegistry);
+        this.rejected = Counter.builder("ai.executor.rejected").register(meterRegistry);
+    }
+
+    /**
+     * Run work for a waiting client and answer the request with its result.
+     * The client gets 504 once its time is up and 503 if the queue is full;
+     * exceptions are answered as if the controller had thrown them.
+     *
+     * @param timeoutMillis The client's X-Timeout-Millis, or null
+     */
+    public DeferredResult<ResponseEntity<?>> defer(Priority priority, Long timeoutMillis,
+            Callable<ResponseEntity<?>> work) {
+        return defer(priority, timeoutMillis, defaultTimeoutMillis, maxTimeoutMillis, work);
+    }
+
+    /**
+     * Like defer at STANDARD priority, for extractions of whole PDFs and
+     * videos, which routinely outlast a generation: without X-Timeout-Millis
+     * they get ai-service.extraction-timeout-millis.
+     */
+    public DeferredResult<ResponseEntity<?>> deferExtraction(Long timeoutMillis, Callable<ResponseEntity<?>> work) {
+        return defer(Priority.STANDARD, timeoutMillis, extractionTimeoutMillis,
+                Math.max(maxTimeoutMillis, extractionTimeoutMillis), work);
+    }
+
+    private DeferredResult<ResponseEntity<?>> defer(Priority priority, Long timeoutMillis, long defaultTimeout,
+            long maxTimeout, Callable<ResponseEntity<?>> work) {
+        long timeout = timeoutMillis != null && timeoutMillis > 0
+                ? Math.min(timeoutMillis, maxTimeout)
+                : defaultTimeout;
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(timeout);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        Task<ResponseEntity<?>> task = new Task<>(priority, deadline, work) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    result.setResult(get());
+                } catch (ExecutionException e) {
+                    // Upstream calls fail with a timeout of their own once the deadline passes
+                    boolean late = deadline - System.nanoTime() <= 0;
+                    result.setErrorResult(late || e.getCause() instanceof DeadlineExceededException
+                            ? timedOut()
+                            : e.getCause());
+                } catch (InterruptedException | CancellationException e) {
+                    // Not reached: the task is done and was not cancelled
+                }
+            }
+        };
+        // Client disconnected, or its time ran out before the work finished
+        result.onError(error -> task.cancel(true));
+        result.onTimeout(() -> {
+            task.cancel(true);
+            result.setResult(timedOut());
+        });
+
+        try {
+            execute(task);
+        } catch (RejectedExecutionException e) {
+            result.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(Map.of("error", "The AI service is busy, please try again shortly")));
+        }
+        return result;
+    }
+
+    /**
+     * Run work nobody is waiting on at a given priority, without deadline,
+     * and wait for its result on the calling thread. Runtime exceptions of
+     * the work, such as upstream HTTP errors, are rethrown as they are.
+     */
+    public <T> T call(Priority priority, Callable<T> work) throws ExecutionException, InterruptedException {
+        if (CURRENT.get() != null) {
+            // Already on a pool thread; queueing again could wait on itself
+            try {
+                return work.call();
+            } catch (RuntimeException | InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ExecutionException(e);
+            }
+        }
+        Task<T> task = new Task<>(priority, NO_DEADLINE, work);
+        execute(task);
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Time left for the AI work running on this thread, in nanoseconds;
+     * Long.MAX_VALUE outside of it or without deadline
+     */
+    public static long remainingNanos() {
+        Task<?> task = CURRENT.get();
+        return task == null || task.deadline == NO_DEADLINE ? NO_DEADLINE : task.deadline - System.nanoTime();
+    }
+
+    /**
+     * Have hook run if the AI work on this thread is cancelled, e.g. to abort
+     * its upstream call. Replaces the previous hook; no-op outside of it.
+     */
+    public static void onCancel(Runnable hook) {
+        Task<?> task = CURRENT.get();
+        if (task != null) {
+            task.cancelHook = hook;
+            if (task.isCancelled()) {
+                hook.run();
+            }
+        }
+    }
+
+    private void execute(Task<?> task) {
+        ThreadPoolExecutor target = poolFor(task.priority);
+        if (target.getQueue().size() >= maxQueue) {
+            rejected.increment();
+            throw new RejectedExecutionException("AI call queue is full");
+        }
+        target.execute(task);
+    }
+
+    private ThreadPoolExecutor poolFor(Priority priority) {
+        return priority == Priority.BACKGROUND ? backgroundPool : pool;
+    }
+
+    private static ThreadPoolExecutor newPool(int threads, String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    private static ResponseEntity<?> timedOut() {
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .body(Map.of("error", "The AI service did not answer in time"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+        backgroundPool.shutdownNow();
+    }
+
+    private static class DeadlineExceededException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private DeadlineExceededException() {
+            super("Deadline passed before the AI call started");
+        }
+    }
+
+    private class Task<T> extends FutureTask<T> implements Comparable<Task<?>> {
+        private final Priority priority;
+        private final long deadline;
+        private final long order = sequence.incrementAndGet();
+        private volatile Runnable cancelHook;
+
+        private Task(Priority priority, long deadline, Callable<T> work) {
+            super(work);
+            this.priority = priority;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            if (deadline != NO_DEADLINE && deadline - System.nanoTime() <= 0) {
+                expired.increment();
+                setException(new DeadlineExceededException());
+                return;
+            }
+            CURRENT.set(this);
+            try {
+                super.run();
+            } finally {
+                CURRENT.remove();
+                cancelHook = null;
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean wasCancelled = super.cancel(mayInterruptIfRunning);
+            if (wasCancelled) {
+                cancelled.increment();
+                // Drop it from the queue right away instead of when a worker reaches it
+                poolFor(priority).remove(this);
+                Runnable hook = cancelHook;
+                if (hook != null) {
+                    hook.run();
+                }
+            }
+            return wasCancelled;
+        }
+
+        @Override
+        public int compareTo(Task<?> other) {
+            if (priority != other.priority) {
+                return priority.compareTo(other.priority);
+            }
+            if (deadline != other.deadline) {
+                if (deadline == NO_DEADLINE || other.deadline == NO_DEADLINE) {
+                    return deadline == NO_DEADLINE ? 1 : -1;
+                }
+                // nanoTime values are only comparable by their difference
+                return Long.compare(deadline - other.deadline, 0);
+            }
+            return Long.compare(order, other.order);
+        }
+    }
+}
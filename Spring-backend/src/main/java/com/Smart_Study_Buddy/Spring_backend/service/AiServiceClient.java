@@ -0,0 +1,77 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.Smart_Study_Buddy.Spring_backend.service.AiCallExecutor.Priority;
+
+/**
+ * Calls to the Python AI endpoints, over the shared AiServiceTransport.
+ * Calls made on behalf of a waiting user and background calls are counted
+ * separately, so background work can hold off while users are being served.
+ */
+@Service
+public class AiServiceClient {
+
+    private static final String AI_PATH = "/api/ai";
+
+    private final AiServiceTransport transport;
+    private final AiCallExecutor aiCallExecutor;
+    private final AtomicInteger interactiveInFlight = new AtomicInteger();
+    private final AtomicInteger backgroundInFlight = new AtomicInteger();
+    private volatile long lastInteractiveAt;
+
+    public AiServiceClient(AiServiceTransport transport, AiCallExecutor aiCallExecutor) {
+        this.transport = transport;
+        this.aiCallExecutor = aiCallExecutor;
+    }
+
+    /**
+     * Forward a user's request to path (e.g. "/summarize") and return the
+     * upstream response as is
+     */
+    public ResponseEntity<String> post(String path, Map<String, Object> body) {
+        interactiveInFlight.incrementAndGet();
+        lastInteractiveAt = System.currentTimeMillis();
+        try {
+            return transport.post(AI_PATH + path, body, String.class);
+        } finally {
+            interactiveInFlight.decrementAndGet();
+            lastInteractiveAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Same call for work nobody is waiting on, queued at background priority;
+     * returns the response body
+     */
+    public String postInBackground(String path, Map<String, Object> body)
+            throws ExecutionException, InterruptedException {
+        backgroundInFlight.incrementAndGet();
+        try {
+            return aiCallExecutor.call(Priority.BACKGROUND,
+                    () -> transport.post(AI_PATH + path, body, String.class).getBody());
+        } finally {
+            backgroundInFlight.decrementAndGet();
+        }
+    }
+
+    public int getInteractiveInFlight() {
+        return interactiveInFlight.get();
+    }
+
+    public int getBackgroundInFlight() {
+        return backgroundInFlight.get();
+    }
+
+    /**
+     * When a user request last started or finished, in epoch milliseconds
+     */
+    public long getLastInteractiveAt() {
+        return lastInteractiveAt;
+    }
+}
@@ -0,0 +1,262 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * HTTP transport shared by every call to the Python AI service.
+ *
+ * Responses are asked for gzipped and, where the caller decodes them, as
+ * CBOR, falling back to whatever JSON the service sends. Request bodies stay
+ * plain JSON until the service advertises more on a response (Accept-Encoding:
+ * gzip, Accept-Post: application/cbor); from then on JSON-like bodies of at
+ * least ai-service.transport.gzip-min-bytes are gzipped and bodies are sent
+ * as CBOR. A 415 answer drops back to plain JSON for good and the call is
+ * retried once. Calls run on OkHttp and, inside AiCallExecutor, within the
+ * deadline of their work (DeadlineRequestFactory).
+ */
+@Service
+public class AiServiceTransport {
+
+    public static final String AI_SERVICE_URL = "http://localhost:8000";
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper cborMapper = new CBORMapper();
+    private final boolean cborEnabled;
+    private final int gzipMinBytes;
+    // What the service said it accepts in request bodies
+    private volatile boolean gzipRequests;
+    private volatile boolean cborRequests;
+    // Set once the service rejected a compact body, whatever it advertises after
+    private volatile boolean compactRejected;
+
+    public AiServiceTransport(ObjectMapper jsonMapper,
+            @Value("${ai-service.transport.cbor:true}") boolean cborEnabled,
+            @Value("${ai-service.transport.gzip-min-bytes:8192}") int gzipMinBytes) {
+        this.jsonMapper = jsonMapper;
+        this.cborEnabled = cborEnabled;
+        this.gzipMinBytes = gzipMinBytes;
+        // No read timeout, as before: generations may be silent for long; deadlines bound them instead
+        restTemplate.setRequestFactory(new DeadlineRequestFactory(new OkHttpClient.Builder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .readTimeout(Duration.ZERO)
+                .build()));
+        if (cborEnabled) {
+            restTemplate.getMessageConverters().add(new MappingJackson2CborHttpMessageConverter(cborMapper));
+        }
+        restTemplate.getInterceptors().add(this::intercept);
+    }
+
+    /**
+     * POST body to path (e.g. "/api/ai/summarize"). A MultiValueMap is sent
+     * as multipart form data. String responses are requested as JSON, since
+     * callers hand them on as is.
+     */
+    public <T> ResponseEntity<T> post(String path, Object body, Class<T> responseType) {
+        try {
+            return restTemplate.postForEntity(AI_SERVICE_URL + path, entity(body, responseType), responseType);
+        } catch (HttpClientErrorException.UnsupportedMediaType e) {
+            if (!downgrade()) {
+                throw e;
+            }
+            return restTemplate.postForEntity(AI_SERVICE_URL + path, entity(body, responseType), responseType);
+        }
+    }
+
+    /**
+     * POST body to path and read the response token by token with a parser
+     * for the format the service answered in
+     */
+    public <T> T postForStream(String path, Object body, StreamReader<T> reader) {
+        try {
+            return stream(path, body, reader);
+        } catch (HttpClientErrorException.UnsupportedMediaType e) {
+            if (!downgrade()) {
+                throw e;
+            }
+            return stream(path, body, reader);
+        }
+    }
+
+    @FunctionalInterface
+    public interface StreamReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+    private <T> T stream(String path, Object body, StreamReader<T> reader) {
+        boolean cbor = cborRequests;
+        return restTemplate.execute(AI_SERVICE_URL + path, HttpMethod.POST,
+                request -> {
+                    request.getHeaders().setContentType(cbor ? CBOR : MediaType.APPLICATION_JSON);
+                    request.getHeaders().setAccept(accept(true));
+                    (cbor ? cborMapper : jsonMapper).writeValue(request.getBody(), body);
+                },
+                response -> {
+                    JsonFactory factory = isCbor(response.getHeaders().getContentType())
+                            ? cborMapper.getFactory()
+                            : jsonMapper.getFactory();
+                    try (JsonParser parser = factory.createParser(response.getBody())) {
+                        return reader.read(parser);
+                    }
+                });
+    }
+
+    private HttpEntity<Object> entity(Object body, Class<?> responseType) {
+        HttpHeaders headers = new HttpHeaders();
+        if (body instanceof MultiValueMap) {
+            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        } else {
+            headers.setContentType(cborRequests ? CBOR : MediaType.APPLICATION_JSON);
+        }
+        headers.setAccept(accept(responseType != String.class));
+        return new HttpEntity<>(body, headers);
+    }
+
+    private List<MediaType> accept(boolean decoded) {
+        return decoded && cborEnabled
+                ? List.of(CBOR, MediaType.APPLICATION_JSON)
+                : List.of(MediaType.APPLICATION_JSON);
+    }
+
+    private boolean downgrade() {
+        if (!gzipRequests && !cborRequests) {
+            return false;
+        }
+        System.out.println("🔌 AI service rejected a compact request body, sending plain JSON from now on");
+        compactRejected = true;
+        gzipRequests = false;
+        cborRequests = false;
+        return true;
+    }
+
+    private ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        HttpHeaders headers = request.getHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        if (gzipRequests && body.length >= gzipMinBytes && isCompressible(headers.getContentType())) {
+            body = gzip(body);
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            headers.setContentLength(body.length);
+        }
+
+        ClientHttpResponse response = execution.execute(request, body);
+        learn(response.getHeaders());
+        return "gzip".equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+                ? new GzipResponse(response)
+                : response;
+    }
+
+    private void learn(HttpHeaders headers) {
+        if (compactRejected) {
+            return;
+        }
+        String encodings = headers.getFirst(HttpHeaders.ACCEPT_ENCODING);
+        String mediaTypes = headers.getFirst("Accept-Post");
+        boolean gzip = gzipMinBytes >= 0 && encodings != null && encodings.contains("gzip");
+        boolean cbor = cborEnabled && mediaTypes != null && mediaTypes.contains(CBOR.toString());
+        if (gzip != gzipRequests || cbor != cborRequests) {
+            gzipRequests = gzip;
+            cborRequests = cbor;
+            System.out.println("🔌 AI service request bodies: " + (cbor ? "CBOR" : "JSON") + (gzip ? ", gzip" : ""));
+        }
+    }
+
+    private static boolean isCbor(MediaType type) {
+        return type != null && CBOR.isCompatibleWith(type);
+    }
+
+    private static boolean isCompressible(MediaType type) {
+        // Multipart bodies carry PDFs, which are compressed already
+        return type != null && (isCbor(type) || MediaType.APPLICATION_JSON.isCompatibleWith(type)
+                || "text".equals(type.getType()));
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        // Fastest level: on a local link the CPU matters more than the last few percent
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        }) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Response whose gzipped body is decompressed as it is read
+     */
+    private static class GzipResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final HttpHeaders headers = new HttpHeaders();
+        private InputStream body;
+
+        private GzipResponse(ClientHttpResponse delegate) {
+            this.delegate = delegate;
+            headers.putAll(delegate.getHeaders());
+            headers.remove(HttpHeaders.CONTENT_ENCODING);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new GZIPInputStream(delegate.getBody());
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Okapi BM25 index over the chunks of one document.
+ *
+ * Chunks are stored as offsets into the source text rather than copies, and
+ * postings are packed int arrays of (chunk, term frequency) pairs, so an index
+ * costs little beyond the text it was built from.
+ */
+public class Bm25Index {
+
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "can", "do", "does", "for", "from", "how", "i",
+            "in", "is", "it", "its", "me", "my", "of", "on", "or", "that", "the", "their", "this", "to", "was",
+            "what", "when", "where", "which", "who", "why", "will", "with", "you", "your");
+
+    private final String text;
+    private final int[] chunkStarts;
+    private final int[] chunkEnds;
+    private final int[] chunkLengths;
+    private final double averageLength;
+    // term -> [chunk, tf, chunk, tf, ...]
+    private final Map<String, int[]> postings;
+
+    private Bm25Index(String text, int[] chunkStarts, int[] chunkEnds) {
+        this.text = text;
+        this.chunkStarts = chunkStarts;
+        this.chunkEnds = chunkEnds;
+        this.chunkLengths = new int[chunkStarts.length];
+
+        Map<String, IntList> building = new HashMap<>();
+        long totalLength = 0;
+        for (int chunk = 0; chunk < chunkStarts.length; chunk++) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            List<String> terms = tokenize(text, chunkStarts[chunk], chunkEnds[chunk]);
+            for (String term : terms) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+            chunkLengths[chunk] = terms.size();
+            totalLength += terms.size();
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                building.computeIfAbsent(entry.getKey(), key -> new IntList()).add(chunk, entry.getValue());
+            }
+        }
+
+        this.averageLength = chunkStarts.length == 0 ? 0 : (double) totalLength / chunkStarts.length;
+        this.postings = new HashMap<>(building.size());
+        for (Map.Entry<String, IntList> entry : building.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().toArray());
+        }
+    }
+
+    /**
+     * Split text into chunks of roughly chunkWords words that overlap by
+     * overlapWords, so an answer straddling a boundary is still found whole
+     */
+    public static Bm25Index build(String text, int chunkWords, int overlapWords) {
+        List<Integer> wordStarts = new ArrayList<>();
+        List<Integer> wordEnds = new ArrayList<>();
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            while (i < length && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            wordStarts.add(i);
+            while (i < length && !Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            wordEnds.add(i);
+        }
+
+        int step = Math.max(chunkWords - overlapWords, 1);
+        List<int[]> ranges = new ArrayList<>();
+        for (int word = 0; word < wordStarts.size(); word += step) {
+            int last = Math.min(word + chunkWords, wordStarts.size()) - 1;
+            ranges.add(new int[] { wordStarts.get(word), wordEnds.get(last) });
+            if (last == wordStarts.size() - 1) {
+                break;
+            }
+        }
+
+        int[] starts = new int[ranges.size()];
+        int[] ends = new int[ranges.size()];
+        for (int chunk = 0; chunk < ranges.size(); chunk++) {
+            starts[chunk] = ranges.get(chunk)[0];
+            ends[chunk] = ranges.get(chunk)[1];
+        }
+        return new Bm25Index(text, starts, ends);
+    }
+
+    public int chunkCount() {
+        return chunkStarts.length;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int chunkStart(int index) {
+        return chunkStarts[index];
+    }
+
+    public int chunkEnd(int index) {
+        return chunkEnds[index];
+    }
+
+    /**
+     * Indexes of the k best-scoring chunks for the query, best first. Chunks
+     * that share no term with the query are never returned.
+     */
+    public int[] search(String query, int k) {
+        double[] scores = new double[chunkStarts.length];
+        int chunkTotal = chunkStarts.length;
+        for (String term : new HashSet<>(tokenize(query, 0, query.length()))) {
+            int[] posting = postings.get(term);
+            if (posting == null) {
+                continue;
+            }
+            int documentFrequency = posting.length / 2;
+            double idf = Math.log(1 + (chunkTotal - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            for (int p = 0; p < posting.length; p += 2) {
+                int chunk = posting[p];
+                int tf = posting[p + 1];
+                double norm = K1 * (1 - B + B * chunkLengths[chunk] / averageLength);
+                scores[chunk] += idf * tf * (K1 + 1) / (tf + norm);
+            }
+        }
+
+        Integer[] order = new Integer[chunkTotal];
+        int matched = 0;
+        for (int chunk = 0; chunk < chunkTotal; chunk++) {
+            if (scores[chunk] > 0) {
+                order[matched++] = chunk;
+            }
+        }
+        Arrays.sort(order, 0, matched, (a, b) -> Double.compare(scores[b], scores[a]));
+
+        int[] top = new int[Math.min(k, matched)];
+        for (int rank = 0; rank < top.length; rank++) {
+            top[rank] = order[rank];
+        }
+        return top;
+    }
+
+    static List<String> tokenize(String source, int from, int to) {
+        List<String> terms = new ArrayList<>();
+        forEachTerm(source, from, to, (term, offset) -> terms.add(term));
+        return terms;
+    }
+
+    /**
+     * Visit each indexable term in source[from, to) with its character offset
+     */
+    static void forEachTerm(String source, int from, int to, TermVisitor visitor) {
+        int i = from;
+        while (i < to) {
+            while (i < to && !Character.isLetterOrDigit(source.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < to && Character.isLetterOrDigit(source.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                String term = source.substring(start, i).toLowerCase(Locale.ROOT);
+                if (term.length() > 1 && !STOP_WORDS.contains(term)) {
+                    visitor.visit(term, start);
+                }
+            }
+        }
+    }
+
+    interface TermVisitor {
+        void visit(String term, int offset);
+    }
+
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int first, int second) {
+            if (size + 2 > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = first;
+            values[size++] = second;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.CompactTranscript;
+import com.Smart_Study_Buddy.Spring_backend.dto.YouTubeResponse;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Blob;
+
+/**
+ * Firestore behind a LocalDocumentRepository near-cache
+ * (repository.type=cached).
+ *
+ * Reads are served from the local copy and fall through to Firestore on a
+ * miss, keeping what they read. Writes go to Firestore first and then to the
+ * local copy; if the local write fails the record is dropped from it, so it
+ * is read through again instead of served stale. The local copy survives
+ * restarts and is not revalidated, which holds as long as this backend is
+ * the only writer.
+ *
+ * A local copy cannot tell whether it holds all of a user's documents, so
+ * listings are kept separately for repository.cache.listing-ttl-seconds.
+ */
+public class CachingDocumentRepository implements DocumentRepository {
+
+    private final DocumentRepository remote;
+    private final LocalDocumentRepository local;
+    private final long listingTtlMillis;
+    private final Map<String, Listing> listings = new ConcurrentHashMap<>();
+
+    public CachingDocumentRepository(DocumentRepository remote, LocalDocumentRepository local, long listingTtlMillis) {
+        this.remote = remote;
+        this.local = local;
+        this.listingTtlMillis = listingTtlMillis;
+    }
+
+    @Override
+    public String saveDocument(String userId, String filename, String storagePath, String downloadUrl,
+            String contentHash) throws ExecutionException, InterruptedException {
+        String documentId = remote.saveDocument(userId, filename, storagePath, downloadUrl, contentHash);
+        cacheLocally(LocalDocumentRepository.documentPath(documentId),
+                DocumentRecords.document(userId, filename, storagePath, downloadUrl, contentHash));
+        listings.remove(userId);
+        return documentId;
+    }
+
+    @Override
+    public Map<String, Object> findDocumentByContentHash(String userId, String contentHash)
+            throws ExecutionException, InterruptedException {
+        Map<String, Object> data = local.findDocumentByContentHash(userId, contentHash);
+        if (data != null) {
+            return data;
+        }
+
+        // The local copy may not hold every document, so a miss is asked remotely
+        data = remote.findDocumentByContentHash(userId, contentHash);
+        if (data != null) {
+            cacheLocally(LocalDocumentRepository.documentPath((String) data.get("id")), data);
+        }
+        return data;
+    }
+
+    @Override
+    public List<Map<String, Object>> getUserDocuments(String userId) throws ExecutionException, InterruptedException {
+        Listing listing = listings.get(userId);
+        if (listing == null || System.currentTimeMillis() - listing.loadedAt > listingTtlMillis) {
+            listing = new Listing(copyAll(remote.getUserDocuments(userId)), System.currentTimeMillis());
+            listings.put(userId, listing);
+        }
+        return copyAll(listing.documents);
+    }
+
+    @Override
+    public Map<String, Object> getDocument(String documentId) throws ExecutionException, InterruptedException {
+        Map<String, Object> data = local.getDocument(documentId);
+        if (data != null) {
+            return data;
+        }
+
+        data = remote.getDocument(documentId);
+        if (data == null) {
+            return null;
+        }
+        String path = LocalDocumentRepository.documentPath(documentId);
+        cacheLocally(path, data);
+        return local.contains(path) ? local.getDocument(documentId) : data;
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> getDocuments(List<String> documentIds)
+            throws ExecutionException, InterruptedException {
+        Map<String, Map<String, Object>> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String documentId : documentIds) {
+            Map<String, Object> data = local.getDocument(documentId);
+            if (data != null) {
+                found.put(documentId, data);
+            } else {
+                missing.add(documentId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (Map.Entry<String, Map<String, Object>> document : remote.getDocuments(missing).entrySet()) {
+                String path = LocalDocumentRepository.documentPath(document.getKey());
+                cacheLocally(path, document.getValue());
+                found.put(document.getKey(), local.contains(path)
+                        ? local.getDocument(document.getKey())
+                        : document.getValue());
+            }
+        }
+        return DocumentRecords.inOrder(documentIds, found);
+    }
+
+    @Override
+    public String getExtractedText(Map<String, Object> document) throws ExecutionException, InterruptedException {
+        if (document.get("extractedText") == null && document.get("transcriptId") instanceof String transcriptId) {
+            // Pulls the shared transcript into the local copy before it is followed
+            getSharedTranscript(transcriptId);
+        }
+        String text = local.getExtractedText(document);
+        // Documents the local copy failed to keep still hold Firestore's form
+        return text != null ? text : remote.getExtractedText(document);
+    }
+
+    @Override
+    public void deleteDocument(String documentId) throws ExecutionException, InterruptedException {
+        remote.deleteDocument(documentId);
+        try {
+            local.deleteDocument(documentId);
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Failed to delete document " + documentId + " from the local copy: "
+                    + e.getMessage());
+        }
+        listings.clear();
+    }
+
+    @Override
+    public void updateDocumentText(String documentId, String extractedText)
+            throws ExecutionException, InterruptedException {
+        remote.updateDocumentText(documentId, extractedText);
+        String path = LocalDocumentRepository.documentPath(documentId);
+        if (local.contains(path)) {
+            writeLocally(path, () -> local.updateDocumentText(documentId, extractedText));
+        }
+        listings.clear();
+    }
+
+    @Override
+    public void updateDocumentThumbnail(String documentId, String thumbnailPath)
+            throws ExecutionException, InterruptedException {
+        remote.updateDocumentThumbnail(documentId, thumbnailPath);
+        String path = LocalDocumentRepository.documentPath(documentId);
+        if (local.contains(path)) {
+            writeLocally(path, () -> local.updateDocumentThumbnail(documentId, thumbnailPath));
+        }
+        listings.clear();
+    }
+
+    @Override
+    public void markThumbnailFailed(String documentId) throws ExecutionException, InterruptedException {
+        remote.markThumbnailFailed(documentId);
+        String path = LocalDocumentRepository.documentPath(documentId);
+        if (local.contains(path)) {
+            writeLocally(path, () -> local.markThumbnailFailed(documentId));
+        }
+        listings.clear();
+    }
+
+    @Override
+    public void saveChatHistory(String documentId, String userId, List<Map<String, String>> chatHistory)
+            throws ExecutionException, InterruptedException {
+        remote.saveChatHistory(documentId, userId, chatHistory);
+        writeLocally(LocalDocumentRepository.chatHistoryPath(documentId, userId),
+                () -> local.saveChatHistory(documentId, userId, chatHistory));
+    }
+
+    @Override
+    public List<Map<String, String>> getChatHistory(String documentId, String userId)
+            throws ExecutionException, InterruptedException {
+        String path = LocalDocumentRepository.chatHistoryPath(documentId, userId);
+        if (local.contains(path)) {
+            return local.getChatHistory(documentId, userId);
+        }
+
+        List<Map<String, String>> chatHistory = remote.getChatHistory(documentId, userId);
+        // Kept even when empty, so documents without a chat do not go remote every time
+        cacheLocally(path, DocumentRecords.chatHistory(documentId, userId, chatHistory));
+        return chatHistory;
+    }
+
+    @Override
+    public Map<String, Object> getArtifact(String documentId, String kind)
+            throws ExecutionException, InterruptedException {
+        Map<String, Object> data = local.getArtifact(documentId, kind);
+        if (data != null) {
+            return data;
+        }
+
+        data = remote.getArtifact(documentId, kind);
+        if (data != null) {
+            cacheLocally(LocalDocumentRepository.artifactPath(documentId, kind), data);
+        }
+        return data;
+    }
+
+    @Override
+    public void saveArtifact(String documentId, String kind, String content, String sourceDigest,
+            String promptVersion, String model, String etag) throws ExecutionException, InterruptedException {
+        remote.saveArtifact(documentId, kind, content, sourceDigest, promptVersion, model, etag);
+        writeLocally(LocalDocumentRepository.artifactPath(documentId, kind),
+                () -> local.saveArtifact(documentId, kind, content, sourceDigest, promptVersion, model, etag));
+    }
+
+    @Override
+    public Map<String, Object> getSharedTranscript(String transcriptId)
+            throws ExecutionException, InterruptedException {
+        Map<String, Object> data = local.getSharedTranscript(transcriptId);
+        if (data != null) {
+            return data;
+        }
+
+        data = remote.getSharedTranscript(transcriptId);
+        if (data == null) {
+            return null;
+        }
+        String path = LocalDocumentRepository.transcriptPath(transcriptId);
+        cacheLocally(path, data);
+        return local.contains(path) ? local.getSharedTranscript(transcriptId) : data;
+    }
+
+    @Override
+    public void saveSharedTranscript(String transcriptId, String generation, YouTubeResponse video,
+            TranscriptIndex transcriptChunkIndex, int transcriptEntryCount)
+            throws ExecutionException, InterruptedException {
+        remote.saveSharedTranscript(transcriptId, generation, video, transcriptChunkIndex, transcriptEntryCount);
+        writeLocally(LocalDocumentRepository.transcriptPath(transcriptId), () -> local.saveSharedTranscript(
+                transcriptId, generation, video, transcriptChunkIndex, transcriptEntryCount));
+    }
+
+    @Override
+    public void saveTranscriptChunk(String transcriptId, String generation, int index, CompactTranscript chunk)
+            throws ExecutionException, InterruptedException {
+        remote.saveTranscriptChunk(transcriptId, generation, index, chunk);
+        try {
+            local.saveTranscriptChunk(transcriptId, generation, index, chunk);
+        } catch (RuntimeException e) {
+            // A missing local chunk is read through again
+            System.err.println("⚠️ Failed to keep transcript chunk " + transcriptId + "/" + index + " locally: "
+                    + e.getMessage());
+        }
+    }
+
+    @Override
+    public CompactTranscript getTranscriptChunk(String transcriptId, String generation, int index)
+            throws ExecutionException, InterruptedException {
+        CompactTranscript chunk = local.getTranscriptChunk(transcriptId, generation, index);
+        if (chunk != null) {
+            return chunk;
+        }
+
+        chunk = remote.getTranscriptChunk(transcriptId, generation, index);
+        if (chunk != null) {
+            try {
+                local.saveTranscriptChunk(transcriptId, generation, index, chunk);
+            } catch (RuntimeException e) {
+                System.err.println("⚠️ Failed to keep transcript chunk " + transcriptId + "/" + index
+                        + " locally: " + e.getMessage());
+            }
+        }
+        return chunk;
+    }
+
+    @Override
+    public CompactTranscript getDocumentTranscriptChunk(String documentId, int index)
+            throws ExecutionException, InterruptedException {
+        // Layout of videos saved before the shared store; rare enough to always read remotely
+        return remote.getDocumentTranscriptChunk(documentId, index);
+    }
+
+    @Override
+    public void deleteTranscriptChunks(String transcriptId, String generation)
+            throws ExecutionException, InterruptedException {
+        remote.deleteTranscriptChunks(transcriptId, generation);
+        try {
+            local.deleteTranscriptChunks(transcriptId, generation);
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Failed to delete local transcript chunks of " + transcriptId + ": "
+                    + e.getMessage());
+        }
+    }
+
+    @Override
+    public String saveYouTubeVideo(String userId, String transcriptId, YouTubeResponse video)
+            throws ExecutionException, InterruptedException {
+        String documentId = remote.saveYouTubeVideo(userId, transcriptId, video);
+        cacheLocally(LocalDocumentRepository.documentPath(documentId),
+                DocumentRecords.youTubeVideo(userId, transcriptId, video));
+        listings.remove(userId);
+        return documentId;
+    }
+
+    @Override
+    public List<String> saveYouTubeVideos(String userId, List<String> transcriptIds, List<YouTubeResponse> videos)
+            throws ExecutionException, InterruptedException {
+        List<String> documentIds = remote.saveYouTubeVideos(userId, transcriptIds, videos);
+        for (int i = 0; i < documentIds.size(); i++) {
+            cacheLocally(LocalDocumentRepository.documentPath(documentIds.get(i)),
+                    DocumentRecords.youTubeVideo(userId, transcriptIds.get(i), videos.get(i)));
+        }
+        listings.remove(userId);
+        return documentIds;
+    }
+
+    @Override
+    public void incrementUsage(Map<String, Map<String, Long>> deltasByUser)
+            throws ExecutionException, InterruptedException {
+        // Counters are only ever added to remotely; there is nothing to keep locally
+        remote.incrementUsage(deltasByUser);
+    }
+
+    @Override
+    public Map<String, Object> getUsage(String userId) throws ExecutionException, InterruptedException {
+        return remote.getUsage(userId);
+    }
+
+    private void cacheLocally(String path, Map<String, Object> data) {
+        writeLocally(path, () -> local.cache(path, localForm(data)));
+    }
+
+    private void writeLocally(String path, LocalWrite write) {
+        try {
+            write.run();
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Failed to keep " + path + " locally: " + e.getMessage());
+            try {
+                local.evict(path);
+            } catch (RuntimeException ignored) {
+                // Nothing left to serve stale if the record was never written
+            }
+        }
+    }
+
+    /**
+     * Firestore values in the form LocalDocumentRepository stores
+     */
+    private static Map<String, Object> localForm(Map<String, Object> data) {
+        Map<String, Object> converted = new HashMap<>(data);
+        for (Map.Entry<String, Object> field : converted.entrySet()) {
+            if (field.getValue() instanceof Blob blob) {
+                field.setValue(blob.toBytes());
+            } else if (field.getValue() instanceof Timestamp timestamp) {
+                field.setValue(timestamp.toDate());
+            }
+        }
+        return converted;
+    }
+
+    private static List<Map<String, Object>> copyAll(List<Map<String, Object>> documents) {
+        List<Map<String, Object>> copies = new ArrayList<>(documents.size());
+        for (Map<String, Object> document : documents) {
+            copies.add(new HashMap<>(document));
+        }
+        return copies;
+    }
+
+    private interface LocalWrite {
+        void run();
+    }
+
+    private static class Listing {
+        private final List<Map<String, Object>> documents;
+        private final long loadedAt;
+
+        private Listing(List<Map<String, Object>> documents, long loadedAt) {
+            this.documents = documents;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.Smart_Study_Buddy.Spring_backend.service.AiCallExecutor.Priority;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the conversation sent with each question within a token budget.
+ *
+ * The last few turns go upstream verbatim. Older turns are folded into a
+ * rolling summary cached per (document, user); folding runs in the
+ * background, so a question never waits on it. Until the summary catches up,
+ * the turns it does not cover yet are sent verbatim as far as the budget
+ * allows.
+ */
+@Service
+public class ChatContextManager {
+
+    // Rough average for English text; close enough for budgeting
+    private static final int CHARS_PER_TOKEN = 4;
+    // Upper bound on the turns sent in one fold request
+    private static final int MAX_FOLD_CHARS = 12000;
+
+    @Value("${ai.chat.recent-turns:4}")
+    private int recentTurns;
+
+    @Value("${ai.chat.token-budget:1500}")
+    private int tokenBudget;
+
+    @Value("${ai.chat.summary-words:150}")
+    private int summaryWords;
+
+    private final AiServiceTransport transport;
+    private final AiCallExecutor aiCallExecutor;
+    private final DocumentRepository documentRepository;
+    private final Map<String, RollingSummary> summaries;
+    // Keys with a fold running, so at most one runs per conversation
+    private final Set<String> folding = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chat-summary");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ChatContextManager(AiServiceTransport transport, AiCallExecutor aiCallExecutor,
+            DocumentRepository documentRepository, @Value("${ai.chat.summary-cache-size:500}") int cacheSize) {
+        this.transport = transport;
+        this.aiCallExecutor = aiCallExecutor;
+        this.documentRepository = documentRepository;
+        this.summaries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RollingSummary> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Conversation to send with the next question. history is the client's
+     * list of {question, answer} turns, oldest first; when it is null the
+     * stored chat history of the document is used.
+     */
+    public ChatContext window(String documentId, String userId, List<Map<String, String>> history)
+            throws ExecutionException, InterruptedException {
+        if (history == null) {
+            history = documentId != null && userId != null
+                    ? documentRepository.getChatHistory(documentId, userId)
+                    : List.of();
+        }
+
+        String key = documentId != null ? documentId + "|" + (userId != null ? userId : "") : null;
+        int foldable = Math.max(history.size() - recentTurns, 0);
+        String summary = null;
+        int covered = 0;
+        if (key != null && foldable > 0) {
+            RollingSummary rolling = summaries.get(key);
+            // A different prefix means the chat was cleared or replaced
+            if (rolling != null && (rolling.turns > foldable || rolling.fingerprint != fingerprint(history, rolling.turns))) {
+                rolling = null;
+            }
+            if (rolling != null) {
+                summary = rolling.text;
+                covered = rolling.turns;
+            }
+            if (covered < foldable) {
+                scheduleFold(key, new ArrayList<>(history.subList(0, foldable)), rolling);
+            }
+        }
+
+        int budget = tokenBudget * CHARS_PER_TOKEN;
+        if (summary != null) {
+            if (summary.length() > budget / 2) {
+                summary = summary.substring(0, budget / 2);
+            }
+            budget -= summary.length();
+        }
+
+        // Newest first until the budget runs out; the latest turn always goes, trimmed if need be
+        Deque<Map<String, String>> turns = new ArrayDeque<>();
+        for (int i = history.size() - 1; i >= covered; i--) {
+            Map<String, String> turn = history.get(i);
+            String question = Objects.toString(turn.get("question"), "");
+            String answer = Objects.toString(turn.get("answer"), "");
+            int cost = question.length() + answer.length();
+            if (cost > budget) {
+                if (turns.isEmpty()) {
+                    // Whichever side is short keeps all of it; a long question keeps at least half
+                    int questionChars = Math.min(question.length(), Math.max(budget - answer.length(), budget / 2));
+                    int answerChars = Math.min(answer.length(), budget - questionChars);
+                    turns.addFirst(Map.of("question", question.substring(0, questionChars),
+                            "answer", answer.substring(0, answerChars)));
+                }
+                break;
+            }
+            turns.addFirst(Map.of("question", question, "answer", answer));
+            budget -= cost;
+        }
+        return new ChatContext(summary, new ArrayList<>(turns));
+    }
+
+    /**
+     * Forget the summaries of a deleted document
+     */
+    public void evict(String documentId) {
+        String prefix = documentId + "|";
+        synchronized (summaries) {
+            summaries.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    private void scheduleFold(String key, List<Map<String, String>> foldTurns, RollingSummary base) {
+        if (!folding.add(key)) {
+            return;
+        }
+        executor.submit(() -> {
+            try {
+                int from = base != null ? base.turns : 0;
+                // Very long backlogs (e.g. after a restart) keep their newest part
+                int chars = 0;
+                int start = foldTurns.size();
+                while (start > from) {
+                    Map<String, String> turn = foldTurns.get(start - 1);
+                    chars += Objects.toString(turn.get("question"), "").length()
+                            + Objects.toString(turn.get("answer"), "").length();
+                    if (chars > MAX_FOLD_CHARS && start < foldTurns.size()) {
+                        break;
+                    }
+                    start--;
+                }
+
+                String text = summarize(base != null ? base.text : "", foldTurns.subList(start, foldTurns.size()));
+                if (text != null) {
+                    summaries.put(key, new RollingSummary(text, foldTurns.size(),
+                            fingerprint(foldTurns, foldTurns.size())));
+                }
+            } catch (Exception e) {
+                System.err.println("⚠️ Failed to summarize chat history for " + key + ": " + e.getMessage());
+            } finally {
+                folding.remove(key);
+            }
+        });
+    }
+
+    private String summarize(String summary, List<Map<String, String>> turns)
+            throws ExecutionException, InterruptedException {
+        @SuppressWarnings("unchecked")
+        Class<Map<String, Object>> responseType = (Class<Map<String, Object>>) (Class<?>) Map.class;
+        ResponseEntity<Map<String, Object>> response = aiCallExecutor.call(Priority.BACKGROUND,
+                () -> transport.post(
+                        "/api/ai/summarize-conversation",
+                        Map.of("summary", summary, "chat_history", turns, "max_words", summaryWords),
+                        responseType));
+        return response.getBody() != null && response.getBody().get("summary") instanceof String text
+                ? text
+                : null;
+    }
+
+    private static int fingerprint(List<Map<String, String>> history, int count) {
+        int hash = 1;
+        for (int i = 0; i < count; i++) {
+            Map<String, String> turn = history.get(i);
+            hash = 31 * hash + Objects.hash(turn.get("question"), turn.get("answer"));
+        }
+        return hash;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static class RollingSummary {
+        private final String text;
+        // How many of the oldest turns the summary covers
+        private final int turns;
+        private final int fingerprint;
+
+        private RollingSummary(String text, int turns, int fingerprint) {
+            this.text = text;
+            this.turns = turns;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    public static class ChatContext {
+        private final String summary;
+        private final List<Map<String, String>> turns;
+
+        private ChatContext(String summary, List<Map<String, String>> turns) {
+            this.summary = summary;
+            this.turns = turns;
+        }
+
+        /**
+         * Summary of the turns before getTurns(), or null
+         */
+        public String getSummary() {
+            return summary;
+        }
+
+        public List<Map<String, String>> getTurns() {
+            return turns;
+        }
+    }
+}
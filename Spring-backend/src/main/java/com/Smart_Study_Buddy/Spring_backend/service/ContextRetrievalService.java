@@ -0,0 +1,125 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Picks the parts of a document worth sending with a question.
+ *
+ * Short documents go upstream whole. Longer ones are split into overlapping
+ * word chunks and indexed with BM25 once per document; each question then
+ * ships only its top-k chunks, so the payload no longer grows with the
+ * document.
+ */
+@Service
+public class ContextRetrievalService {
+
+    private static final String CHUNK_SEPARATOR = "\n\n...\n\n";
+
+    @Value("${ai.retrieval.min-chars:12000}")
+    private int minChars;
+
+    @Value("${ai.retrieval.top-k:5}")
+    private int topK;
+
+    @Value("${ai.retrieval.chunk-words:180}")
+    private int chunkWords;
+
+    @Value("${ai.retrieval.overlap-words:30}")
+    private int overlapWords;
+
+    private final Map<String, CachedIndex> cache;
+
+    public ContextRetrievalService(@Value("${ai.retrieval.cache-size:64}") int cacheSize) {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedIndex> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Context for a question about text. documentId, when known, keys the
+     * cached index; otherwise the text itself does.
+     */
+    public String selectContext(String documentId, String text, String question) {
+        if (text == null || text.length() < minChars || question == null || question.isBlank()) {
+            return text;
+        }
+
+        Bm25Index index = indexFor(documentId, text);
+        if (index.chunkCount() == 0) {
+            return text;
+        }
+        int[] chunks = index.search(question, topK);
+        if (chunks.length == 0) {
+            // Nothing matched lexically: fall back to the opening of the document
+            chunks = new int[Math.min(topK, index.chunkCount())];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = i;
+            }
+        }
+        return join(index, chunks);
+    }
+
+    /**
+     * Selected chunks in document order, with overlapping neighbours merged so
+     * no passage is sent twice
+     */
+    private String join(Bm25Index index, int[] chunks) {
+        int[] ordered = chunks.clone();
+        Arrays.sort(ordered);
+
+        String text = index.getText();
+        StringBuilder context = new StringBuilder();
+        int start = index.chunkStart(ordered[0]);
+        int end = index.chunkEnd(ordered[0]);
+        for (int i = 1; i < ordered.length; i++) {
+            int nextStart = index.chunkStart(ordered[i]);
+            if (nextStart <= end) {
+                end = Math.max(end, index.chunkEnd(ordered[i]));
+                continue;
+            }
+            context.append(text, start, end).append(CHUNK_SEPARATOR);
+            start = nextStart;
+            end = index.chunkEnd(ordered[i]);
+        }
+        context.append(text, start, end);
+        return context.toString();
+    }
+
+    private Bm25Index indexFor(String documentId, String text) {
+        String key = documentId != null && !documentId.isEmpty()
+                ? "doc:" + documentId
+                : "text:" + text.length() + ":" + text.hashCode();
+        CachedIndex cached = cache.get(key);
+        // The same document id with different text means the text was re-extracted
+        if (cached == null || !cached.matches(text)) {
+            cached = new CachedIndex(text, Bm25Index.build(text, chunkWords, overlapWords));
+            cache.put(key, cached);
+        }
+        return cached.index;
+    }
+
+    private static class CachedIndex {
+        private final int length;
+        private final int hash;
+        private final Bm25Index index;
+
+        private CachedIndex(String text, Bm25Index index) {
+            this.length = text.length();
+            this.hash = text.hashCode();
+            this.index = index;
+        }
+
+        private boolean matches(String text) {
+            return text.length() == length && text.hashCode() == hash;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+
+/**
+ * RestTemplate requests on OkHttp, bounded by the AI work they run in: a call
+ * made inside AiCallExecutor may take only the time left until its deadline,
+ * reading the response included, and is aborted when that work is
+ * cancelled. Calls made elsewhere only have the client's own timeouts.
+ * Request bodies are buffered once, sized by Content-Length when known, and
+ * written to the connection from that buffer without another copy.
+ */
+public class DeadlineRequestFactory implements ClientHttpRequestFactory {
+
+    private final OkHttpClient client;
+
+    public DeadlineRequestFactory(OkHttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+        return new DeadlineRequest(uri, httpMethod);
+    }
+
+    private class DeadlineRequest implements ClientHttpRequest {
+        private final URI uri;
+        private final HttpMethod method;
+        private final HttpHeaders headers = new HttpHeaders();
+        private ByteArrayOutputStream body;
+
+        private DeadlineRequest(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            if (body == null) {
+                // RestTemplate's interceptors set the length of the body they buffered
+                long length = headers.getContentLength();
+                body = new ByteArrayOutputStream(length > 0 && length <= Integer.MAX_VALUE - 8 ? (int) length : 1024);
+            }
+            return body;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            long remainingNanos = AiCallExecutor.remainingNanos();
+            if (remainingNanos <= 0) {
+                throw new SocketTimeoutException("Deadline passed before calling " + uri);
+            }
+
+            Request.Builder request = new Request.Builder().url(uri.toURL());
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                // OkHttp sets the length of the body it sends
+                if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey())) {
+                    for (String value : header.getValue()) {
+                        request.addHeader(header.getKey(), value);
+                    }
+                }
+            }
+            RequestBody requestBody = null;
+            if (method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH) {
+                String contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+                requestBody = new BufferedRequestBody(body != null ? body : new ByteArrayOutputStream(0),
+                        contentType != null ? MediaType.parse(contentType) : null);
+            }
+
+            Call call = client.newCall(request.method(method.name(), requestBody).build());
+            if (remainingNanos != Long.MAX_VALUE) {
+                call.timeout().timeout(remainingNanos, TimeUnit.NANOSECONDS);
+            }
+            AiCallExecutor.onCancel(call::cancel);
+            return new DeadlineResponse(call.execute());
+        }
+    }
+
+    /**
+     * Writes the buffered body as it is; a copy into a byte array would hold
+     * the body twice while large uploads are sent
+     */
+    private static class BufferedRequestBody extends RequestBody {
+        private final ByteArrayOutputStream body;
+        private final MediaType contentType;
+
+        private BufferedRequestBody(ByteArrayOutputStream body, MediaType contentType) {
+            this.body = body;
+            this.contentType = contentType;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        @Override
+        public long contentLength() {
+            return body.size();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            body.writeTo(sink.outputStream());
+        }
+    }
+
+    private static class DeadlineResponse implements ClientHttpResponse {
+        private final Response response;
+        private HttpHeaders headers;
+
+        private DeadlineResponse(Response response) {
+            this.response = response;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatusCode.valueOf(response.code());
+        }
+
+        @Override
+        public String getStatusText() {
+            return response.message();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            if (headers == null) {
+                headers = new HttpHeaders();
+                for (String name : response.headers().names()) {
+                    headers.put(name, response.headers(name));
+                }
+            }
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            ResponseBody body = response.body();
+            return body != null ? body.byteStream() : InputStream.nullInputStream();
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Rejoins words hyphenated across a line break ("photo-" / "synthesis"
+ * becomes "photosynthesis"). Only a hyphen after a letter followed by a line
+ * starting in lower case is removed, so "COVID-" / "19" and list dashes stay.
+ */
+@Component
+public class DehyphenationStage implements TextNormalizationStage {
+
+    @Override
+    public String getName() {
+        return "dehyphenate";
+    }
+
+    @Override
+    public PageFilter open(PagedText text) {
+        return (pageIndex, lines) -> {
+            List<String> joined = new ArrayList<>(lines.size());
+            String pending = null;
+            for (String line : lines) {
+                if (pending != null) {
+                    String next = line.stripLeading();
+                    if (!next.isEmpty() && Character.isLowerCase(next.charAt(0))) {
+                        line = pending.substring(0, pending.length() - 1) + next;
+                    } else {
+                        joined.add(pending);
+                    }
+                    pending = null;
+                }
+                if (endsWithHyphenatedWord(line)) {
+                    pending = line.stripTrailing();
+                } else {
+                    joined.add(line);
+                }
+            }
+            if (pending != null) {
+                joined.add(pending);
+            }
+            return joined;
+        };
+    }
+
+    private static boolean endsWithHyphenatedWord(String line) {
+        String trimmed = line.stripTrailing();
+        int length = trimmed.length();
+        return length >= 2 && trimmed.charAt(length - 1) == '-' && Character.isLetter(trimmed.charAt(length - 2));
+    }
+}
@@ -0,0 +1,143 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.YouTubeResponse;
+
+/**
+ * Field layout of the stored records, shared by the DocumentRepository
+ * implementations. textEncoder turns large text into the implementation's
+ * stored form.
+ */
+final class DocumentRecords {
+
+    private DocumentRecords() {
+    }
+
+    static Map<String, Object> document(String userId, String filename, String storagePath, String downloadUrl,
+            String contentHash) {
+        Map<String, Object> docData = new HashMap<>();
+        docData.put("userId", userId);
+        docData.put("filename", filename);
+        docData.put("storagePath", storagePath);
+        docData.put("downloadUrl", downloadUrl);
+        if (contentHash != null) {
+            docData.put("contentHash", contentHash);
+        }
+        docData.put("uploadDate", new Date());
+        return docData;
+    }
+
+    static Map<String, Object> textUpdate(String extractedText, Function<String, Object> textEncoder) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("extractedText", textEncoder.apply(extractedText));
+        updates.put("textExtractedAt", new Date());
+        return updates;
+    }
+
+    static Map<String, Object> chatHistory(String documentId, String userId, List<Map<String, String>> chatHistory) {
+        Map<String, Object> chatData = new HashMap<>();
+        chatData.put("documentId", documentId);
+        chatData.put("userId", userId);
+        chatData.put("chatHistory", chatHistory);
+        chatData.put("lastUpdated", new Date());
+        return chatData;
+    }
+
+    static Map<String, Object> artifact(String kind, String content, String sourceDigest, String promptVersion,
+            String model, String etag, Function<String, Object> textEncoder) {
+        Map<String, Object> artifactData = new HashMap<>();
+        artifactData.put("kind", kind);
+        artifactData.put("content", textEncoder.apply(content));
+        artifactData.put("sourceDigest", sourceDigest);
+        artifactData.put("promptVersion", promptVersion);
+        artifactData.put("model", model);
+        artifactData.put("etag", etag);
+        artifactData.put("generatedAt", new Date());
+        return artifactData;
+    }
+
+    static Map<String, Object> sharedTranscript(String generation, YouTubeResponse video,
+            TranscriptIndex transcriptChunkIndex, int transcriptEntryCount, Function<String, Object> textEncoder) {
+        Map<String, Object> transcriptData = new HashMap<>();
+        transcriptData.put("videoId", video.getVideoId());
+        transcriptData.put("language", video.getLanguage());
+        transcriptData.put("isGenerated", video.isGenerated());
+        transcriptData.put("title", video.getTitle());
+        transcriptData.put("channel", video.getChannel());
+        transcriptData.put("thumbnailUrl", video.getThumbnailUrl());
+        transcriptData.put("duration", video.getDuration());
+        transcriptData.put("extractedText", textEncoder.apply(video.getFullText()));
+        // Timestamped transcript lives in the transcriptChunks subcollection; the
+        // per-chunk time ranges let windowed reads fetch only the chunks they need
+        transcriptData.put("transcriptGeneration", generation);
+        transcriptData.put("transcriptChunkCount", transcriptChunkIndex.size());
+        transcriptData.put("transcriptChunkStarts", transcriptChunkIndex.getStarts());
+        transcriptData.put("transcriptChunkEnds", transcriptChunkIndex.getEnds());
+        transcriptData.put("transcriptEntryCount", transcriptEntryCount);
+        transcriptData.put("createdAt", new Date());
+        return transcriptData;
+    }
+
+    static Map<String, Object> youTubeVideo(String userId, String transcriptId, YouTubeResponse video) {
+        Map<String, Object> videoData = new HashMap<>();
+        videoData.put("type", "youtube");
+        videoData.put("userId", userId);
+        videoData.put("videoId", video.getVideoId());
+        videoData.put("filename", video.getTitle()); // Use title as filename for consistency
+        videoData.put("title", video.getTitle());
+        videoData.put("channel", video.getChannel());
+        videoData.put("thumbnailUrl", video.getThumbnailUrl());
+        videoData.put("transcriptId", transcriptId); // Text and timestamps live in the shared transcript
+        videoData.put("duration", video.getDuration());
+        videoData.put("uploadDate", new Date());
+        videoData.put("textCached", true); // Transcript is already extracted
+        return videoData;
+    }
+
+    /**
+     * Deep copy of the maps and lists of a record, so a cached record is not
+     * changed through what a caller was handed. Other values are immutable
+     * except Date, which is copied too.
+     */
+    static Object copy(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new HashMap<>();
+            map.forEach((key, item) -> copy.put(String.valueOf(key), copy(item)));
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object item : list) {
+                copy.add(copy(item));
+            }
+            return copy;
+        }
+        if (value instanceof Date date) {
+            return new Date(date.getTime());
+        }
+        return value;
+    }
+
+    /**
+     * The found documents keyed by id in the order of documentIds, for
+     * batch reads answered partly from a cache
+     */
+    static Map<String, Map<String, Object>> inOrder(List<String> documentIds,
+            Map<String, Map<String, Object>> found) {
+        Map<String, Map<String, Object>> documents = new LinkedHashMap<>();
+        for (String documentId : documentIds) {
+            Map<String, Object> data = found.get(documentId);
+            if (data != null) {
+                documents.put(documentId, data);
+            }
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,167 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.CompactTranscript;
+import com.Smart_Study_Buddy.Spring_backend.dto.YouTubeResponse;
+
+/**
+ * Storage of documents, chat histories, shared transcripts and generated
+ * artifacts. The implementation is chosen with repository.type:
+ * firestore (default), local (embedded, runs offline) or cached (local
+ * near-cache in front of Firestore).
+ *
+ * Maps returned by reads belong to the caller and may be modified.
+ */
+public interface DocumentRepository {
+
+    /**
+     * Save an uploaded file's record. contentHash is the SHA-256 of the file
+     * in hex, or null if unknown.
+     *
+     * @return The new document ID
+     */
+    String saveDocument(String userId, String filename, String storagePath, String downloadUrl, String contentHash)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * A document of userId whose file has this content hash, with its "id",
+     * or null if there is none. With a null userId, a document of any user.
+     */
+    Map<String, Object> findDocumentByContentHash(String userId, String contentHash)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * All documents of a user, each with its "id". Large extracted texts are
+     * left out; read those through getDocument and getExtractedText.
+     */
+    List<Map<String, Object>> getUserDocuments(String userId) throws ExecutionException, InterruptedException;
+
+    /**
+     * The document with its "id", or null if it does not exist
+     */
+    Map<String, Object> getDocument(String documentId) throws ExecutionException, InterruptedException;
+
+    /**
+     * The documents among documentIds that exist, each with its "id", keyed
+     * by id in the order asked; read in one round trip
+     */
+    Map<String, Map<String, Object>> getDocuments(List<String> documentIds)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Resolve the extractedText of a document returned by getDocument.
+     * Compressed text is only inflated here, on first access, and the decoded
+     * value replaces the stored one in the map. Videos that reference a
+     * shared transcript read the text from it.
+     */
+    String getExtractedText(Map<String, Object> document) throws ExecutionException, InterruptedException;
+
+    /**
+     * Delete a document with its transcript chunks and artifacts
+     */
+    void deleteDocument(String documentId) throws ExecutionException, InterruptedException;
+
+    void updateDocumentText(String documentId, String extractedText) throws ExecutionException, InterruptedException;
+
+    /**
+     * Record the storage path of a document's first-page thumbnail
+     */
+    void updateDocumentThumbnail(String documentId, String thumbnailPath)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Record that a document's file could not be rendered as a thumbnail, so
+     * it is not tried again
+     */
+    void markThumbnailFailed(String documentId) throws ExecutionException, InterruptedException;
+
+    void saveChatHistory(String documentId, String userId, List<Map<String, String>> chatHistory)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Stored chat of a user about a document, or an empty list
+     */
+    List<Map<String, String>> getChatHistory(String documentId, String userId)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Stored study artifact (summary, flashcards, quiz) of a document with its
+     * content decoded, or null if none was generated yet
+     */
+    Map<String, Object> getArtifact(String documentId, String kind) throws ExecutionException, InterruptedException;
+
+    /**
+     * Store a generated artifact, replacing the previous one of the same kind.
+     * sourceDigest identifies the text it was generated from; promptVersion
+     * and model identify how.
+     */
+    void saveArtifact(String documentId, String kind, String content, String sourceDigest, String promptVersion,
+            String model, String etag) throws ExecutionException, InterruptedException;
+
+    /**
+     * Shared transcript record for a video/language pair, or null if that
+     * video has not been ingested by anyone yet. The record is written only
+     * after all of its chunks, so its presence means the transcript is complete.
+     */
+    Map<String, Object> getSharedTranscript(String transcriptId) throws ExecutionException, InterruptedException;
+
+    /**
+     * Mark a transcript complete, pointing readers at the chunks written under
+     * generation. Concurrent extractions of the same video each write their
+     * own generation, so one failing cannot delete the chunks of another.
+     */
+    void saveSharedTranscript(String transcriptId, String generation, YouTubeResponse video,
+            TranscriptIndex transcriptChunkIndex, int transcriptEntryCount)
+            throws ExecutionException, InterruptedException;
+
+    void saveTranscriptChunk(String transcriptId, String generation, int index, CompactTranscript chunk)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * A chunk of a shared transcript, or null if it does not exist. A null
+     * generation reads the layout of transcripts stored before generations.
+     */
+    CompactTranscript getTranscriptChunk(String transcriptId, String generation, int index)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Read a chunk stored under a user's document, as videos were before
+     * transcripts moved to the shared store
+     */
+    CompactTranscript getDocumentTranscriptChunk(String documentId, int index)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Delete the chunks of one generation of a transcript
+     */
+    void deleteTranscriptChunks(String transcriptId, String generation)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Save a user's video record. The transcript and text are not copied; the
+     * record points at the shared transcript through transcriptId.
+     */
+    String saveYouTubeVideo(String userId, String transcriptId, YouTubeResponse video)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Save several video records for one user at once. Returns the new
+     * document ids in input order.
+     */
+    List<String> saveYouTubeVideos(String userId, List<String> transcriptIds, List<YouTubeResponse> videos)
+            throws ExecutionException, InterruptedException;
+
+    /**
+     * Add to the stored usage counters: userId -> counter name -> amount.
+     * Counters are created at zero; all users are written in batches.
+     */
+    void incrementUsage(Map<String, Map<String, Long>> deltasByUser) throws ExecutionException, InterruptedException;
+
+    /**
+     * Stored usage counters of a user, or an empty map
+     */
+    Map<String, Object> getUsage(String userId) throws ExecutionException, InterruptedException;
+}
@@ -0,0 +1,128 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resolves a document's extracted text on the server so AI requests can carry
+ * a document id instead of the text itself.
+ *
+ * Recently used texts stay in memory, bounded by their total length rather
+ * than by count since one textbook can outweigh a hundred handouts. A miss
+ * reads and decodes the Firestore document once.
+ */
+@Service
+public class DocumentTextService {
+
+    private final DocumentRepository documentRepository;
+    private final long maxChars;
+    private final LinkedHashMap<String, CachedText> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedChars;
+
+    public DocumentTextService(DocumentRepository documentRepository,
+            @Value("${ai.text-cache.max-chars:20000000}") long maxChars) {
+        this.documentRepository = documentRepository;
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * Extracted text of the document, or null if it does not exist, is not
+     * owned by userId or has no text yet
+     */
+    public String getText(String documentId, String userId) throws ExecutionException, InterruptedException {
+        CachedText cached = get(documentId);
+        if (cached == null) {
+            Map<String, Object> doc = documentRepository.getDocument(documentId);
+            if (doc == null) {
+                return null;
+            }
+            cached = load(documentId, doc);
+            if (cached == null) {
+                return null;
+            }
+        }
+        return cached.userId.equals(userId) ? cached.text : null;
+    }
+
+    /**
+     * Same as above for a document the caller has already read; warms the
+     * cache so a following AI request does not read it again
+     */
+    public String getText(String documentId, Map<String, Object> doc) throws ExecutionException, InterruptedException {
+        CachedText cached = get(documentId);
+        if (cached == null) {
+            cached = load(documentId, doc);
+        }
+        return cached != null ? cached.text : null;
+    }
+
+    /**
+     * Replace the cached text after it was re-extracted
+     */
+    public void put(String documentId, String userId, String text) {
+        if (userId != null && text != null && !text.isEmpty()) {
+            store(documentId, new CachedText(userId, text));
+        } else {
+            evict(documentId);
+        }
+    }
+
+    public synchronized void evict(String documentId) {
+        CachedText removed = cache.remove(documentId);
+        if (removed != null) {
+            cachedChars -= removed.text.length();
+        }
+    }
+
+    private synchronized CachedText get(String documentId) {
+        return cache.get(documentId);
+    }
+
+    private CachedText load(String documentId, Map<String, Object> doc)
+            throws ExecutionException, InterruptedException {
+        if (!(doc.get("userId") instanceof String owner)) {
+            return null;
+        }
+        String text = documentRepository.getExtractedText(doc);
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        CachedText cached = new CachedText(owner, text);
+        store(documentId, cached);
+        return cached;
+    }
+
+    private synchronized void store(String documentId, CachedText entry) {
+        // Larger than the whole budget: serve it but do not keep it
+        if (entry.text.length() > maxChars) {
+            evict(documentId);
+            return;
+        }
+        CachedText previous = cache.put(documentId, entry);
+        if (previous != null) {
+            cachedChars -= previous.text.length();
+        }
+        cachedChars += entry.text.length();
+
+        Iterator<CachedText> eldest = cache.values().iterator();
+        while (cachedChars > maxChars && eldest.hasNext()) {
+            cachedChars -= eldest.next().text.length();
+            eldest.remove();
+        }
+    }
+
+    private static class CachedText {
+        private final String userId;
+        private final String text;
+
+        private CachedText(String userId, String text) {
+            this.userId = userId;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Global budget of file bytes held in memory at once, so heap use stays
+ * bounded when many large files are uploaded or extracted together.
+ *
+ * Requests reserve a file's size before buffering it and release it when
+ * done. A request that does not fit waits up to
+ * processing.budget.wait-millis for others to finish and is then turned
+ * away, which callers answer with 503. A file larger than the whole budget
+ * is admitted only while nothing else is in flight.
+ */
+@Service
+public class FileProcessingBudget {
+
+    // Upper bound of one wait, in case a release happens between the check and the wait
+    private static final long MAX_WAIT_SLICE_MILLIS = 50;
+
+    private final long maxBytes;
+    private final long waitMillis;
+    private final AtomicLong inFlightBytes = new AtomicLong();
+    private final Object released = new Object();
+    private final Counter rejected;
+
+    public FileProcessingBudget(@Value("${processing.budget.max-bytes:268435456}") long maxBytes,
+            @Value("${processing.budget.wait-millis:2000}") long waitMillis, MeterRegistry meterRegistry) {
+        this.maxBytes = maxBytes;
+        this.waitMillis = waitMillis;
+        Gauge.builder("processing.budget.in-flight", inFlightBytes, AtomicLong::get)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("processing.budget.max", () -> this.maxBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("processing.budget.rejected").register(meterRegistry);
+    }
+
+    /**
+     * Reserve bytes, waiting for room if needed
+     *
+     * @return The reservation to close when the bytes are no longer held, or
+     *         null if there was no room in time
+     */
+    public Reservation reserve(long bytes) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        while (!tryReserve(bytes)) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                rejected.increment();
+                System.out.println("🚦 Turned away " + bytes + " bytes; " + inFlightBytes.get()
+                        + " of " + maxBytes + " bytes in flight");
+                return null;
+            }
+            synchronized (released) {
+                released.wait(Math.min(remainingMillis, MAX_WAIT_SLICE_MILLIS));
+            }
+        }
+        return new Reservation(bytes);
+    }
+
+    public long getInFlightBytes() {
+        return inFlightBytes.get();
+    }
+
+    private boolean tryReserve(long bytes) {
+        while (true) {
+            long current = inFlightBytes.get();
+            if (current > 0 && current + bytes > maxBytes) {
+                return false;
+            }
+            if (inFlightBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    private void release(long bytes) {
+        inFlightBytes.addAndGet(-bytes);
+        synchronized (released) {
+            released.notifyAll();
+        }
+    }
+
+    public class Reservation implements AutoCloseable {
+        private final long bytes;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Reservation(long bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(bytes);
+            }
+        }
+    }
+}
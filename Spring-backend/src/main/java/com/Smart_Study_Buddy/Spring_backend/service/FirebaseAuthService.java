@@ -2,6 +2,7 @@ package com.Smart_Study_Buddy.Spring_backend.service;
 
 import org.springframework.stereotype.Service;
 
+import com.Smart_Study_Buddy.Spring_backend.config.FirebaseConfig;
 import com.google.firebase.FirebaseException;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthException;
@@ -10,6 +11,12 @@ import com.google.firebase.auth.UserRecord;
 @Service
 public class FirebaseAuthService {
 
+    private final FirebaseConfig firebaseConfig;
+
+    public FirebaseAuthService(FirebaseConfig firebaseConfig) {
+        this.firebaseConfig = firebaseConfig;
+    }
+
     public UserRecord createUser(String email, String password, String username) throws FirebaseException {
 
         UserRecord.CreateRequest request = new UserRecord.CreateRequest()
@@ -17,19 +24,24 @@ public class FirebaseAuthService {
                 .setPassword(password)
                 .setDisplayName(username);
 
-        return FirebaseAuth.getInstance().createUser(request);
+        return auth().createUser(request);
     }
 
     public UserRecord getUserByEmail(String email) throws FirebaseAuthException {
-        return FirebaseAuth.getInstance().getUserByEmail(email);
+        return auth().getUserByEmail(email);
     }
 
     public String createCustomerToken(String uid) throws FirebaseAuthException {
-        return FirebaseAuth.getInstance().createCustomToken(uid);
+        return auth().createCustomToken(uid);
     }
 
     public UserRecord verifyAndGetUser(String email, String password) throws FirebaseAuthException {
         return getUserByEmail(email);
     }
 
+    private FirebaseAuth auth() {
+        firebaseConfig.awaitInitialized();
+        return FirebaseAuth.getInstance();
+    }
+
 }
@@ -4,37 +4,116 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 
+import com.Smart_Study_Buddy.Spring_backend.config.FirebaseConfig;
 import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Bucket;
 import com.google.firebase.cloud.StorageClient;
 
 @Service
+@ConditionalOnProperty(name = "storage.type", havingValue = "firebase", matchIfMissing = true)
 public class FirebaseStorageService implements StorageService {
 
+    private static final int URL_CACHE_SIZE = 1000;
+
+    private final FirebaseConfig firebaseConfig;
+
     @Value("${firebase.storage-bucket}")
     private String bucketName;
 
+    // Signed URLs stay valid for 7 days; reusing one for a while saves the blob
+    // lookup on every open and gives browsers the same URL to cache
+    @Value("${storage.url-cache.ttl-minutes:1440}")
+    private long urlCacheTtlMinutes;
+
+    private final Map<String, SignedUrl> signedUrls = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SignedUrl> eldest) {
+                    return size() > URL_CACHE_SIZE;
+                }
+            });
+
+    public FirebaseStorageService(FirebaseConfig firebaseConfig) {
+        this.firebaseConfig = firebaseConfig;
+    }
+
     @Override
     public String uploadFile(MultipartFile file, String storagePath) throws IOException {
-        Bucket bucket = StorageClient.getInstance().bucket();
+        Bucket bucket = bucket();
         bucket.create(storagePath, file.getBytes(), file.getContentType());
 
         // Generate and return a signed download URL
         Blob blob = bucket.get(storagePath);
-        return blob.signUrl(7, TimeUnit.DAYS).toString();
+        return sign(storagePath, blob);
     }
 
     @Override
+    public String storeFile(Path source, String storagePath, String contentType) throws IOException {
+        Bucket bucket = bucket();
+        // Resumable upload in chunks; the file is never read into memory as a whole
+        Blob blob = bucket.getStorage().createFrom(
+                BlobInfo.newBuilder(bucket.getName(), storagePath).setContentType(contentType).build(), source);
+        return sign(storagePath, blob);
+    }
 
+    @Override
     public String getDownloadUrl(String filePath) {
-        Bucket bucket = StorageClient.getInstance().bucket();
+        SignedUrl cached = signedUrls.get(filePath);
+        if (cached != null && System.currentTimeMillis() < cached.reuseUntil) {
+            return cached.url;
+        }
+
+        Bucket bucket = bucket();
         Blob blob = bucket.get(filePath);
 
-        return blob.signUrl(7, TimeUnit.DAYS).toString();
+        return sign(filePath, blob);
     }
 
+    @Override
+    public byte[] downloadFile(String filePath) {
+        Bucket bucket = bucket();
+        Blob blob = bucket.get(filePath);
+
+        return blob != null && blob.exists() ? blob.getContent() : null;
+    }
+
+    @Override
+    public long getFileSize(String filePath) {
+        Bucket bucket = bucket();
+        Blob blob = bucket.get(filePath);
+
+        return blob != null && blob.exists() ? blob.getSize() : -1;
+    }
+
+    private Bucket bucket() {
+        firebaseConfig.awaitInitialized();
+        return StorageClient.getInstance().bucket();
+    }
+
+    private String sign(String filePath, Blob blob) {
+        String url = blob.signUrl(7, TimeUnit.DAYS).toString();
+        signedUrls.put(filePath, new SignedUrl(url,
+                System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(urlCacheTtlMinutes)));
+        return url;
+    }
+
+    private static class SignedUrl {
+        private final String url;
+        private final long reuseUntil;
+
+        private SignedUrl(String url, long reuseUntil) {
+            this.url = url;
+            this.reuseUntil = reuseUntil;
+        }
+    }
 }
@@ -1,43 +1,88 @@
 package com.Smart_Study_Buddy.Spring_backend.service;
 
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 
+import com.Smart_Study_Buddy.Spring_backend.config.FirebaseConfig;
+import com.Smart_Study_Buddy.Spring_backend.dto.CompactTranscript;
+import com.Smart_Study_Buddy.Spring_backend.dto.YouTubeResponse;
 import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Blob;
+import com.google.cloud.firestore.CollectionReference;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
 import com.google.firebase.cloud.FirestoreClient;
 
+/**
+ * DocumentRepository on Cloud Firestore. Not created when repository.type is
+ * local, so the app starts without Firebase credentials.
+ */
 @Service
-public class FirestoreService {
+@ConditionalOnExpression("'${repository.type:firestore}' != 'local'")
+public class FirestoreService implements DocumentRepository {
 
-    private final Firestore firestore = FirestoreClient.getFirestore();
+    private final FirebaseConfig firebaseConfig;
+    // Created on first use, once Firebase has initialized in the background
+    private volatile Firestore firestore;
 
-    public String saveDocument(String userId, String filename, String storagePath, String downloadUrl)
-            throws ExecutionException, InterruptedException {
+    // Text fields at least this long are stored as compressed blobs
+    @Value("${firestore.compression.min-chars:1024}")
+    private int compressionMinChars;
+
+    public FirestoreService(FirebaseConfig firebaseConfig) {
+        this.firebaseConfig = firebaseConfig;
+    }
+
+    @Override
+    public String saveDocument(String userId, String filename, String storagePath, String downloadUrl,
+            String contentHash) throws ExecutionException, InterruptedException {
 
-        Map<String, Object> docData = new HashMap<>();
-        docData.put("userId", userId);
-        docData.put("filename", filename);
-        docData.put("storagePath", storagePath);
-        docData.put("downloadUrl", downloadUrl);
-        docData.put("uploadDate", new Date());
+        Map<String, Object> docData = DocumentRecords.document(userId, filename, storagePath, downloadUrl,
+                contentHash);
 
-        ApiFuture<DocumentReference> future = firestore.collection("documents").add(docData);
+        ApiFuture<DocumentReference> future = firestore().collection("documents").add(docData);
         return future.get().getId();
     }
 
+    @Override
+    public Map<String, Object> findDocumentByContentHash(String userId, String contentHash)
+            throws ExecutionException, InterruptedException {
+        Query query = firestore().collection("documents").whereEqualTo("contentHash", contentHash);
+        if (userId != null) {
+            // Equality filters only, served by the single-field indexes
+            query = query.whereEqualTo("userId", userId);
+        }
+
+        List<QueryDocumentSnapshot> documents = query.limit(1).get().get().getDocuments();
+        if (documents.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> data = documents.get(0).getData();
+        data.put("id", documents.get(0).getId());
+        return data;
+    }
+
+    @Override
     public List<Map<String, Object>> getUserDocuments(String userId) throws ExecutionException, InterruptedException {
 
-        ApiFuture<QuerySnapshot> future = firestore.collection("documents")
+        ApiFuture<QuerySnapshot> future = firestore().collection("documents")
                 .whereEqualTo("userId", userId)
                 .get();
 
@@ -46,18 +91,23 @@ public class FirestoreService {
             Map<String, Object> data = doc.getData();
             if (data != null) {
                 data.put("id", doc.getId());
+                // Listings never need the text itself; skip shipping compressed blobs
+                if (data.get("extractedText") instanceof Blob) {
+                    data.remove("extractedText");
+                }
                 document.add(data);
             }
         }
         return document;
     }
 
+    @Override
     public Map<String, Object> getDocument(String documentId) throws ExecutionException, InterruptedException {
         if (documentId == null) {
             throw new IllegalArgumentException("Document ID cannot be null");
         }
 
-        DocumentSnapshot document = firestore.collection("documents").document(documentId).get().get();
+        DocumentSnapshot document = firestore().collection("documents").document(documentId).get().get();
 
         if (document.exists()) {
             Map<String, Object> data = document.getData();
@@ -73,41 +123,93 @@ public class FirestoreService {
         return null;
     }
 
+    @Override
+    public Map<String, Map<String, Object>> getDocuments(List<String> documentIds)
+            throws ExecutionException, InterruptedException {
+        Map<String, Map<String, Object>> documents = new LinkedHashMap<>();
+        if (documentIds.isEmpty()) {
+            return documents;
+        }
+
+        DocumentReference[] refs = documentIds.stream()
+                .distinct()
+                .map(documentId -> firestore().collection("documents").document(documentId))
+                .toArray(DocumentReference[]::new);
+        // getAll returns the snapshots in the order of refs
+        for (DocumentSnapshot document : firestore().getAll(refs).get()) {
+            Map<String, Object> data = document.exists() ? document.getData() : null;
+            if (data != null) {
+                data.put("id", document.getId());
+                documents.put(document.getId(), data);
+            }
+        }
+        return documents;
+    }
+
+    @Override
+    public String getExtractedText(Map<String, Object> document) throws ExecutionException, InterruptedException {
+        Object value = document.get("extractedText");
+        if (value == null && document.get("transcriptId") instanceof String transcriptId) {
+            Map<String, Object> shared = getSharedTranscript(transcriptId);
+            value = shared != null ? shared.get("extractedText") : null;
+            document.put("extractedText", value);
+        }
+        if (value instanceof Blob blob) {
+            String text = StoredTextCodec.decodeText(blob.toBytes());
+            document.put("extractedText", text);
+            return text;
+        }
+        // Documents written before compression hold plain strings
+        return value instanceof String text ? text : null;
+    }
+
+    @Override
     public void deleteDocument(String documentId) throws ExecutionException, InterruptedException {
         if (documentId == null) {
             throw new IllegalArgumentException("Document ID cannot be null");
         }
 
-        firestore.collection("documents").document(documentId).delete().get();
+        // Only videos saved before the shared transcript store have chunks of their own
+        deleteAll(transcriptChunks("documents", documentId));
+        deleteAll(artifacts(documentId));
+        firestore().collection("documents").document(documentId).delete().get();
     }
 
+    @Override
     public void updateDocumentText(String documentId, String extractedText)
             throws ExecutionException, InterruptedException {
         if (documentId == null) {
             throw new IllegalArgumentException("Document ID cannot be null");
         }
 
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("extractedText", extractedText);
-        updates.put("textExtractedAt", new Date());
+        Map<String, Object> updates = DocumentRecords.textUpdate(extractedText, this::encodeText);
+
+        firestore().collection("documents").document(documentId).update(updates).get();
+    }
 
-        firestore.collection("documents").document(documentId).update(updates).get();
+    @Override
+    public void updateDocumentThumbnail(String documentId, String thumbnailPath)
+            throws ExecutionException, InterruptedException {
+        firestore().collection("documents").document(documentId).update("thumbnailPath", thumbnailPath).get();
     }
 
+    @Override
+    public void markThumbnailFailed(String documentId) throws ExecutionException, InterruptedException {
+        firestore().collection("documents").document(documentId).update("thumbnailFailed", true).get();
+    }
+
+    @Override
     public void saveChatHistory(String documentId, String userId, List<Map<String, String>> chatHistory)
             throws ExecutionException, InterruptedException {
-        Map<String, Object> chatData = new HashMap<>();
-        chatData.put("documentId", documentId);
-        chatData.put("userId", userId);
-        chatData.put("chatHistory", chatHistory);
-        chatData.put("lastUpdated", new Date());
+        Map<String, Object> chatData = DocumentRecords.chatHistory(documentId, userId, chatHistory);
 
-        firestore.collection("chatHistory").document(documentId + "_" + userId).set(chatData).get();
+        firestore().collection("chatHistory").document(documentId + "_" + userId).set(chatData).get();
     }
 
+    @Override
     public List<Map<String, String>> getChatHistory(String documentId, String userId)
             throws ExecutionException, InterruptedException {
-        DocumentSnapshot doc = firestore.collection("chatHistory")
+        DocumentSnapshot doc = firestore().collection("chatHistory")
                 .document(documentId + "_" + userId)
                 .get()
                 .get();
@@ -126,25 +228,236 @@ public class FirestoreService {
         return new ArrayList<>();
     }
 
-    public String saveYouTubeVideo(String userId, String videoId, String title, String channel,
-            String thumbnailUrl, String fullText, Object transcript, double duration)
+    @Override
+    public Map<String, Object> getArtifact(String documentId, String kind)
+            throws ExecutionException, InterruptedException {
+        DocumentSnapshot doc = artifacts(documentId).document(kind).get().get();
+        Map<String, Object> data = doc.exists() ? doc.getData() : null;
+        if (data == null) {
+            return null;
+        }
+        if (data.get("content") instanceof Blob blob) {
+            data.put("content", StoredTextCodec.decodeText(blob.toBytes()));
+        }
+        if (data.get("generatedAt") instanceof Timestamp generatedAt) {
+            data.put("generatedAt", generatedAt.toDate());
+        }
+        return data;
+    }
+
+    @Override
+    public void saveArtifact(String documentId, String kind, String content, String sourceDigest,
+            String promptVersion, String model, String etag) throws ExecutionException, InterruptedException {
+        Map<String, Object> artifactData = DocumentRecords.artifact(kind, content, sourceDigest, promptVersion, model,
+                etag, this::encodeText);
+
+        artifacts(documentId).document(kind).set(artifactData).get();
+    }
+
+    /**
+     * Shared transcript record for a video/language pair, or null if that
+     * video has not been ingested by anyone yet. The record is written only
+     * after all of its chunks, so its presence means the transcript is complete.
+     */
+    @Override
+    public Map<String, Object> getSharedTranscript(String transcriptId)
+            throws ExecutionException, InterruptedException {
+        if (transcriptId == null) {
+            throw new IllegalArgumentException("Transcript ID cannot be null");
+        }
+
+        DocumentSnapshot transcript = firestore().collection("transcripts").document(transcriptId).get().get();
+        if (transcript.exists()) {
+            Map<String, Object> data = transcript.getData();
+            if (data != null) {
+                data.put("id", transcript.getId());
+                return data;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void saveSharedTranscript(String transcriptId, String generation, YouTubeResponse video,
+            TranscriptIndex transcriptChunkIndex, int transcriptEntryCount)
+            throws ExecutionException, InterruptedException {
+        if (transcriptId == null) {
+            throw new IllegalArgumentException("Transcript ID cannot be null");
+        }
+
+        Map<String, Object> transcriptData = DocumentRecords.sharedTranscript(generation, video, transcriptChunkIndex,
+                transcriptEntryCount, this::encodeText);
+
+        firestore().collection("transcripts").document(transcriptId).set(transcriptData).get();
+    }
+
+    @Override
+    public void saveTranscriptChunk(String transcriptId, String generation, int index, CompactTranscript chunk)
+            throws ExecutionException, InterruptedException {
+        if (transcriptId == null) {
+            throw new IllegalArgumentException("Transcript ID cannot be null");
+        }
+
+        Map<String, Object> chunkData = new HashMap<>();
+        chunkData.put("index", index);
+        chunkData.put("entryCount", chunk.size());
+        chunkData.put("data", Blob.fromBytes(StoredTextCodec.encodeTranscript(chunk)));
+
+        sharedTranscriptChunks(transcriptId, generation).document(String.valueOf(index)).set(chunkData).get();
+    }
+
+    @Override
+    public CompactTranscript getTranscriptChunk(String transcriptId, String generation, int index)
             throws ExecutionException, InterruptedException {
+        if (transcriptId == null) {
+            throw new IllegalArgumentException("Transcript ID cannot be null");
+        }
 
-        Map<String, Object> videoData = new HashMap<>();
-        videoData.put("type", "youtube");
-        videoData.put("userId", userId);
-        videoData.put("videoId", videoId);
-        videoData.put("filename", title); // Use title as filename for consistency
-        videoData.put("title", title);
-        videoData.put("channel", channel);
-        videoData.put("thumbnailUrl", thumbnailUrl);
-        videoData.put("extractedText", fullText); // Store transcript as extractedText
-        videoData.put("transcript", transcript); // Store full transcript with timestamps
-        videoData.put("duration", duration);
-        videoData.put("uploadDate", new Date());
-        videoData.put("textCached", true); // Transcript is already extracted
+        return readTranscriptChunk(sharedTranscriptChunks(transcriptId, generation), index);
+    }
 
-        ApiFuture<DocumentReference> future = firestore.collection("documents").add(videoData);
+    @Override
+    public CompactTranscript getDocumentTranscriptChunk(String documentId, int index)
+            throws ExecutionException, InterruptedException {
+        if (documentId == null) {
+            throw new IllegalArgumentException("Document ID cannot be null");
+        }
+
+        return readTranscriptChunk(transcriptChunks("documents", documentId), index);
+    }
+
+    @Override
+    public void deleteTranscriptChunks(String transcriptId, String generation)
+            throws ExecutionException, InterruptedException {
+        if (transcriptId == null || generation == null) {
+            throw new IllegalArgumentException("Transcript ID and generation cannot be null");
+        }
+
+        deleteAll(sharedTranscriptChunks(transcriptId, generation));
+    }
+
+    @Override
+    public String saveYouTubeVideo(String userId, String transcriptId, YouTubeResponse video)
+            throws ExecutionException, InterruptedException {
+
+        ApiFuture<DocumentReference> future = firestore().collection("documents")
+                .add(DocumentRecords.youTubeVideo(userId, transcriptId, video));
         return future.get().getId();
     }
+
+    @Override
+    public List<String> saveYouTubeVideos(String userId, List<String> transcriptIds, List<YouTubeResponse> videos)
+            throws ExecutionException, InterruptedException {
+        if (transcriptIds.size() != videos.size()) {
+            throw new IllegalArgumentException("Each video needs exactly one transcript ID");
+        }
+
+        Map<DocumentReference, Map<String, Object>> records = new LinkedHashMap<>();
+        List<String> documentIds = new ArrayList<>(videos.size());
+        for (int i = 0; i < videos.size(); i++) {
+            DocumentReference ref = firestore().collection("documents").document();
+            records.put(ref, DocumentRecords.youTubeVideo(userId, transcriptIds.get(i), videos.get(i)));
+            documentIds.add(ref.getId());
+        }
+        writeInBatches(records.entrySet(), (batch, record) -> batch.set(record.getKey(), record.getValue()));
+        return documentIds;
+    }
+
+    @Override
+    public void incrementUsage(Map<String, Map<String, Long>> deltasByUser)
+            throws ExecutionException, InterruptedException {
+        writeInBatches(deltasByUser.entrySet(), (batch, user) -> {
+            Map<String, Object> increments = new HashMap<>();
+            user.getValue().forEach((counter, delta) -> increments.put(counter, FieldValue.increment(delta)));
+            increments.put("updatedAt", FieldValue.serverTimestamp());
+            // Increments are applied by Firestore, so concurrent instances do not overwrite each other
+            batch.set(firestore().collection("usage").document(user.getKey()), increments, SetOptions.merge());
+        });
+    }
+
+    @Override
+    public Map<String, Object> getUsage(String userId) throws ExecutionException, InterruptedException {
+        DocumentSnapshot usage = firestore().collection("usage").document(userId).get().get();
+        Map<String, Object> data = usage.exists() ? usage.getData() : null;
+        if (data == null) {
+            return new HashMap<>();
+        }
+        if (data.get("updatedAt") instanceof Timestamp updatedAt) {
+            data.put("updatedAt", updatedAt.toDate());
+        }
+        return data;
+    }
+
+    private CompactTranscript readTranscriptChunk(CollectionReference chunks, int index)
+            throws ExecutionException, InterruptedException {
+        DocumentSnapshot chunk = chunks.document(String.valueOf(index)).get().get();
+        if (!chunk.exists()) {
+            return null;
+        }
+
+        Blob data = chunk.getBlob("data");
+        if (data != null) {
+            return StoredTextCodec.decodeTranscript(data.toBytes());
+        }
+        // Chunks written before compression hold a plain list of entry maps
+        Object entries = chunk.get("entries");
+        return CompactTranscript.fromMaps(entries instanceof List<?> list ? list : null);
+    }
+
+    private void deleteAll(CollectionReference collection) throws ExecutionException, InterruptedException {
+        writeInBatches(collection.listDocuments(), WriteBatch::delete);
+    }
+
+    /**
+     * Apply write to a batch for each item, committing as the batches fill
+     */
+    private <T> void writeInBatches(Iterable<T> items, BiConsumer<WriteBatch, T> write)
+            throws ExecutionException, InterruptedException {
+        WriteBatch batch = firestore().batch();
+        int pending = 0;
+        for (T item : items) {
+            write.accept(batch, item);
+            // Firestore batches are limited to 500 writes
+            if (++pending == 500) {
+                batch.commit().get();
+                batch = firestore().batch();
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            batch.commit().get();
+        }
+    }
+
+    private Object encodeText(String text) {
+        if (text == null || text.length() < compressionMinChars) {
+            return text;
+        }
+        return Blob.fromBytes(StoredTextCodec.encodeText(text));
+    }
+
+    private Firestore firestore() {
+        Firestore client = firestore;
+        if (client == null) {
+            firebaseConfig.awaitInitialized();
+            client = firestore = FirestoreClient.getFirestore();
+        }
+        return client;
+    }
+
+    private CollectionReference artifacts(String documentId) {
+        return firestore().collection("documents").document(documentId).collection("artifacts");
+    }
+
+    private CollectionReference transcriptChunks(String collection, String parentId) {
+        return firestore().collection(collection).document(parentId).collection("transcriptChunks");
+    }
+
+    private CollectionReference sharedTranscriptChunks(String transcriptId, String generation) {
+        // Transcripts stored before generations keep their chunks directly under the record
+        return generation == null
+                ? transcriptChunks("transcripts", transcriptId)
+                : firestore().collection("transcripts").document(transcriptId)
+                        .collection("generations").document(generation).collection("transcriptChunks");
+    }
 }
@@ -0,0 +1,289 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.CompactTranscript;
+import com.Smart_Study_Buddy.Spring_backend.dto.SearchHit;
+
+/**
+ * Inverted index over one user's library: PDFs by their extracted text and
+ * videos by their captions.
+ *
+ * Each document keeps the character offsets of its terms, which drive BM25
+ * scoring, snippet placement and, for videos, the caption a hit points at.
+ * Documents are added, replaced and removed one at a time, so an upload never
+ * rebuilds the index.
+ */
+public class LibraryIndex {
+
+    private static final int SNIPPET_CHARS = 200;
+    // How much text a snippet shows before its first match
+    private static final int SNIPPET_LEAD = 60;
+    private static final int MAX_TIMESTAMPS = 10;
+    // Occurrences per term considered when placing a snippet
+    private static final int MAX_OCCURRENCES = 256;
+
+    private final Map<String, IndexedDocument> documents = new HashMap<>();
+    // term -> ids of the documents containing it
+    private final Map<String, Set<String>> documentsByTerm = new HashMap<>();
+    private long totalTerms;
+
+    public synchronized void putText(String documentId, String type, String title, String text) {
+        put(new IndexedDocument(documentId, type, title, text, null, null));
+    }
+
+    /**
+     * Index a video's captions as one text, remembering where each caption
+     * starts so matches map back to a time
+     */
+    public synchronized void putTranscript(String documentId, String title, CompactTranscript transcript) {
+        StringBuilder text = new StringBuilder(transcript.getTextLength() + transcript.size());
+        int[] segmentOffsets = new int[transcript.size()];
+        double[] segmentStarts = new double[transcript.size()];
+        for (int i = 0; i < transcript.size(); i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            segmentOffsets[i] = text.length();
+            segmentStarts[i] = transcript.getStart(i);
+            text.append(transcript.getText(i));
+        }
+        put(new IndexedDocument(documentId, "youtube", title, text.toString(), segmentOffsets, segmentStarts));
+    }
+
+    /**
+     * Replace the text of a document already in the index, keeping its title;
+     * returns false if the document is not indexed
+     */
+    public synchronized boolean updateText(String documentId, String text) {
+        IndexedDocument existing = documents.get(documentId);
+        if (existing == null) {
+            return false;
+        }
+        putText(documentId, existing.type, existing.title, text);
+        return true;
+    }
+
+    public synchronized boolean remove(String documentId) {
+        IndexedDocument removed = documents.remove(documentId);
+        if (removed == null) {
+            return false;
+        }
+        for (String term : removed.offsets.keySet()) {
+            Set<String> ids = documentsByTerm.get(term);
+            ids.remove(documentId);
+            if (ids.isEmpty()) {
+                documentsByTerm.remove(term);
+            }
+        }
+        totalTerms -= removed.termCount;
+        return true;
+    }
+
+    public synchronized boolean contains(String documentId) {
+        return documents.containsKey(documentId);
+    }
+
+    public synchronized int size() {
+        return documents.size();
+    }
+
+    /**
+     * Up to limit documents ranked by BM25 over the query terms, best first
+     */
+    public synchronized List<SearchHit> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(Bm25Index.tokenize(query, 0, query.length())));
+        if (terms.isEmpty() || documents.isEmpty()) {
+            return List.of();
+        }
+
+        double averageLength = (double) totalTerms / documents.size();
+        Map<IndexedDocument, Double> scores = new HashMap<>();
+        for (String term : terms) {
+            Set<String> ids = documentsByTerm.get(term);
+            if (ids == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (documents.size() - ids.size() + 0.5) / (ids.size() + 0.5));
+            for (String id : ids) {
+                IndexedDocument document = documents.get(id);
+                int tf = document.offsets.get(term).length;
+                double norm = Bm25Index.K1 * (1 - Bm25Index.B + Bm25Index.B * document.termCount / averageLength);
+                scores.merge(document, idf * tf * (Bm25Index.K1 + 1) / (tf + norm), Double::sum);
+            }
+        }
+
+        List<Map.Entry<IndexedDocument, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<IndexedDocument, Double>comparingByValue().reversed());
+        List<SearchHit> hits = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            hits.add(toHit(ranked.get(i).getKey(), ranked.get(i).getValue(), terms));
+        }
+        return hits;
+    }
+
+    private void put(IndexedDocument document) {
+        remove(document.id);
+        documents.put(document.id, document);
+        for (String term : document.offsets.keySet()) {
+            documentsByTerm.computeIfAbsent(term, key -> new HashSet<>()).add(document.id);
+        }
+        totalTerms += document.termCount;
+    }
+
+    private static SearchHit toHit(IndexedDocument document, double score, List<String> terms) {
+        // Matches packed as offset << 16 | term position so one sort orders them by offset
+        long[] matches = new long[0];
+        int count = 0;
+        for (int t = 0; t < terms.size(); t++) {
+            int[] offsets = document.offsets.get(terms.get(t));
+            if (offsets == null) {
+                continue;
+            }
+            int take = Math.min(offsets.length, MAX_OCCURRENCES);
+            matches = Arrays.copyOf(matches, count + take);
+            for (int i = 0; i < take; i++) {
+                matches[count++] = (long) offsets[i] << 16 | t;
+            }
+        }
+        Arrays.sort(matches);
+
+        int anchor = densestWindowStart(matches, terms.size());
+
+        SearchHit hit = new SearchHit();
+        hit.setDocumentId(document.id);
+        hit.setType(document.type);
+        hit.setTitle(document.title);
+        hit.setScore(score);
+        hit.setSnippet(snippet(document.text, anchor));
+        if (document.segmentStarts != null && document.segmentStarts.length > 0) {
+            hit.setTimestamp(document.segmentStarts[document.segmentAt(anchor)]);
+            List<Double> timestamps = new ArrayList<>();
+            int lastSegment = -1;
+            for (int i = 0; i < matches.length && timestamps.size() < MAX_TIMESTAMPS; i++) {
+                int segment = document.segmentAt((int) (matches[i] >>> 16));
+                if (segment != lastSegment) {
+                    timestamps.add(document.segmentStarts[segment]);
+                    lastSegment = segment;
+                }
+            }
+            hit.setTimestamps(timestamps);
+        }
+        return hit;
+    }
+
+    /**
+     * Offset of the first match in the snippet-sized window that covers the
+     * most distinct query terms, earliest on ties
+     */
+    private static int densestWindowStart(long[] matches, int termCount) {
+        int width = SNIPPET_CHARS - SNIPPET_LEAD;
+        int[] inWindow = new int[termCount];
+        int distinct = 0;
+        int best = -1;
+        int bestStart = 0;
+        int left = 0;
+        for (int right = 0; right < matches.length; right++) {
+            if (inWindow[(int) (matches[right] & 0xFFFF)]++ == 0) {
+                distinct++;
+            }
+            while ((matches[right] >>> 16) - (matches[left] >>> 16) > width) {
+                if (--inWindow[(int) (matches[left] & 0xFFFF)] == 0) {
+                    distinct--;
+                }
+                left++;
+            }
+            if (distinct > best) {
+                best = distinct;
+                bestStart = (int) (matches[left] >>> 16);
+            }
+        }
+        return bestStart;
+    }
+
+    private static String snippet(String text, int anchor) {
+        int start = Math.max(0, anchor - SNIPPET_LEAD);
+        // Start and end on word boundaries
+        if (start > 0) {
+            int space = start;
+            while (space < anchor && !Character.isWhitespace(text.charAt(space - 1))) {
+                space++;
+            }
+            start = space;
+        }
+        int end = Math.min(text.length(), start + SNIPPET_CHARS);
+        if (end < text.length()) {
+            int space = end;
+            while (space > anchor && !Character.isWhitespace(text.charAt(space))) {
+                space--;
+            }
+            end = space;
+        }
+
+        String snippet = text.substring(start, end).replaceAll("\\s+", " ").trim();
+        return (start > 0 ? "..." : "") + snippet + (end < text.length() ? "..." : "");
+    }
+
+    private static class IndexedDocument {
+        private final String id;
+        private final String type;
+        private final String title;
+        private final String text;
+        // term -> character offsets of its occurrences, ascending
+        private final Map<String, int[]> offsets;
+        private final int termCount;
+        // Videos only: where each caption starts in text, and when it is spoken
+        private final int[] segmentOffsets;
+        private final double[] segmentStarts;
+
+        private IndexedDocument(String id, String type, String title, String text, int[] segmentOffsets,
+                double[] segmentStarts) {
+            this.id = id;
+            this.type = type;
+            this.title = title;
+            this.text = text;
+            this.segmentOffsets = segmentOffsets;
+            this.segmentStarts = segmentStarts;
+
+            Map<String, OffsetList> building = new HashMap<>();
+            Bm25Index.forEachTerm(text, 0, text.length(),
+                    (term, offset) -> building.computeIfAbsent(term, key -> new OffsetList()).add(offset));
+            this.offsets = new HashMap<>(building.size());
+            int total = 0;
+            for (Map.Entry<String, OffsetList> entry : building.entrySet()) {
+                int[] termOffsets = entry.getValue().toArray();
+                offsets.put(entry.getKey(), termOffsets);
+                total += termOffsets.length;
+            }
+            this.termCount = total;
+        }
+
+        private int segmentAt(int offset) {
+            int index = Arrays.binarySearch(segmentOffsets, offset);
+            return index >= 0 ? index : Math.max(-index - 2, 0);
+        }
+    }
+
+    private static class OffsetList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.CompactTranscript;
+import com.Smart_Study_Buddy.Spring_backend.dto.SearchHit;
+
+/**
+ * Full-text search over everything a user has uploaded.
+ *
+ * A user's index is built from Firestore the first time they search and is
+ * then kept current as texts are extracted, videos imported and documents
+ * deleted, so later searches never go back to Firestore. Updates that arrive
+ * while a user's index is being built are held and applied before it is
+ * published, since the build may have read the document before the change.
+ * Indexes of users who have not searched recently are dropped and rebuilt on
+ * demand.
+ */
+@Service
+public class LibrarySearchService {
+
+    private final DocumentRepository documentRepository;
+    private final TranscriptWindowService transcriptWindowService;
+    private final Map<String, LibraryIndex> indexes;
+
+    // Concurrent first searches by the same user share one build. Also the lock
+    // under which builds are published and updates routed to them
+    private final Map<String, Build> building = new ConcurrentHashMap<>();
+
+    public LibrarySearchService(DocumentRepository documentRepository, TranscriptWindowService transcriptWindowService,
+            @Value("${search.index.max-users:100}") int maxUsers) {
+        this.documentRepository = documentRepository;
+        this.transcriptWindowService = transcriptWindowService;
+        this.indexes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LibraryIndex> eldest) {
+                return size() > maxUsers;
+            }
+        });
+    }
+
+    public List<SearchHit> search(String userId, String query, int limit)
+            throws ExecutionException, InterruptedException {
+        return indexFor(userId).search(query, limit);
+    }
+
+    /**
+     * Reindex a document whose text was just extracted. Only matters if its
+     * owner's index is loaded or being built; otherwise the next build reads
+     * the new text.
+     */
+    public void indexText(String documentId, String text) throws ExecutionException, InterruptedException {
+        List<LibraryIndex> loaded = loadedIndexes();
+        for (LibraryIndex index : loaded) {
+            if (index.updateText(documentId, text)) {
+                return;
+            }
+        }
+        if (loaded.isEmpty() && building.isEmpty()) {
+            return;
+        }
+
+        // First extraction of a new upload, or its owner's index is being built
+        Map<String, Object> doc = documentRepository.getDocument(documentId);
+        if (doc != null && doc.get("userId") instanceof String owner) {
+            String type = type(doc);
+            String title = title(doc);
+            update(owner, index -> index.putText(documentId, type, title, text));
+        }
+    }
+
+    /**
+     * Index a video the user just imported, if their index is loaded
+     */
+    public void indexVideo(String userId, String documentId, String title)
+            throws ExecutionException, InterruptedException {
+        if (!indexes.containsKey(userId) && !building.containsKey(userId)) {
+            return;
+        }
+        CompactTranscript transcript = transcriptWindowService.getTranscript(documentId, userId);
+        if (transcript != null) {
+            update(userId, index -> index.putTranscript(documentId, title, transcript));
+        }
+    }
+
+    public void remove(String documentId) {
+        synchronized (building) {
+            // A build may have read the document before it was deleted
+            for (Build build : building.values()) {
+                build.pending.add(index -> index.remove(documentId));
+            }
+        }
+        for (LibraryIndex index : loadedIndexes()) {
+            if (index.remove(documentId)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Apply an update to a user's index now if it is loaded, or once it is
+     * built if a build is running; without either the next build reads it
+     */
+    private void update(String userId, Consumer<LibraryIndex> update) {
+        LibraryIndex index;
+        synchronized (building) {
+            Build build = building.get(userId);
+            if (build != null) {
+                build.pending.add(update);
+                return;
+            }
+            index = indexes.get(userId);
+        }
+        if (index != null) {
+            update.accept(index);
+        }
+    }
+
+    private LibraryIndex indexFor(String userId) throws ExecutionException, InterruptedException {
+        LibraryIndex index = indexes.get(userId);
+        if (index != null) {
+            return index;
+        }
+
+        Build mine = new Build();
+        Build existing;
+        synchronized (building) {
+            // Published since the check above
+            index = indexes.get(userId);
+            if (index != null) {
+                return index;
+            }
+            existing = building.putIfAbsent(userId, mine);
+        }
+        if (existing != null) {
+            return existing.future.get();
+        }
+
+        try {
+            index = buildIndex(userId);
+            synchronized (building) {
+                for (Consumer<LibraryIndex> update : mine.pending) {
+                    update.accept(index);
+                }
+                indexes.put(userId, index);
+                building.remove(userId);
+            }
+            mine.future.complete(index);
+            return index;
+        } catch (RuntimeException | ExecutionException | InterruptedException e) {
+            // Held updates are dropped; the next build reads them from the repository
+            building.remove(userId, mine);
+            mine.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private LibraryIndex buildIndex(String userId) throws ExecutionException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        LibraryIndex index = new LibraryIndex();
+        for (Map<String, Object> doc : documentRepository.getUserDocuments(userId)) {
+            String documentId = (String) doc.get("id");
+            if ("youtube".equals(doc.get("type"))) {
+                CompactTranscript transcript = transcriptWindowService.getTranscript(documentId, userId);
+                if (transcript != null && !transcript.isEmpty()) {
+                    index.putTranscript(documentId, title(doc), transcript);
+                }
+                continue;
+            }
+
+            String text = doc.get("extractedText") instanceof String inline ? inline : null;
+            // Listings leave compressed text out; read those documents individually
+            if (text == null && doc.get("textExtractedAt") != null) {
+                Map<String, Object> full = documentRepository.getDocument(documentId);
+                text = full != null ? documentRepository.getExtractedText(full) : null;
+            }
+            if (text != null && !text.isEmpty()) {
+                index.putText(documentId, type(doc), title(doc), text);
+            }
+        }
+        System.out.println("🔎 Built search index for user " + userId + ": " + index.size() + " documents in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+        return index;
+    }
+
+    private List<LibraryIndex> loadedIndexes() {
+        synchronized (indexes) {
+            return new ArrayList<>(indexes.values());
+        }
+    }
+
+    private static class Build {
+        private final CompletableFuture<LibraryIndex> future = new CompletableFuture<>();
+        // Updates that arrived during the build, guarded by the building map
+        private final List<Consumer<LibraryIndex>> pending = new ArrayList<>();
+    }
+
+    private static String type(Map<String, Object> doc) {
+        return doc.get("type") instanceof String type ? type : "pdf";
+    }
+
+    private static String title(Map<String, Object> doc) {
+        if (doc.get("title") instanceof String title && !title.isEmpty()) {
+            return title;
+        }
+        return (String) doc.get("filename");
+    }
+}
@@ -0,0 +1,554 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.CompactTranscript;
+import com.Smart_Study_Buddy.Spring_backend.dto.YouTubeResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Embedded DocumentRepository on local disk, for self-hosting without
+ * Firebase (repository.type=local) and as the near-cache of
+ * CachingDocumentRepository.
+ *
+ * Records mirror the Firestore layout with one JSON file each under the root
+ * directory: documents/{id}, documents/{id}/artifacts/{kind},
+ * chatHistory/{documentId}_{userId}, transcripts/{id} and usage/{userId}. All records are
+ * loaded at startup, so reads are map lookups; large text stays compressed in
+ * memory until getExtractedText needs it. Transcript chunks are binary files
+ * read on demand. A write reaches disk, through a temporary file and an
+ * atomic rename, before it becomes visible to readers.
+ */
+public class LocalDocumentRepository implements DocumentRepository {
+
+    private static final String JSON = ".json";
+    private static final String CHUNK = ".bin";
+    // Wrappers for values JSON has no type for
+    private static final String DATE_KEY = "$date";
+    private static final String COMPRESSED_KEY = "$deflate";
+    private static final String ID_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Path root;
+    private final int compressionMinChars;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Record path -> fields; records are replaced on write, never modified
+    private final Map<String, Map<String, Object>> records = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> documentsByUser = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> documentsByHash = new ConcurrentHashMap<>();
+
+    public LocalDocumentRepository(Path root, int compressionMinChars) throws IOException {
+        this.root = root.toAbsolutePath();
+        this.compressionMinChars = compressionMinChars;
+        Files.createDirectories(this.root);
+        load();
+    }
+
+    @Override
+    public synchronized String saveDocument(String userId, String filename, String storagePath, String downloadUrl,
+            String contentHash) {
+        String documentId = newId();
+        put(documentPath(documentId), DocumentRecords.document(userId, filename, storagePath, downloadUrl,
+                contentHash));
+        return documentId;
+    }
+
+    @Override
+    public Map<String, Object> findDocumentByContentHash(String userId, String contentHash) {
+        for (String documentId : documentsByHash.getOrDefault(contentHash, Set.of())) {
+            Map<String, Object> data = getDocument(documentId);
+            if (data != null && (userId == null || userId.equals(data.get("userId")))) {
+                return data;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<Map<String, Object>> getUserDocuments(String userId) {
+        List<Map<String, Object>> documents = new ArrayList<>();
+        for (String documentId : documentsByUser.getOrDefault(userId, Set.of())) {
+            Map<String, Object> data = read(documentPath(documentId));
+            if (data != null) {
+                data.put("id", documentId);
+                // Listings never need the text itself; skip inflating compressed text
+                if (data.get("extractedText") instanceof CompressedText) {
+                    data.remove("extractedText");
+                }
+                documents.add(data);
+            }
+        }
+        return documents;
+    }
+
+    @Override
+    public Map<String, Object> getDocument(String documentId) {
+        Map<String, Object> data = read(documentPath(documentId));
+        if (data != null) {
+            data.put("id", documentId);
+        }
+        return data;
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> getDocuments(List<String> documentIds) {
+        Map<String, Map<String, Object>> documents = new LinkedHashMap<>();
+        for (String documentId : documentIds) {
+            Map<String, Object> data = getDocument(documentId);
+            if (data != null) {
+                documents.put(documentId, data);
+            }
+        }
+        return documents;
+    }
+
+    @Override
+    public String getExtractedText(Map<String, Object> document) {
+        Object value = document.get("extractedText");
+        if (value == null && document.get("transcriptId") instanceof String transcriptId) {
+            Map<String, Object> shared = getSharedTranscript(transcriptId);
+            value = shared != null ? shared.get("extractedText") : null;
+            document.put("extractedText", value);
+        }
+        if (value instanceof CompressedText compressed) {
+            String text = StoredTextCodec.decodeText(compressed.bytes);
+            document.put("extractedText", text);
+            return text;
+        }
+        return value instanceof String text ? text : null;
+    }
+
+    @Override
+    public synchronized void deleteDocument(String documentId) {
+        String path = documentPath(documentId);
+        // Artifacts and chunks of old videos live under documents/{id}/
+        records.keySet().removeIf(key -> key.startsWith(path + "/"));
+        deleteTree(root.resolve(path));
+        evict(path);
+    }
+
+    @Override
+    public synchronized void updateDocumentText(String documentId, String extractedText) {
+        String path = documentPath(documentId);
+        Map<String, Object> existing = records.get(path);
+        if (existing == null) {
+            throw new IllegalArgumentException("Document " + documentId + " does not exist");
+        }
+
+        Map<String, Object> updated = new HashMap<>(existing);
+        updated.putAll(DocumentRecords.textUpdate(extractedText, this::encodeText));
+        put(path, updated);
+    }
+
+    @Override
+    public synchronized void updateDocumentThumbnail(String documentId, String thumbnailPath) {
+        updateField(documentId, "thumbnailPath", thumbnailPath);
+    }
+
+    @Override
+    public synchronized void markThumbnailFailed(String documentId) {
+        updateField(documentId, "thumbnailFailed", true);
+    }
+
+    @Override
+    public synchronized void saveChatHistory(String documentId, String userId,
+            List<Map<String, String>> chatHistory) {
+        put(chatHistoryPath(documentId, userId), DocumentRecords.chatHistory(documentId, userId, chatHistory));
+    }
+
+    @Override
+    public List<Map<String, String>> getChatHistory(String documentId, String userId) {
+        Map<String, Object> data = read(chatHistoryPath(documentId, userId));
+        if (data != null && data.get("chatHistory") instanceof List) {
+            @SuppressWarnings("unchecked")
+            List<Map<String, String>> chatHistory = (List<Map<String, String>>) data.get("chatHistory");
+            return chatHistory;
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public Map<String, Object> getArtifact(String documentId, String kind) {
+        Map<String, Object> data = read(artifactPath(documentId, kind));
+        if (data != null && data.get("content") instanceof CompressedText compressed) {
+            data.put("content", StoredTextCodec.decodeText(compressed.bytes));
+        }
+        return data;
+    }
+
+    @Override
+    public synchronized void saveArtifact(String documentId, String kind, String content, String sourceDigest,
+            String promptVersion, String model, String etag) {
+        put(artifactPath(documentId, kind), DocumentRecords.artifact(kind, content, sourceDigest, promptVersion,
+                model, etag, this::encodeText));
+    }
+
+    @Override
+    public Map<String, Object> getSharedTranscript(String transcriptId) {
+        Map<String, Object> data = read(transcriptPath(transcriptId));
+        if (data != null) {
+            data.put("id", transcriptId);
+        }
+        return data;
+    }
+
+    @Override
+    public synchronized void saveSharedTranscript(String transcriptId, String generation, YouTubeResponse video,
+            TranscriptIndex transcriptChunkIndex, int transcriptEntryCount) {
+        put(transcriptPath(transcriptId), DocumentRecords.sharedTranscript(generation, video, transcriptChunkIndex,
+                transcriptEntryCount, this::encodeText));
+    }
+
+    @Override
+    public void saveTranscriptChunk(String transcriptId, String generation, int index, CompactTranscript chunk) {
+        writeFile(sharedChunks(transcriptId, generation).resolve(index + CHUNK),
+                StoredTextCodec.encodeTranscript(chunk));
+    }
+
+    @Override
+    public CompactTranscript getTranscriptChunk(String transcriptId, String generation, int index) {
+        return readTranscriptChunk(sharedChunks(transcriptId, generation).resolve(index + CHUNK));
+    }
+
+    @Override
+    public CompactTranscript getDocumentTranscriptChunk(String documentId, int index) {
+        return readTranscriptChunk(chunkFile(documentPath(documentId), index));
+    }
+
+    @Override
+    public void deleteTranscriptChunks(String transcriptId, String generation) {
+        if (generation == null) {
+            throw new IllegalArgumentException("Generation cannot be null");
+        }
+        deleteTree(sharedChunks(transcriptId, generation));
+    }
+
+    @Override
+    public synchronized String saveYouTubeVideo(String userId, String transcriptId, YouTubeResponse video) {
+        String documentId = newId();
+        put(documentPath(documentId), DocumentRecords.youTubeVideo(userId, transcriptId, video));
+        return documentId;
+    }
+
+    @Override
+    public synchronized List<String> saveYouTubeVideos(String userId, List<String> transcriptIds,
+            List<YouTubeResponse> videos) {
+        if (transcriptIds.size() != videos.size()) {
+            throw new IllegalArgumentException("Each video needs exactly one transcript ID");
+        }
+
+        List<String> documentIds = new ArrayList<>(videos.size());
+        for (int i = 0; i < videos.size(); i++) {
+            documentIds.add(saveYouTubeVideo(userId, transcriptIds.get(i), videos.get(i)));
+        }
+        return documentIds;
+    }
+
+    @Override
+    public synchronized void incrementUsage(Map<String, Map<String, Long>> deltasByUser) {
+        for (Map.Entry<String, Map<String, Long>> user : deltasByUser.entrySet()) {
+            String path = usagePath(user.getKey());
+            Map<String, Object> usage = new HashMap<>(records.getOrDefault(path, Map.of()));
+            user.getValue().forEach((counter, delta) -> usage.put(counter,
+                    (usage.get(counter) instanceof Number current ? current.longValue() : 0L) + delta));
+            usage.put("updatedAt", new Date());
+            put(path, usage);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getUsage(String userId) {
+        Map<String, Object> usage = read(usagePath(userId));
+        return usage != null ? usage : new HashMap<>();
+    }
+
+    static String documentPath(String documentId) {
+        return "documents/" + segment(documentId, "Document ID");
+    }
+
+    static String artifactPath(String documentId, String kind) {
+        return documentPath(documentId) + "/artifacts/" + segment(kind, "Artifact kind");
+    }
+
+    static String chatHistoryPath(String documentId, String userId) {
+        return "chatHistory/" + segment(documentId, "Document ID") + "_" + segment(userId, "User ID");
+    }
+
+    static String transcriptPath(String transcriptId) {
+        return "transcripts/" + segment(transcriptId, "Transcript ID");
+    }
+
+    static String usagePath(String userId) {
+        return "usage/" + segment(userId, "User ID");
+    }
+
+    boolean contains(String path) {
+        return records.containsKey(path);
+    }
+
+    /**
+     * Store a record read from elsewhere as is. byte[] values are taken as
+     * StoredTextCodec-encoded text.
+     */
+    synchronized void cache(String path, Map<String, Object> data) {
+        Map<String, Object> fields = new HashMap<>(data);
+        fields.remove("id");
+        put(path, fields);
+    }
+
+    /**
+     * Drop a record from memory and disk
+     */
+    synchronized void evict(String path) {
+        Map<String, Object> removed = records.remove(path);
+        if (removed != null) {
+            unindex(path, removed);
+        }
+        try {
+            Files.deleteIfExists(file(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete " + path, e);
+        }
+    }
+
+    private void load() throws IOException {
+        long startTime = System.currentTimeMillis();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(JSON))::iterator) {
+                String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+                path = path.substring(0, path.length() - JSON.length());
+                @SuppressWarnings("unchecked")
+                Map<String, Object> data = (Map<String, Object>) fromJson(
+                        objectMapper.readValue(file.toFile(), new TypeReference<Map<String, Object>>() {
+                        }));
+                records.put(path, data);
+                index(path, data);
+            }
+        }
+        System.out.println("🗄️ Loaded " + records.size() + " records from " + root + " in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    private Map<String, Object> read(String path) {
+        Map<String, Object> data = records.get(path);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> copy = data != null ? (Map<String, Object>) DocumentRecords.copy(data) : null;
+        return copy;
+    }
+
+    private void put(String path, Map<String, Object> data) {
+        Object json = toJson(data);
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(json);
+            writeFile(file(path), bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + path, e);
+        }
+
+        // Reading back the JSON form keeps callers' objects out of the store
+        @SuppressWarnings("unchecked")
+        Map<String, Object> stored = (Map<String, Object>) fromJson(json);
+        Map<String, Object> previous = records.put(path, stored);
+        if (previous != null) {
+            unindex(path, previous);
+        }
+        index(path, stored);
+    }
+
+    private void index(String path, Map<String, Object> data) {
+        if (!isDocument(path)) {
+            return;
+        }
+        String documentId = path.substring("documents/".length());
+        if (data.get("userId") instanceof String userId) {
+            documentsByUser.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet()).add(documentId);
+        }
+        if (data.get("contentHash") instanceof String contentHash) {
+            documentsByHash.computeIfAbsent(contentHash, key -> ConcurrentHashMap.newKeySet()).add(documentId);
+        }
+    }
+
+    private void unindex(String path, Map<String, Object> data) {
+        if (!isDocument(path)) {
+            return;
+        }
+        String documentId = path.substring("documents/".length());
+        if (data.get("userId") instanceof String userId) {
+            Set<String> documentIds = documentsByUser.get(userId);
+            if (documentIds != null) {
+                documentIds.remove(documentId);
+            }
+        }
+        if (data.get("contentHash") instanceof String contentHash) {
+            Set<String> documentIds = documentsByHash.get(contentHash);
+            if (documentIds != null) {
+                documentIds.remove(documentId);
+            }
+        }
+    }
+
+    private void updateField(String documentId, String field, Object value) {
+        String path = documentPath(documentId);
+        Map<String, Object> existing = records.get(path);
+        if (existing == null) {
+            throw new IllegalArgumentException("Document " + documentId + " does not exist");
+        }
+
+        Map<String, Object> updated = new HashMap<>(existing);
+        updated.put(field, value);
+        put(path, updated);
+    }
+
+    private static boolean isDocument(String path) {
+        return path.startsWith("documents/") && path.indexOf('/', "documents/".length()) < 0;
+    }
+
+    private CompactTranscript readTranscriptChunk(Path file) {
+        try {
+            return StoredTextCodec.decodeTranscript(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + root.relativize(file), e);
+        }
+    }
+
+    private void writeFile(Path file, byte[] bytes) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + root.relativize(file), e);
+        }
+    }
+
+    private void deleteTree(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete " + root.relativize(directory), e);
+        }
+    }
+
+    private Path file(String path) {
+        return root.resolve(path + JSON);
+    }
+
+    private Path chunkFile(String parentPath, int index) {
+        return root.resolve(parentPath).resolve("transcriptChunks").resolve(index + CHUNK);
+    }
+
+    private Path sharedChunks(String transcriptId, String generation) {
+        Path chunks = root.resolve(transcriptPath(transcriptId)).resolve("transcriptChunks");
+        return generation == null ? chunks : chunks.resolve(generation);
+    }
+
+    private Object encodeText(String text) {
+        if (text == null || text.length() < compressionMinChars) {
+            return text;
+        }
+        return StoredTextCodec.encodeText(text);
+    }
+
+    private static String newId() {
+        StringBuilder id = new StringBuilder(20);
+        for (int i = 0; i < 20; i++) {
+            id.append(ID_CHARS.charAt(RANDOM.nextInt(ID_CHARS.length())));
+        }
+        return id.toString();
+    }
+
+    /**
+     * IDs become file names, so they must not reach outside their directory
+     */
+    private static String segment(String id, String what) {
+        if (id == null) {
+            throw new IllegalArgumentException(what + " cannot be null");
+        }
+        if (id.isEmpty() || id.equals(".") || id.equals("..") || id.indexOf('/') >= 0 || id.indexOf('\\') >= 0) {
+            throw new IllegalArgumentException("Invalid " + what + ": " + id);
+        }
+        return id;
+    }
+
+    private static Object toJson(Object value) {
+        if (value instanceof Date date) {
+            return Map.of(DATE_KEY, date.getTime());
+        }
+        if (value instanceof byte[] bytes) {
+            return Map.of(COMPRESSED_KEY, Base64.getEncoder().encodeToString(bytes));
+        }
+        if (value instanceof CompressedText compressed) {
+            return toJson(compressed.bytes);
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            map.forEach((key, item) -> json.put(String.valueOf(key), toJson(item)));
+            return json;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> json = new ArrayList<>(list.size());
+            for (Object item : list) {
+                json.add(toJson(item));
+            }
+            return json;
+        }
+        return value;
+    }
+
+    private static Object fromJson(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            if (map.size() == 1 && map.get(DATE_KEY) instanceof Number millis) {
+                return new Date(millis.longValue());
+            }
+            if (map.size() == 1 && map.get(COMPRESSED_KEY) instanceof String encoded) {
+                return new CompressedText(Base64.getDecoder().decode(encoded));
+            }
+            Map<String, Object> data = new HashMap<>();
+            map.forEach((key, item) -> data.put(String.valueOf(key), fromJson(item)));
+            return data;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> data = new ArrayList<>(list.size());
+            for (Object item : list) {
+                data.add(fromJson(item));
+            }
+            return data;
+        }
+        return value;
+    }
+
+    private static class CompressedText {
+        private final byte[] bytes;
+
+        private CompressedText(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
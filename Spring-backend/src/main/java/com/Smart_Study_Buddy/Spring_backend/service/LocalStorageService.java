@@ -0,0 +1,157 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriUtils;
+
+/**
+ * StorageService on local disk (storage.type=local), for self-hosting.
+ *
+ * Files are served by FileController under /api/files/{path} with an HMAC
+ * signature and expiry in the query string, like the signed URLs of Firebase
+ * Storage. The expiry is rounded up to a whole day, so a file's URL stays the
+ * same within a day and browsers can revalidate it instead of downloading it
+ * again.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.type", havingValue = "local")
+public class LocalStorageService implements StorageService {
+
+    private static final long URL_VALIDITY_SECONDS = 7 * 24 * 3600L;
+    private static final long DAY_SECONDS = 24 * 3600L;
+
+    private final Path root;
+    private final String baseUrl;
+    private final SecretKeySpec signingKey;
+
+    public LocalStorageService(@Value("${storage.local.dir:data/storage}") String dir,
+            @Value("${storage.local.base-url:http://localhost:8080}") String baseUrl,
+            @Value("${storage.local.signing-key:}") String signingKey) throws IOException {
+        this.root = Path.of(dir).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        byte[] key;
+        if (signingKey.isBlank()) {
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            System.out.println("⚠️ storage.local.signing-key is not set; download URLs stop working on restart");
+        } else {
+            key = signingKey.getBytes(StandardCharsets.UTF_8);
+        }
+        this.signingKey = new SecretKeySpec(key, "HmacSHA256");
+        Files.createDirectories(root);
+        System.out.println("📁 Storing files locally at " + root);
+    }
+
+    @Override
+    public String uploadFile(MultipartFile file, String storagePath) throws IOException {
+        Path target = resolve(storagePath);
+        Files.createDirectories(target.getParent());
+        // Stream to a sibling temp file so readers never see a partial upload
+        Path temp = target.resolveSibling(target.getFileName() + ".part");
+        file.transferTo(temp);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return getDownloadUrl(storagePath);
+    }
+
+    @Override
+    public String storeFile(Path source, String storagePath, String contentType) throws IOException {
+        Path target = resolve(storagePath);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Source on another file system: copy next to the target, then rename
+            Path temp = target.resolveSibling(target.getFileName() + ".part");
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(source);
+        }
+
+        return getDownloadUrl(storagePath);
+    }
+
+    @Override
+    public String getDownloadUrl(String filePath) {
+        long now = System.currentTimeMillis() / 1000;
+        long expires = (now + URL_VALIDITY_SECONDS) / DAY_SECONDS * DAY_SECONDS + DAY_SECONDS;
+
+        StringBuilder url = new StringBuilder(baseUrl).append("/api/files");
+        for (String segment : filePath.split("/")) {
+            url.append('/').append(UriUtils.encodePathSegment(segment, StandardCharsets.UTF_8));
+        }
+        return url.append("?expires=").append(expires)
+                .append("&signature=").append(sign(filePath, expires))
+                .toString();
+    }
+
+    @Override
+    public byte[] downloadFile(String filePath) throws IOException {
+        try {
+            return Files.readAllBytes(resolve(filePath));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public long getFileSize(String filePath) throws IOException {
+        try {
+            return Files.size(resolve(filePath));
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The file behind a download URL, or null if the signature does not match
+     * or the URL has expired. The file itself may not exist.
+     */
+    public Path resolveSigned(String filePath, long expires, String signature) {
+        if (expires < System.currentTimeMillis() / 1000 || signature == null) {
+            return null;
+        }
+        byte[] expected = sign(filePath, expires).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII))) {
+            return null;
+        }
+        return resolve(filePath);
+    }
+
+    private Path resolve(String filePath) {
+        Path path = root.resolve(filePath).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid storage path: " + filePath);
+        }
+        return path;
+    }
+
+    private String sign(String filePath, long expires) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(signingKey);
+            byte[] signature = mac.doFinal((filePath + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
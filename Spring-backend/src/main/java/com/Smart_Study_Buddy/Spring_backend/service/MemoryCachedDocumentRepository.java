@@ -0,0 +1,414 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.CompactTranscript;
+import com.Smart_Study_Buddy.Spring_backend.dto.YouTubeResponse;
+import com.google.cloud.firestore.Blob;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded in-memory read-through cache in front of a remote
+ * DocumentRepository (repository.memory-cache.max-bytes).
+ *
+ * Opening a document reads its record, the shared transcript of a video and
+ * the chat history; those reads are served from memory after the first one.
+ * Entries are weighed by an estimate of their size, dominated by the stored
+ * text they hold, and the least recently used are evicted once the total
+ * exceeds the budget. Records heavier than an eighth of the budget are not
+ * kept, so one large document cannot flush everything else. Entries are
+ * dropped on every write to their record (text and thumbnail updates,
+ * deleteDocument and chat writes), which holds as long as this backend is
+ * the only writer. A read that overlaps such a write does not store what it
+ * read, since it may predate the write. Decoded text is cached by DocumentTextService, so records
+ * are kept in their stored form here.
+ */
+public class MemoryCachedDocumentRepository implements DocumentRepository {
+
+    // Rough per-entry overhead of the map entry, key and record map
+    private static final long ENTRY_OVERHEAD_BYTES = 256;
+    private static final int INVALIDATION_STRIPES = 256;
+
+    private final DocumentRepository delegate;
+    private final long maxBytes;
+    private final Counter hits;
+    private final Counter misses;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Invalidation counts per stripe of document or transcript ids; bounded, unlike one per key
+    private final long[] invalidations = new long[INVALIDATION_STRIPES];
+    private long weight;
+
+    public MemoryCachedDocumentRepository(DocumentRepository delegate, long maxBytes, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.maxBytes = maxBytes;
+        this.hits = Counter.builder("repository.memory-cache.hits").register(meterRegistry);
+        this.misses = Counter.builder("repository.memory-cache.misses").register(meterRegistry);
+    }
+
+    @Override
+    public String saveDocument(String userId, String filename, String storagePath, String downloadUrl,
+            String contentHash) throws ExecutionException, InterruptedException {
+        return delegate.saveDocument(userId, filename, storagePath, downloadUrl, contentHash);
+    }
+
+    @Override
+    public Map<String, Object> findDocumentByContentHash(String userId, String contentHash)
+            throws ExecutionException, InterruptedException {
+        return delegate.findDocumentByContentHash(userId, contentHash);
+    }
+
+    @Override
+    public List<Map<String, Object>> getUserDocuments(String userId) throws ExecutionException, InterruptedException {
+        return delegate.getUserDocuments(userId);
+    }
+
+    @Override
+    public Map<String, Object> getDocument(String documentId) throws ExecutionException, InterruptedException {
+        String key = documentKey(documentId);
+        Object cached = lookup(key);
+        if (cached != null) {
+            return copyRecord(cached);
+        }
+
+        long stamp = stamp(documentId);
+        Map<String, Object> data = delegate.getDocument(documentId);
+        if (data != null) {
+            store(key, documentId, stamp, copyRecord(data));
+        }
+        return data;
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> getDocuments(List<String> documentIds)
+            throws ExecutionException, InterruptedException {
+        Map<String, Map<String, Object>> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String documentId : documentIds) {
+            Object cached = lookup(documentKey(documentId));
+            if (cached != null) {
+                found.put(documentId, copyRecord(cached));
+            } else {
+                missing.add(documentId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<String, Long> stamps = new HashMap<>();
+            for (String documentId : missing) {
+                stamps.put(documentId, stamp(documentId));
+            }
+            for (Map.Entry<String, Map<String, Object>> document : delegate.getDocuments(missing).entrySet()) {
+                String documentId = document.getKey();
+                store(documentKey(documentId), documentId, stamps.get(documentId), copyRecord(document.getValue()));
+                found.put(document.getKey(), document.getValue());
+            }
+        }
+        return DocumentRecords.inOrder(documentIds, found);
+    }
+
+    @Override
+    public String getExtractedText(Map<String, Object> document) throws ExecutionException, InterruptedException {
+        if (document.get("extractedText") == null && document.get("transcriptId") instanceof String transcriptId) {
+            // Follow the shared transcript through this cache, not the delegate's own lookup
+            Map<String, Object> shared = getSharedTranscript(transcriptId);
+            document.put("extractedText", shared != null ? shared.get("extractedText") : null);
+        }
+        return delegate.getExtractedText(document);
+    }
+
+    @Override
+    public void deleteDocument(String documentId) throws ExecutionException, InterruptedException {
+        try {
+            delegate.deleteDocument(documentId);
+        } finally {
+            invalidateDocument(documentId);
+        }
+    }
+
+    @Override
+    public void updateDocumentText(String documentId, String extractedText)
+            throws ExecutionException, InterruptedException {
+        try {
+            delegate.updateDocumentText(documentId, extractedText);
+        } finally {
+            invalidate(documentKey(documentId), documentId);
+        }
+    }
+
+    @Override
+    public void updateDocumentThumbnail(String documentId, String thumbnailPath)
+            throws ExecutionException, InterruptedException {
+        try {
+            delegate.updateDocumentThumbnail(documentId, thumbnailPath);
+        } finally {
+            invalidate(documentKey(documentId), documentId);
+        }
+    }
+
+    @Override
+    public void markThumbnailFailed(String documentId) throws ExecutionException, InterruptedException {
+        try {
+            delegate.markThumbnailFailed(documentId);
+        } finally {
+            invalidate(documentKey(documentId), documentId);
+        }
+    }
+
+    @Override
+    public void saveChatHistory(String documentId, String userId, List<Map<String, String>> chatHistory)
+            throws ExecutionException, InterruptedException {
+        try {
+            delegate.saveChatHistory(documentId, userId, chatHistory);
+        } finally {
+            invalidate(chatHistoryKey(documentId, userId), documentId);
+        }
+    }
+
+    @Override
+    public List<Map<String, String>> getChatHistory(String documentId, String userId)
+            throws ExecutionException, InterruptedException {
+        String key = chatHistoryKey(documentId, userId);
+        Object cached = lookup(key);
+        if (cached != null) {
+            return copyChatHistory(cached);
+        }
+
+        long stamp = stamp(documentId);
+        List<Map<String, String>> chatHistory = delegate.getChatHistory(documentId, userId);
+        // Kept even when empty, so documents without a chat are not read again every time
+        store(key, documentId, stamp, copyChatHistory(chatHistory));
+        return chatHistory;
+    }
+
+    @Override
+    public Map<String, Object> getArtifact(String documentId, String kind)
+            throws ExecutionException, InterruptedException {
+        // StudyArtifactService keeps its own cache of artifacts
+        return delegate.getArtifact(documentId, kind);
+    }
+
+    @Override
+    public void saveArtifact(String documentId, String kind, String content, String sourceDigest,
+            String promptVersion, String model, String etag) throws ExecutionException, InterruptedException {
+        delegate.saveArtifact(documentId, kind, content, sourceDigest, promptVersion, model, etag);
+    }
+
+    @Override
+    public Map<String, Object> getSharedTranscript(String transcriptId)
+            throws ExecutionException, InterruptedException {
+        String key = transcriptKey(transcriptId);
+        Object cached = lookup(key);
+        if (cached != null) {
+            return copyRecord(cached);
+        }
+
+        long stamp = stamp(transcriptId);
+        Map<String, Object> data = delegate.getSharedTranscript(transcriptId);
+        if (data != null) {
+            store(key, transcriptId, stamp, copyRecord(data));
+        }
+        return data;
+    }
+
+    @Override
+    public void saveSharedTranscript(String transcriptId, String generation, YouTubeResponse video,
+            TranscriptIndex transcriptChunkIndex, int transcriptEntryCount)
+            throws ExecutionException, InterruptedException {
+        try {
+            delegate.saveSharedTranscript(transcriptId, generation, video, transcriptChunkIndex, transcriptEntryCount);
+        } finally {
+            invalidate(transcriptKey(transcriptId), transcriptId);
+        }
+    }
+
+    @Override
+    public void saveTranscriptChunk(String transcriptId, String generation, int index, CompactTranscript chunk)
+            throws ExecutionException, InterruptedException {
+        delegate.saveTranscriptChunk(transcriptId, generation, index, chunk);
+    }
+
+    @Override
+    public CompactTranscript getTranscriptChunk(String transcriptId, String generation, int index)
+            throws ExecutionException, InterruptedException {
+        // TranscriptWindowService keeps its own cache of chunks
+        return delegate.getTranscriptChunk(transcriptId, generation, index);
+    }
+
+    @Override
+    public CompactTranscript getDocumentTranscriptChunk(String documentId, int index)
+            throws ExecutionException, InterruptedException {
+        return delegate.getDocumentTranscriptChunk(documentId, index);
+    }
+
+    @Override
+    public void deleteTranscriptChunks(String transcriptId, String generation)
+            throws ExecutionException, InterruptedException {
+        delegate.deleteTranscriptChunks(transcriptId, generation);
+    }
+
+    @Override
+    public String saveYouTubeVideo(String userId, String transcriptId, YouTubeResponse video)
+            throws ExecutionException, InterruptedException {
+        return delegate.saveYouTubeVideo(userId, transcriptId, video);
+    }
+
+    @Override
+    public List<String> saveYouTubeVideos(String userId, List<String> transcriptIds, List<YouTubeResponse> videos)
+            throws ExecutionException, InterruptedException {
+        return delegate.saveYouTubeVideos(userId, transcriptIds, videos);
+    }
+
+    @Override
+    public void incrementUsage(Map<String, Map<String, Long>> deltasByUser)
+            throws ExecutionException, InterruptedException {
+        delegate.incrementUsage(deltasByUser);
+    }
+
+    @Override
+    public Map<String, Object> getUsage(String userId) throws ExecutionException, InterruptedException {
+        return delegate.getUsage(userId);
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    private synchronized Object lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Invalidation count of the record a read is about to fetch; pass it to
+     * store along with what was read
+     */
+    private synchronized long stamp(String recordId) {
+        return invalidations[stripe(recordId)];
+    }
+
+    private synchronized void store(String key, String recordId, long stamp, Object value) {
+        if (invalidations[stripe(recordId)] != stamp) {
+            // Invalidated while it was read; the value may be older than the write
+            return;
+        }
+        long size = ENTRY_OVERHEAD_BYTES + estimateSize(value);
+        if (size > maxBytes / 8) {
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(value, size));
+        if (previous != null) {
+            weight -= previous.size;
+        }
+        weight += size;
+
+        var eldest = entries.values().iterator();
+        while (weight > maxBytes && eldest.hasNext()) {
+            weight -= eldest.next().size;
+            eldest.remove();
+        }
+    }
+
+    private synchronized void invalidate(String key, String recordId) {
+        invalidations[stripe(recordId)]++;
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.size;
+        }
+    }
+
+    private synchronized void invalidateDocument(String documentId) {
+        invalidate(documentKey(documentId), documentId);
+        // Chat histories of every user of the document
+        String chatPrefix = chatHistoryKey(documentId, "");
+        var iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getKey().startsWith(chatPrefix)) {
+                weight -= entry.getValue().size;
+                iterator.remove();
+            }
+        }
+    }
+
+    private static int stripe(String recordId) {
+        return Math.floorMod(recordId.hashCode(), INVALIDATION_STRIPES);
+    }
+
+    private static String documentKey(String documentId) {
+        return "document:" + documentId;
+    }
+
+    private static String chatHistoryKey(String documentId, String userId) {
+        return "chat:" + documentId + "|" + userId;
+    }
+
+    private static String transcriptKey(String transcriptId) {
+        return "transcript:" + transcriptId;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> copyRecord(Object record) {
+        return (Map<String, Object>) DocumentRecords.copy(record);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, String>> copyChatHistory(Object chatHistory) {
+        return (List<Map<String, String>>) DocumentRecords.copy(chatHistory);
+    }
+
+    /**
+     * Approximate heap size of a record value in bytes
+     */
+    private static long estimateSize(Object value) {
+        if (value instanceof String text) {
+            return 40 + 2L * text.length();
+        }
+        if (value instanceof Blob blob) {
+            return 64 + blob.toByteString().size();
+        }
+        if (value instanceof byte[] bytes) {
+            return 16 + bytes.length;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = 48;
+            for (Map.Entry<?, ?> field : map.entrySet()) {
+                size += 32 + estimateSize(field.getKey()) + estimateSize(field.getValue());
+            }
+            return size;
+        }
+        if (value instanceof List<?> list) {
+            long size = 40;
+            for (Object item : list) {
+                size += 8 + estimateSize(item);
+            }
+            return size;
+        }
+        if (value instanceof Date) {
+            return 24;
+        }
+        return 16;
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long size;
+
+        private Entry(Object value, long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops page numbers ("12", "Page 3", "4 of 20", "- 7 -", "xii") printed at
+ * the top or bottom of a page. Lines further in are left alone so numbers in
+ * tables survive.
+ */
+@Component
+public class PageNumberStage implements TextNormalizationStage {
+
+    private static final Pattern PAGE_NUMBER = Pattern.compile(
+            "(?i)^[\\s\\-–—|]*(page\\s*)?(\\d{1,4}|[ivxlcdm]{1,7})(\\s*(of|/)\\s*\\d{1,4})?[\\s\\-–—|]*$");
+
+    @Override
+    public String getName() {
+        return "page-numbers";
+    }
+
+    @Override
+    public PageFilter open(PagedText text) {
+        return (pageIndex, lines) -> {
+            boolean[] edge = TextNormalizationStage.edgeLines(lines);
+            List<String> kept = new ArrayList<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                if (!edge[i] || !PAGE_NUMBER.matcher(lines.get(i)).matches()) {
+                    kept.add(lines.get(i));
+                }
+            }
+            return kept;
+        };
+    }
+}
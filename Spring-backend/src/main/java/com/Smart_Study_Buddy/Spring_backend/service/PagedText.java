@@ -0,0 +1,73 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extracted PDF text viewed as pages of lines. The Python extractor puts a
+ * form feed between pages; text without any is treated as a single page.
+ * Lines are only materialized one page at a time.
+ */
+public class PagedText {
+
+    private static final char PAGE_BREAK = '\f';
+
+    private final String text;
+    private final int[] pageStarts;
+    private final int[] pageEnds;
+
+    private PagedText(String text, int[] pageStarts, int[] pageEnds) {
+        this.text = text;
+        this.pageStarts = pageStarts;
+        this.pageEnds = pageEnds;
+    }
+
+    public static PagedText of(String text) {
+        List<Integer> breaks = new ArrayList<>();
+        for (int i = text.indexOf(PAGE_BREAK); i >= 0; i = text.indexOf(PAGE_BREAK, i + 1)) {
+            breaks.add(i);
+        }
+        int[] starts = new int[breaks.size() + 1];
+        int[] ends = new int[breaks.size() + 1];
+        int start = 0;
+        for (int page = 0; page < breaks.size(); page++) {
+            starts[page] = start;
+            ends[page] = breaks.get(page);
+            start = breaks.get(page) + 1;
+        }
+        starts[breaks.size()] = start;
+        ends[breaks.size()] = text.length();
+        return new PagedText(text, starts, ends);
+    }
+
+    public int pageCount() {
+        return pageStarts.length;
+    }
+
+    public int length() {
+        return text.length();
+    }
+
+    /**
+     * Lines of one page without their line terminators
+     */
+    public List<String> lines(int page) {
+        List<String> lines = new ArrayList<>();
+        int end = pageEnds[page];
+        int lineStart = pageStarts[page];
+        for (int i = lineStart; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                lines.add(text.substring(lineStart, i));
+                if (c == '\r' && i + 1 < end && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < end) {
+            lines.add(text.substring(lineStart, end));
+        }
+        return lines;
+    }
+}
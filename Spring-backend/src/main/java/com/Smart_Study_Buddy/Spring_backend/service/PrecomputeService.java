@@ -0,0 +1,149 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.Smart_Study_Buddy.Spring_backend.service.StudyArtifactService.Kind;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Generates the summary, flashcards and quiz of newly stored documents ahead
+ * of the first click. Opt-in through ai.precompute.enabled.
+ *
+ * A single worker takes documents in arrival order and issues one generation
+ * at a time, and only while the AI service is quiet: no user request has
+ * started or finished within the idle window and in-flight calls are below
+ * the utilization threshold. The gate is checked before every call, so a user
+ * request pauses the queue right away. A call already in flight is not
+ * cancelled.
+ */
+@Service
+public class PrecomputeService {
+
+    private static final long POLL_MILLIS = 200;
+
+    @Value("${ai.precompute.enabled:false}")
+    private boolean enabled;
+
+    // Concurrent AI calls the Python service handles comfortably
+    @Value("${ai.precompute.capacity:4}")
+    private int capacity;
+
+    @Value("${ai.precompute.max-utilization:0.5}")
+    private double maxUtilization;
+
+    @Value("${ai.precompute.idle-millis:2000}")
+    private long idleMillis;
+
+    @Value("${ai.precompute.max-queue:1000}")
+    private int maxQueue;
+
+    private final AiServiceClient aiServiceClient;
+    private final DocumentRepository documentRepository;
+    private final DocumentTextService documentTextService;
+    private final StudyArtifactService studyArtifactService;
+    private final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private Thread worker;
+
+    public PrecomputeService(AiServiceClient aiServiceClient, DocumentRepository documentRepository,
+            DocumentTextService documentTextService, StudyArtifactService studyArtifactService) {
+        this.aiServiceClient = aiServiceClient;
+        this.documentRepository = documentRepository;
+        this.documentTextService = documentTextService;
+        this.studyArtifactService = studyArtifactService;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        worker = new Thread(this::run, "ai-precompute");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+        System.out.println("🌙 Idle-time precomputation of study material enabled");
+    }
+
+    /**
+     * Queue a document whose text was just stored
+     */
+    public void enqueue(String documentId) {
+        if (!enabled || documentId == null) {
+            return;
+        }
+        if (queued.size() >= maxQueue) {
+            System.err.println("⚠️ Precompute queue full, skipping document " + documentId);
+            return;
+        }
+        if (queued.add(documentId)) {
+            queue.offer(documentId);
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            String documentId = null;
+            try {
+                documentId = queue.take();
+                queued.remove(documentId);
+                precompute(documentId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                System.err.println("⚠️ Precompute failed for document " + documentId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void precompute(String documentId) throws Exception {
+        Map<String, Object> doc = documentRepository.getDocument(documentId);
+        String text = doc != null ? documentTextService.getText(documentId, doc) : null;
+        if (text == null) {
+            return;
+        }
+
+        for (Kind kind : Kind.values()) {
+            if (studyArtifactService.get(documentId, kind, text) != null) {
+                continue;
+            }
+            awaitIdle();
+            String content = aiServiceClient.postInBackground(kind.getPath(),
+                    Map.of("text", text, "document_id", documentId));
+            if (content != null) {
+                studyArtifactService.put(documentId, kind, text, content);
+                System.out.println("🌙 Precomputed " + kind.getName() + " for document " + documentId);
+            }
+        }
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        while (!isIdle()) {
+            Thread.sleep(POLL_MILLIS);
+        }
+    }
+
+    private boolean isIdle() {
+        if (System.currentTimeMillis() - aiServiceClient.getLastInteractiveAt() < idleMillis) {
+            return false;
+        }
+        int inFlight = aiServiceClient.getInteractiveInFlight() + aiServiceClient.getBackgroundInFlight();
+        return (double) inFlight / capacity < maxUtilization;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+}
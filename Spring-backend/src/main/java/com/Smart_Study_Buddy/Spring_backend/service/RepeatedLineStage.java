@@ -0,0 +1,84 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops running headers and footers: lines at the top or bottom of a page
+ * that recur on many pages. Digits are ignored when comparing lines, so
+ * "Chapter 3 - page 41" and "Chapter 3 - page 42" count as the same footer.
+ */
+@Component
+public class RepeatedLineStage implements TextNormalizationStage {
+
+    @Value("${text.normalization.repeated-lines.min-pages:3}")
+    private int minPages;
+
+    // Share of pages a line must appear on to count as a header or footer
+    @Value("${text.normalization.repeated-lines.min-fraction:0.5}")
+    private double minFraction;
+
+    @Override
+    public String getName() {
+        return "repeated-lines";
+    }
+
+    @Override
+    public PageFilter open(PagedText text) {
+        Set<String> repeated = findRepeated(text);
+        return (pageIndex, lines) -> {
+            if (repeated.isEmpty()) {
+                return lines;
+            }
+            boolean[] edge = TextNormalizationStage.edgeLines(lines);
+            List<String> kept = new ArrayList<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                if (!edge[i] || !repeated.contains(normalize(lines.get(i)))) {
+                    kept.add(lines.get(i));
+                }
+            }
+            return kept;
+        };
+    }
+
+    private Set<String> findRepeated(PagedText text) {
+        int pages = text.pageCount();
+        if (pages < minPages) {
+            return Set.of();
+        }
+
+        Map<String, Integer> pageCounts = new HashMap<>();
+        for (int page = 0; page < pages; page++) {
+            List<String> lines = text.lines(page);
+            boolean[] edge = TextNormalizationStage.edgeLines(lines);
+            // Count each line once per page
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i < lines.size(); i++) {
+                if (edge[i] && seen.add(normalize(lines.get(i)))) {
+                    pageCounts.merge(normalize(lines.get(i)), 1, Integer::sum);
+                }
+            }
+        }
+
+        int threshold = Math.max(minPages, (int) Math.ceil(pages * minFraction));
+        Set<String> repeated = new HashSet<>();
+        for (Map.Entry<String, Integer> entry : pageCounts.entrySet()) {
+            if (entry.getValue() >= threshold && !entry.getKey().isEmpty()) {
+                repeated.add(entry.getKey());
+            }
+        }
+        return repeated;
+    }
+
+    private static String normalize(String line) {
+        return line.strip().replaceAll("\\d+", "#").replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,6 +2,7 @@ package com.Smart_Study_Buddy.Spring_backend.service;
 
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.nio.file.Path;
 
 public interface StorageService {
 
@@ -15,6 +16,17 @@ public interface StorageService {
      */
     String uploadFile(MultipartFile file, String storagePath) throws IOException;
 
+    /**
+     * Store a file from local disk, streaming it rather than loading it
+     * 
+     * @param source      The file to store; it may be moved
+     * @param storagePath The path where the file should be stored
+     * @param contentType The file's media type
+     * @return A signed URL that can be used to download the file
+     * @throws IOException if the upload fails
+     */
+    String storeFile(Path source, String storagePath, String contentType) throws IOException;
+
     /**
      * Get a download URL for a file
      * 
@@ -22,4 +34,39 @@ public interface StorageService {
      * @return A signed URL that can be used to download the file
      */
     String getDownloadUrl(String filePath);
+
+    /**
+     * Read a whole file
+     * 
+     * @param filePath The path to the file in storage
+     * @return The file's bytes, or null if it does not exist
+     * @throws IOException if the download fails
+     */
+    byte[] downloadFile(String filePath) throws IOException;
+
+    /**
+     * Size of a file without reading it
+     * 
+     * @param filePath The path to the file in storage
+     * @return The size in bytes, or -1 if the file does not exist
+     * @throws IOException if the lookup fails
+     */
+    long getFileSize(String filePath) throws IOException;
+
+    /**
+     * Whether a client-supplied filename is safe as the last segment of a
+     * storage path: no separators, no "." or ".." and no control characters
+     */
+    static boolean isPlainFilename(String filename) {
+        if (filename == null || filename.isBlank() || filename.equals(".") || filename.equals("..")) {
+            return false;
+        }
+        for (int i = 0; i < filename.length(); i++) {
+            char c = filename.charAt(i);
+            if (c == '/' || c == '\\' || Character.isISOControl(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
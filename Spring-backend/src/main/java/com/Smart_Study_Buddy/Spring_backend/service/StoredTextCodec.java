@@ -0,0 +1,120 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.CompactTranscript;
+
+/**
+ * Binary encoding for large text fields stored in Firestore.
+ *
+ * Layout: [format version][payload type][deflate-compressed payload]. Text
+ * payloads are UTF-8; transcript payloads are columnar (all starts, all
+ * durations, then length-prefixed UTF-8 texts), which compresses better than
+ * interleaved entries.
+ */
+public final class StoredTextCodec {
+
+    public static final byte FORMAT_VERSION = 1;
+
+    private static final byte TYPE_TEXT = 1;
+    private static final byte TYPE_TRANSCRIPT = 2;
+
+    private StoredTextCodec() {
+    }
+
+    public static byte[] encodeText(String text) {
+        return encode(TYPE_TEXT, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decodeText(byte[] encoded) {
+        return new String(decode(TYPE_TEXT, encoded), StandardCharsets.UTF_8);
+    }
+
+    public static byte[] encodeTranscript(CompactTranscript transcript) {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(transcript.getTextLength() + transcript.size() * 20);
+        try (DataOutputStream out = new DataOutputStream(raw)) {
+            int size = transcript.size();
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeDouble(transcript.getStart(i));
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeDouble(transcript.getDuration(i));
+            }
+            for (int i = 0; i < size; i++) {
+                byte[] text = transcript.getText(i).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(text.length);
+                out.write(text);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return encode(TYPE_TRANSCRIPT, raw.toByteArray());
+    }
+
+    public static CompactTranscript decodeTranscript(byte[] encoded) {
+        byte[] raw = decode(TYPE_TRANSCRIPT, encoded);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw))) {
+            int size = in.readInt();
+            double[] starts = new double[size];
+            double[] durations = new double[size];
+            for (int i = 0; i < size; i++) {
+                starts[i] = in.readDouble();
+            }
+            for (int i = 0; i < size; i++) {
+                durations[i] = in.readDouble();
+            }
+            CompactTranscript.Builder builder = new CompactTranscript.Builder(size);
+            for (int i = 0; i < size; i++) {
+                byte[] text = new byte[in.readInt()];
+                in.readFully(text);
+                builder.add(new String(text, StandardCharsets.UTF_8), starts[i], durations[i]);
+            }
+            return builder.build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt transcript payload", e);
+        }
+    }
+
+    private static byte[] encode(byte type, byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 3 + 16);
+        out.write(FORMAT_VERSION);
+        out.write(type);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater)) {
+            deflate.write(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decode(byte expectedType, byte[] encoded) {
+        if (encoded == null || encoded.length < 2) {
+            throw new IllegalArgumentException("Encoded payload is too short");
+        }
+        if (encoded[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported stored text format version: " + encoded[0]);
+        }
+        if (encoded[1] != expectedType) {
+            throw new IllegalArgumentException("Unexpected payload type: " + encoded[1]);
+        }
+        try (InflaterInputStream inflate = new InflaterInputStream(
+                new ByteArrayInputStream(encoded, 2, encoded.length - 2))) {
+            return inflate.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt compressed payload", e);
+        }
+    }
+}
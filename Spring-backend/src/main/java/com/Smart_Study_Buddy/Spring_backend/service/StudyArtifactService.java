@@ -0,0 +1,231 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Generated summaries, flashcards and quizzes, stored per document under
+ * documents/{id}/artifacts/{kind} with recently used ones kept in memory.
+ *
+ * Each artifact records a digest of the text it was generated from and the
+ * prompt version and model that generated it. It is served only while all
+ * three still match, so it is regenerated exactly when the document's text
+ * or ai.artifacts.prompt-version / ai.artifacts.model change.
+ */
+@Service
+public class StudyArtifactService {
+
+    public enum Kind {
+        SUMMARY("summary", "/summarize"),
+        FLASHCARDS("flashcards", "/flashcards"),
+        QUIZ("quiz", "/generate-quiz");
+
+        private final String name;
+        private final String path;
+
+        Kind(String name, String path) {
+            this.name = name;
+            this.path = path;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Python AI endpoint that generates this kind
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * The kind with this name, or null
+         */
+        public static Kind fromName(String name) {
+            for (Kind kind : values()) {
+                if (kind.name.equals(name)) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    @Value("${ai.artifacts.prompt-version:1}")
+    private String promptVersion;
+
+    @Value("${ai.artifacts.model:gemini}")
+    private String model;
+
+    private final DocumentRepository documentRepository;
+    private final Map<String, Artifact> artifacts;
+    // documentId -> digest of the text last seen for it, to avoid rehashing the same text
+    private final Map<String, TextDigest> digests;
+
+    public StudyArtifactService(DocumentRepository documentRepository,
+            @Value("${ai.artifacts.cache-size:500}") int cacheSize) {
+        this.documentRepository = documentRepository;
+        this.artifacts = lruMap(cacheSize);
+        this.digests = lruMap(cacheSize);
+    }
+
+    /**
+     * The artifact of this kind generated from text with the current prompt
+     * version and model, or null if there is none
+     */
+    public Artifact get(String documentId, Kind kind, String text) throws ExecutionException, InterruptedException {
+        String sourceDigest = digest(documentId, text);
+        String key = key(documentId, kind);
+        Artifact artifact = artifacts.get(key);
+        if (artifact == null) {
+            artifact = load(documentId, kind);
+            if (artifact != null) {
+                artifacts.put(key, artifact);
+            }
+        }
+        return artifact != null && artifact.isCurrent(sourceDigest, promptVersion, model) ? artifact : null;
+    }
+
+    /**
+     * Keep a freshly generated artifact. A failed write is logged and
+     * the artifact is still served from memory.
+     */
+    public Artifact put(String documentId, Kind kind, String text, String content) {
+        Artifact artifact = new Artifact(content, digest(documentId, text), promptVersion, model,
+                sha256(content).substring(0, 32), System.currentTimeMillis());
+        artifacts.put(key(documentId, kind), artifact);
+        try {
+            documentRepository.saveArtifact(documentId, kind.getName(), content, artifact.sourceDigest,
+                    artifact.promptVersion, artifact.model, artifact.etag);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            System.err.println("⚠️ Failed to store " + kind.getName() + " for document " + documentId + ": "
+                    + e.getMessage());
+        }
+        return artifact;
+    }
+
+    /**
+     * Drop cached artifacts of a deleted document; the stored ones go with it
+     */
+    public void evict(String documentId) {
+        for (Kind kind : Kind.values()) {
+            artifacts.remove(key(documentId, kind));
+        }
+        digests.remove(documentId);
+    }
+
+    /**
+     * SHA-256 of the text, hex encoded
+     */
+    public String digest(String documentId, String text) {
+        TextDigest cached = digests.get(documentId);
+        // String caches its hash code, so this check is cheap for the text cache's instances
+        if (cached != null && cached.length == text.length() && cached.hash == text.hashCode()) {
+            return cached.digest;
+        }
+        String digest = sha256(text);
+        digests.put(documentId, new TextDigest(text.length(), text.hashCode(), digest));
+        return digest;
+    }
+
+    private Artifact load(String documentId, Kind kind) throws ExecutionException, InterruptedException {
+        Map<String, Object> data = documentRepository.getArtifact(documentId, kind.getName());
+        if (data == null || !(data.get("content") instanceof String content)) {
+            return null;
+        }
+        String etag = data.get("etag") instanceof String stored ? stored : sha256(content).substring(0, 32);
+        long generatedAt = data.get("generatedAt") instanceof Date date ? date.getTime() : 0L;
+        return new Artifact(content, (String) data.get("sourceDigest"), (String) data.get("promptVersion"),
+                (String) data.get("model"), etag, generatedAt);
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String key(String documentId, Kind kind) {
+        return documentId + "/" + kind.getName();
+    }
+
+    private static <V> Map<String, V> lruMap(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    public static class Artifact {
+        private final String content;
+        private final String sourceDigest;
+        private final String promptVersion;
+        private final String model;
+        private final String etag;
+        private final long generatedAt;
+
+        private Artifact(String content, String sourceDigest, String promptVersion, String model, String etag,
+                long generatedAt) {
+            this.content = content;
+            this.sourceDigest = sourceDigest;
+            this.promptVersion = promptVersion;
+            this.model = model;
+            this.etag = etag;
+            this.generatedAt = generatedAt;
+        }
+
+        private boolean isCurrent(String digest, String currentPromptVersion, String currentModel) {
+            return digest.equals(sourceDigest) && currentPromptVersion.equals(promptVersion)
+                    && currentModel.equals(model);
+        }
+
+        /**
+         * The AI service's JSON response body
+         */
+        public String getContent() {
+            return content;
+        }
+
+        /**
+         * Entity tag of the content, without quotes
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getGeneratedAt() {
+            return generatedAt;
+        }
+    }
+
+    private static class TextDigest {
+        private final int length;
+        private final int hash;
+        private final String digest;
+
+        private TextDigest(int length, int hash, String digest) {
+            this.length = length;
+            this.hash = hash;
+            this.digest = digest;
+        }
+    }
+}
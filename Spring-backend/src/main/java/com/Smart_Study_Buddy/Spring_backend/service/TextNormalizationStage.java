@@ -0,0 +1,54 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.List;
+
+/**
+ * One step of the text normalization pipeline. Stages are Spring beans picked
+ * up by TextNormalizer and run in the order named by
+ * text.normalization.stages, so a new stage only needs to be a component with
+ * a name and an entry in that list.
+ */
+public interface TextNormalizationStage {
+
+    /**
+     * Lines this close to the top or bottom of a page are header/footer candidates
+     */
+    int EDGE_LINES = 2;
+
+    String getName();
+
+    /**
+     * Start processing one document. The filter may keep state across pages;
+     * text lets a stage look at every page before the first one streams through.
+     */
+    PageFilter open(PagedText text);
+
+    interface PageFilter {
+        /**
+         * The lines to keep for one page, in order
+         */
+        List<String> page(int pageIndex, List<String> lines);
+    }
+
+    /**
+     * Whether line i is among the first or last EDGE_LINES non-blank lines of its page
+     */
+    static boolean[] edgeLines(List<String> lines) {
+        boolean[] edge = new boolean[lines.size()];
+        int marked = 0;
+        for (int i = 0; i < lines.size() && marked < EDGE_LINES; i++) {
+            if (!lines.get(i).isBlank()) {
+                edge[i] = true;
+                marked++;
+            }
+        }
+        marked = 0;
+        for (int i = lines.size() - 1; i >= 0 && marked < EDGE_LINES; i--) {
+            if (!lines.get(i).isBlank()) {
+                edge[i] = true;
+                marked++;
+            }
+        }
+        return edge;
+    }
+}
@@ -0,0 +1,142 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Compacts extracted PDF text once, before it is stored and sent to the AI
+ * service: page numbers, running headers and footers, hyphenated line breaks
+ * and redundant whitespace only cost tokens and storage.
+ *
+ * Pages stream through the configured stages one at a time, so only one
+ * page's lines exist besides the input and output. Bytes saved are counted
+ * per stage under text.normalization.saved.bytes.
+ */
+@Service
+public class TextNormalizer {
+
+    @Value("${text.normalization.enabled:true}")
+    private boolean enabled;
+
+    private final List<TextNormalizationStage> stages = new ArrayList<>();
+    private final Counter documents;
+    private final Counter inputBytes;
+    private final Counter outputBytes;
+    private final List<Counter> savedBytes = new ArrayList<>();
+
+    public TextNormalizer(List<TextNormalizationStage> available, MeterRegistry meterRegistry,
+            @Value("${text.normalization.stages:page-numbers,repeated-lines,dehyphenate,whitespace}") String[] names) {
+        Map<String, TextNormalizationStage> byName = new HashMap<>();
+        for (TextNormalizationStage stage : available) {
+            byName.put(stage.getName(), stage);
+        }
+        for (String name : names) {
+            TextNormalizationStage stage = byName.get(name.trim());
+            if (stage == null) {
+                throw new IllegalArgumentException("Unknown text normalization stage: " + name
+                        + " (available: " + byName.keySet() + ")");
+            }
+            stages.add(stage);
+            savedBytes.add(Counter.builder("text.normalization.saved.bytes")
+                    .description("UTF-8 bytes removed from extracted text")
+                    .tag("stage", stage.getName())
+                    .register(meterRegistry));
+        }
+
+        this.documents = Counter.builder("text.normalization.documents")
+                .description("Documents normalized after extraction")
+                .register(meterRegistry);
+        this.inputBytes = Counter.builder("text.normalization.input.bytes")
+                .description("UTF-8 bytes of extracted text before normalization")
+                .register(meterRegistry);
+        this.outputBytes = Counter.builder("text.normalization.output.bytes")
+                .description("UTF-8 bytes of extracted text after normalization")
+                .register(meterRegistry);
+    }
+
+    public String normalize(String text) {
+        if (!enabled || text == null || text.isEmpty()) {
+            return text;
+        }
+
+        PagedText paged = PagedText.of(text);
+        List<TextNormalizationStage.PageFilter> filters = new ArrayList<>(stages.size());
+        for (TextNormalizationStage stage : stages) {
+            filters.add(stage.open(paged));
+        }
+
+        long[] saved = new long[filters.size()];
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int page = 0; page < paged.pageCount(); page++) {
+            List<String> lines = paged.lines(page);
+            long size = utf8Length(lines);
+            for (int i = 0; i < filters.size(); i++) {
+                lines = filters.get(i).page(page, lines);
+                long after = utf8Length(lines);
+                saved[i] += size - after;
+                size = after;
+            }
+            if (lines.isEmpty()) {
+                continue;
+            }
+            // Pages are separated by a blank line
+            if (normalized.length() > 0) {
+                normalized.append("\n\n");
+            }
+            for (int i = 0; i < lines.size(); i++) {
+                if (i > 0) {
+                    normalized.append('\n');
+                }
+                normalized.append(lines.get(i));
+            }
+        }
+        String result = normalized.toString();
+
+        long before = utf8Length(text);
+        long after = utf8Length(result);
+        documents.increment();
+        inputBytes.increment(before);
+        outputBytes.increment(after);
+        for (int i = 0; i < saved.length; i++) {
+            savedBytes.get(i).increment(Math.max(saved[i], 0));
+        }
+        System.out.println("🧹 Normalized text: " + before + " → " + after + " bytes ("
+                + (before == 0 ? 0 : (before - after) * 100 / before) + "% saved, " + paged.pageCount() + " pages)");
+        return result;
+    }
+
+    private static long utf8Length(List<String> lines) {
+        long length = 0;
+        for (String line : lines) {
+            length += utf8Length(line);
+        }
+        return length;
+    }
+
+    static long utf8Length(CharSequence text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
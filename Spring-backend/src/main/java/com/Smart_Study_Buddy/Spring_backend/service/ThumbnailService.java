@@ -0,0 +1,191 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * First-page thumbnails of PDF documents, so listings show a few KB per
+ * document instead of loading whole PDFs.
+ *
+ * A thumbnail is rendered in the background after upload and stored next to
+ * the file as {storagePath}.thumb.jpg; the document records its path.
+ * Documents uploaded before thumbnails existed get one the first time they
+ * are listed. A file that cannot be rendered, such as a corrupt or encrypted
+ * PDF, is marked on its document and not tried again. Recently served
+ * thumbnails are kept in memory.
+ */
+@Service
+public class ThumbnailService {
+
+    // Thumbnails are at most this many times as tall as they are wide
+    private static final int MAX_ASPECT = 2;
+
+    private final StorageService storageService;
+    private final DocumentRepository documentRepository;
+    private final FileProcessingBudget fileProcessingBudget;
+    private final int width;
+    private final Map<String, byte[]> thumbnails;
+    // Documents with a rendering queued or running, so each is rendered once
+    private final Set<String> rendering = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "thumbnails");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ThumbnailService(StorageService storageService, DocumentRepository documentRepository,
+            FileProcessingBudget fileProcessingBudget,
+            @Value("${thumbnails.width:240}") int width,
+            @Value("${thumbnails.cache-size:500}") int cacheSize) {
+        this.storageService = storageService;
+        this.documentRepository = documentRepository;
+        this.fileProcessingBudget = fileProcessingBudget;
+        this.width = width;
+        this.thumbnails = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public static boolean isPdf(String filename) {
+        return filename != null && filename.toLowerCase().endsWith(".pdf");
+    }
+
+    public static String thumbnailPath(String storagePath) {
+        return storagePath + ".thumb.jpg";
+    }
+
+    /**
+     * Whether a document is a PDF whose thumbnail was neither stored nor
+     * found impossible to render
+     */
+    public static boolean needsThumbnail(Map<String, Object> doc) {
+        return doc.get("thumbnailPath") == null && !Boolean.TRUE.equals(doc.get("thumbnailFailed"))
+                && doc.get("storagePath") instanceof String storagePath && isPdf(storagePath);
+    }
+
+    /**
+     * Render and store the thumbnail of a document's file in the background
+     */
+    public void generateInBackground(String documentId, String storagePath) {
+        if (!rendering.add(documentId)) {
+            return;
+        }
+        executor.submit(() -> {
+            try {
+                generate(documentId, storagePath);
+            } catch (Exception e) {
+                System.err.println("⚠️ Failed to render thumbnail of " + documentId + ": " + e.getMessage());
+            } finally {
+                rendering.remove(documentId);
+            }
+        });
+    }
+
+    /**
+     * JPEG bytes of a stored thumbnail, or null if it does not exist
+     */
+    public byte[] get(String thumbnailPath) throws IOException {
+        byte[] thumbnail = thumbnails.get(thumbnailPath);
+        if (thumbnail == null) {
+            thumbnail = storageService.downloadFile(thumbnailPath);
+            if (thumbnail != null) {
+                thumbnails.put(thumbnailPath, thumbnail);
+            }
+        }
+        return thumbnail;
+    }
+
+    private void generate(String documentId, String storagePath) throws Exception {
+        String thumbnailPath = thumbnailPath(storagePath);
+        // Files shared through deduplication already have one
+        if (storageService.getFileSize(thumbnailPath) < 0) {
+            long size = storageService.getFileSize(storagePath);
+            if (size < 0) {
+                return;
+            }
+            byte[] thumbnail;
+            try (FileProcessingBudget.Reservation reservation = fileProcessingBudget.reserve(size)) {
+                if (reservation == null) {
+                    System.out.println("🖼️ Skipped thumbnail of " + documentId + " while the server is busy");
+                    return;
+                }
+                byte[] pdf = storageService.downloadFile(storagePath);
+                if (pdf == null) {
+                    return;
+                }
+                try {
+                    thumbnail = render(pdf);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("⚠️ Cannot render thumbnail of " + documentId + ": " + e.getMessage());
+                    thumbnail = null;
+                }
+            }
+            if (thumbnail == null) {
+                // Rendering the same file again would fail the same way
+                documentRepository.markThumbnailFailed(documentId);
+                return;
+            }
+
+            Path temp = Files.createTempFile("thumbnail", ".jpg");
+            try {
+                Files.write(temp, thumbnail);
+                storageService.storeFile(temp, thumbnailPath, "image/jpeg");
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            thumbnails.put(thumbnailPath, thumbnail);
+        }
+
+        documentRepository.updateDocumentThumbnail(documentId, thumbnailPath);
+        System.out.println("🖼️ Stored thumbnail of document " + documentId);
+    }
+
+    private byte[] render(byte[] pdf) throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdf)) {
+            if (document.getNumberOfPages() == 0) {
+                return null;
+            }
+            PDRectangle cropBox = document.getPage(0).getCropBox();
+            if (cropBox.getWidth() <= 0 || cropBox.getHeight() <= 0) {
+                return null;
+            }
+            // At most width wide and MAX_ASPECT times that tall, however small the page is
+            float scale = Math.min(width / cropBox.getWidth(), MAX_ASPECT * width / cropBox.getHeight());
+            BufferedImage image = new PDFRenderer(document).renderImage(0, scale, ImageType.RGB);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "jpg", out);
+            return out.toByteArray();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
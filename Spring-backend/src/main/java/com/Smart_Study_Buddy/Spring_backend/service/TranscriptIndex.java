@@ -0,0 +1,156 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.CompactTranscript;
+
+/**
+ * Interval index over time ranges ordered by start time, as caption entries
+ * and transcript chunks are. A prefix maximum of end times makes "first
+ * interval that can still overlap t" a binary search even when captions
+ * overlap each other, which auto-generated captions routinely do.
+ */
+public class TranscriptIndex {
+
+    private final double[] starts;
+    private final double[] ends;
+    // maxEnds[i] = max(ends[0..i]), non-decreasing
+    private final double[] maxEnds;
+
+    private TranscriptIndex(double[] starts, double[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnds = new double[ends.length];
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < ends.length; i++) {
+            max = Math.max(max, ends[i]);
+            maxEnds[i] = max;
+        }
+    }
+
+    public static TranscriptIndex of(CompactTranscript transcript) {
+        int size = transcript.size();
+        double[] starts = new double[size];
+        double[] ends = new double[size];
+        for (int i = 0; i < size; i++) {
+            starts[i] = transcript.getStart(i);
+            ends[i] = starts[i] + transcript.getDuration(i);
+        }
+        return new TranscriptIndex(starts, ends);
+    }
+
+    /**
+     * Rebuild an index from the start/end lists persisted in Firestore
+     */
+    public static TranscriptIndex fromLists(List<?> starts, List<?> ends) {
+        if (starts == null || ends == null || starts.size() != ends.size()) {
+            return null;
+        }
+        double[] startArray = new double[starts.size()];
+        double[] endArray = new double[ends.size()];
+        for (int i = 0; i < startArray.length; i++) {
+            startArray[i] = ((Number) starts.get(i)).doubleValue();
+            endArray[i] = ((Number) ends.get(i)).doubleValue();
+        }
+        return new TranscriptIndex(startArray, endArray);
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    public List<Double> getStarts() {
+        return toList(starts);
+    }
+
+    public List<Double> getEnds() {
+        return toList(ends);
+    }
+
+    /**
+     * Positions of all intervals overlapping the closed window [from, to], in
+     * start order
+     */
+    public int[] overlapping(double from, double to) {
+        int lo = firstWithMaxEndAtLeast(from);
+        int hi = firstWithStartAfter(to);
+        int[] matches = new int[Math.max(hi - lo, 0)];
+        int count = 0;
+        for (int i = lo; i < hi; i++) {
+            if (ends[i] >= from) {
+                matches[count++] = i;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    private int firstWithMaxEndAtLeast(double time) {
+        int lo = 0;
+        int hi = maxEnds.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxEnds[mid] >= time) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    private int firstWithStartAfter(double time) {
+        int lo = 0;
+        int hi = starts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] > time) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    private static List<Double> toList(double[] values) {
+        List<Double> list = new ArrayList<>(values.length);
+        for (double value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    /**
+     * Accumulates one interval per transcript chunk during streaming ingestion
+     */
+    public static class Builder {
+        private double[] starts = new double[16];
+        private double[] ends = new double[16];
+        private int size;
+
+        public Builder addChunk(CompactTranscript chunk) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            double maxEnd = 0.0;
+            for (int i = 0; i < chunk.size(); i++) {
+                maxEnd = Math.max(maxEnd, chunk.getStart(i) + chunk.getDuration(i));
+            }
+            starts[size] = chunk.isEmpty() ? 0.0 : chunk.getStart(0);
+            ends[size] = maxEnd;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public TranscriptIndex build() {
+            return new TranscriptIndex(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.CompactTranscript;
+
+/**
+ * Serves the captions of a YouTube document that fall inside a time window.
+ *
+ * Each document's chunk-level index (plus its owner, for the access check) is
+ * cached after the first lookup or right after ingestion, so a seek reads only
+ * the one or two transcript chunks that overlap the window. Decoded chunks are
+ * cached too, since players tend to seek around the same region; chunks of a
+ * shared transcript are cached once for every user who added that video.
+ */
+@Service
+public class TranscriptWindowService {
+
+    private final DocumentRepository documentRepository;
+    private final Map<String, CachedIndex> indexCache;
+    private final Map<String, CachedChunk> chunkCache;
+
+    public TranscriptWindowService(DocumentRepository documentRepository,
+            @Value("${youtube.transcript.index-cache-size:1000}") int indexCacheSize,
+            @Value("${youtube.transcript.chunk-cache-size:200}") int chunkCacheSize) {
+        this.documentRepository = documentRepository;
+        this.indexCache = lruMap(indexCacheSize);
+        this.chunkCache = lruMap(chunkCacheSize);
+    }
+
+    /**
+     * Captions overlapping [from, to] in start order, or null if the document
+     * does not exist or is not a video owned by userId
+     */
+    public CompactTranscript getWindow(String documentId, String userId, double from, double to)
+            throws ExecutionException, InterruptedException {
+        CachedIndex cached = indexFor(documentId);
+        if (cached == null || !cached.userId.equals(userId)) {
+            return null;
+        }
+
+        int[] chunkPositions = cached.chunkIndex.overlapping(from, to);
+        if (chunkPositions.length == 1) {
+            return loadChunk(documentId, chunkPositions[0], cached).window(from, to);
+        }
+
+        CompactTranscript.Builder window = new CompactTranscript.Builder();
+        for (int position : chunkPositions) {
+            CompactTranscript entries = loadChunk(documentId, position, cached).window(from, to);
+            for (int i = 0; i < entries.size(); i++) {
+                window.add(entries.getText(i), entries.getStart(i), entries.getDuration(i));
+            }
+        }
+        return window.build();
+    }
+
+    /**
+     * Every caption of the video, or null under the same conditions as
+     * getWindow. Chunks already cached are reused, but chunks read here are
+     * not cached: one full read would push out the chunks players seek in.
+     */
+    public CompactTranscript getTranscript(String documentId, String userId)
+            throws ExecutionException, InterruptedException {
+        CachedIndex cached = indexFor(documentId);
+        if (cached == null || !cached.userId.equals(userId)) {
+            return null;
+        }
+        if (cached.inline != null) {
+            return cached.inline.entries;
+        }
+
+        CompactTranscript.Builder transcript = new CompactTranscript.Builder();
+        for (int position = 0; position < cached.chunkIndex.size(); position++) {
+            CachedChunk hot = chunkCache.get(chunkKey(cached, documentId, position));
+            CompactTranscript entries = hot != null ? hot.entries : readChunk(documentId, position, cached);
+            for (int i = 0; i < entries.size(); i++) {
+                transcript.add(entries.getText(i), entries.getStart(i), entries.getDuration(i));
+            }
+        }
+        return transcript.build();
+    }
+
+    /**
+     * Prime the cache with the index built during ingestion
+     */
+    public void cacheIndex(String documentId, String userId, String transcriptId, String generation,
+            TranscriptIndex chunkIndex) {
+        indexCache.put(documentId, new CachedIndex(userId, transcriptId, generation, chunkIndex, null));
+    }
+
+    public void evict(String documentId) {
+        CachedIndex removed = indexCache.remove(documentId);
+        // Shared transcript chunks may still serve other users' documents
+        if (removed != null && removed.transcriptId == null) {
+            for (int i = 0; i < removed.chunkIndex.size(); i++) {
+                chunkCache.remove(chunkKey(removed, documentId, i));
+            }
+        }
+    }
+
+    private CachedIndex indexFor(String documentId) throws ExecutionException, InterruptedException {
+        CachedIndex cached = indexCache.get(documentId);
+        if (cached == null) {
+            cached = loadIndex(documentId);
+            if (cached != null) {
+                indexCache.put(documentId, cached);
+            }
+        }
+        return cached;
+    }
+
+    private CachedIndex loadIndex(String documentId) throws ExecutionException, InterruptedException {
+        Map<String, Object> doc = documentRepository.getDocument(documentId);
+        if (doc == null || !"youtube".equals(doc.get("type")) || !(doc.get("userId") instanceof String owner)) {
+            return null;
+        }
+
+        if (doc.get("transcriptId") instanceof String transcriptId) {
+            Map<String, Object> shared = documentRepository.getSharedTranscript(transcriptId);
+            TranscriptIndex chunkIndex = shared == null ? null : TranscriptIndex.fromLists(
+                    (List<?>) shared.get("transcriptChunkStarts"),
+                    (List<?>) shared.get("transcriptChunkEnds"));
+            return chunkIndex == null ? null
+                    : new CachedIndex(owner, transcriptId, generation(shared), chunkIndex, null);
+        }
+
+        // Videos saved before chunking keep the whole transcript inline
+        if (doc.get("transcript") instanceof List<?> inline) {
+            CompactTranscript transcript = CompactTranscript.fromMaps(inline);
+            CachedChunk chunk = new CachedChunk(transcript);
+            TranscriptIndex.Builder single = new TranscriptIndex.Builder();
+            if (!transcript.isEmpty()) {
+                single.addChunk(transcript);
+            }
+            return new CachedIndex(owner, null, null, single.build(), chunk);
+        }
+
+        TranscriptIndex chunkIndex = TranscriptIndex.fromLists(
+                (List<?>) doc.get("transcriptChunkStarts"),
+                (List<?>) doc.get("transcriptChunkEnds"));
+        if (chunkIndex == null) {
+            // Chunked before the index was persisted: read every chunk once to rebuild it
+            int chunkCount = doc.get("transcriptChunkCount") instanceof Number n ? n.intValue() : 0;
+            TranscriptIndex.Builder builder = new TranscriptIndex.Builder();
+            for (int i = 0; i < chunkCount; i++) {
+                CompactTranscript chunk = documentRepository.getDocumentTranscriptChunk(documentId, i);
+                builder.addChunk(chunk != null ? chunk : CompactTranscript.empty());
+            }
+            chunkIndex = builder.build();
+        }
+        return new CachedIndex(owner, null, null, chunkIndex, null);
+    }
+
+    private CachedChunk loadChunk(String documentId, int position, CachedIndex index)
+            throws ExecutionException, InterruptedException {
+        if (index.inline != null) {
+            return index.inline;
+        }
+
+        String key = chunkKey(index, documentId, position);
+        CachedChunk cached = chunkCache.get(key);
+        if (cached == null) {
+            cached = new CachedChunk(readChunk(documentId, position, index));
+            chunkCache.put(key, cached);
+        }
+        return cached;
+    }
+
+    private CompactTranscript readChunk(String documentId, int position, CachedIndex index)
+            throws ExecutionException, InterruptedException {
+        CompactTranscript chunk = index.transcriptId != null
+                ? documentRepository.getTranscriptChunk(index.transcriptId, index.generation, position)
+                : documentRepository.getDocumentTranscriptChunk(documentId, position);
+        return chunk != null ? chunk : CompactTranscript.empty();
+    }
+
+    private static String chunkKey(CachedIndex index, String documentId, int position) {
+        return index.transcriptId != null
+                ? "transcripts/" + index.transcriptId + "/" + index.generation + "#" + position
+                : "documents/" + documentId + "#" + position;
+    }
+
+    /**
+     * Generation of the chunks a shared transcript record points at; null
+     * for transcripts stored before generations
+     */
+    static String generation(Map<String, Object> sharedTranscript) {
+        return sharedTranscript.get("transcriptGeneration") instanceof String generation ? generation : null;
+    }
+
+    private static <V> Map<String, V> lruMap(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    private static class CachedIndex {
+        private final String userId;
+        // Null for videos whose chunks are stored under the user's document
+        private final String transcriptId;
+        // Null for shared transcripts stored before generations
+        private final String generation;
+        private final TranscriptIndex chunkIndex;
+        // Only set for legacy documents with an inline transcript
+        private final CachedChunk inline;
+
+        private CachedIndex(String userId, String transcriptId, String generation, TranscriptIndex chunkIndex,
+                CachedChunk inline) {
+            this.userId = userId;
+            this.transcriptId = transcriptId;
+            this.generation = generation;
+            this.chunkIndex = chunkIndex;
+            this.inline = inline;
+        }
+    }
+
+    private static class CachedChunk {
+        private final CompactTranscript entries;
+        private final TranscriptIndex entryIndex;
+
+        private CachedChunk(CompactTranscript entries) {
+            this.entries = entries;
+            this.entryIndex = TranscriptIndex.of(entries);
+        }
+
+        private CompactTranscript window(double from, double to) {
+            return entries.select(entryIndex.overlapping(from, to));
+        }
+    }
+}
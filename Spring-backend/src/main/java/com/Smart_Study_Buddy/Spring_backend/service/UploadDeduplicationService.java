@@ -0,0 +1,83 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Content hashes of uploaded files, so uploading the same file again costs a
+ * lookup instead of a storage write and a new document.
+ *
+ * A user who uploads content they already have gets their existing document
+ * back. With upload.dedup.shared-blobs, content another user already stored
+ * is not written again either: the new document points at the same stored
+ * file. Stored files are never deleted with their documents, so a shared
+ * file outlives any one of them.
+ */
+@Service
+public class UploadDeduplicationService {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final DocumentRepository documentRepository;
+
+    @Value("${upload.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${upload.dedup.shared-blobs:false}")
+    private boolean sharedBlobs;
+
+    public UploadDeduplicationService(DocumentRepository documentRepository) {
+        this.documentRepository = documentRepository;
+    }
+
+    /**
+     * SHA-256 of everything in, in hex. The stream is read to the end but
+     * not closed.
+     */
+    public String hash(InputStream in) throws IOException {
+        MessageDigest sha = sha256();
+        byte[] buffer = new byte[BUFFER_BYTES];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            sha.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /**
+     * The user's document with this content, or null if they have none or
+     * deduplication is off
+     */
+    public Map<String, Object> findOwn(String userId, String contentHash)
+            throws ExecutionException, InterruptedException {
+        return enabled ? documentRepository.findDocumentByContentHash(userId, contentHash) : null;
+    }
+
+    /**
+     * Storage path of this content stored for any user, or null if it has to
+     * be stored
+     */
+    public String findSharedStoragePath(String contentHash) throws ExecutionException, InterruptedException {
+        if (!enabled || !sharedBlobs) {
+            return null;
+        }
+        Map<String, Object> document = documentRepository.findDocumentByContentHash(null, contentHash);
+        return document != null ? (String) document.get("storagePath") : null;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Resumable uploads for files too large or connections too flaky for a
+ * single multipart request.
+ *
+ * A session owns a spool file of the announced size. Chunks may arrive in
+ * any order and in parallel; each is streamed from the request straight to
+ * its offset in the file, so no chunk is gathered on the heap. Resending a
+ * chunk overwrites the same bytes, and the session reports which ranges are
+ * still missing, so a client that lost its connection resends only those.
+ * Sessions without activity are dropped after upload.session.retention-minutes.
+ *
+ * Open sessions are capped per user and in total, and a session holds no
+ * file handle between chunks. Chunks write under a shared lock that
+ * complete() and cancel() take exclusively, so a late chunk finds the
+ * session finished instead of a closed file.
+ */
+@Service
+public class UploadSessionService {
+
+    @Value("${upload.max-bytes:209715200}")
+    private long maxBytes;
+
+    @Value("${upload.chunk-bytes:8388608}")
+    private long chunkBytes;
+
+    @Value("${upload.max-chunk-bytes:16777216}")
+    private long maxChunkBytes;
+
+    @Value("${upload.session.retention-minutes:1440}")
+    private long retentionMinutes;
+
+    @Value("${upload.session.max-per-user:5}")
+    private int maxSessionsPerUser;
+
+    @Value("${upload.session.max-total:200}")
+    private int maxSessions;
+
+    private final Path directory;
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public UploadSessionService(@Value("${upload.session.dir:data/uploads}") String directory) throws IOException {
+        this.directory = Path.of(directory).toAbsolutePath();
+        Files.createDirectories(this.directory);
+    }
+
+    public UploadSession create(String userId, String filename, long size, String contentType) throws IOException {
+        if (size <= 0 || size > maxBytes) {
+            throw new IllegalArgumentException("File size must be between 1 byte and " + maxBytes + " bytes");
+        }
+        if (!StorageService.isPlainFilename(filename)) {
+            throw new IllegalArgumentException("Invalid filename");
+        }
+        purgeExpiredSessions();
+
+        String id = UUID.randomUUID().toString();
+        Path spool = directory.resolve(id + ".part");
+        UploadSession session = new UploadSession(id, userId, filename, size,
+                contentType != null ? contentType : "application/octet-stream", spool);
+        // Checked and registered together so concurrent creates cannot overshoot the caps
+        synchronized (sessions) {
+            if (sessions.size() >= maxSessions) {
+                throw new TooManyUploadsException("Too many uploads are in progress, please try again later");
+            }
+            long own = sessions.values().stream().filter(other -> other.userId.equals(userId)).count();
+            if (own >= maxSessionsPerUser) {
+                throw new TooManyUploadsException("You already have " + own
+                        + " uploads in progress; finish or cancel one first");
+            }
+            Files.createFile(spool);
+            sessions.put(id, session);
+        }
+        System.out.println("📤 Upload " + id + " started: " + filename + " (" + size + " bytes)");
+        return session;
+    }
+
+    /**
+     * The session with this id if it belongs to userId
+     */
+    public UploadSession get(String uploadId, String userId) {
+        UploadSession session = sessions.get(uploadId);
+        return session != null && session.userId.equals(userId) ? session : null;
+    }
+
+    /**
+     * Write length bytes of body at offset. The range counts as received only
+     * once all of it is on disk.
+     *
+     * @throws IllegalStateException if the session was completed or cancelled
+     */
+    public void writeChunk(UploadSession session, long offset, long length, InputStream body) throws IOException {
+        if (length <= 0 || length > maxChunkBytes) {
+            throw new IllegalArgumentException("Chunks must be between 1 byte and " + maxChunkBytes + " bytes");
+        }
+        if (offset < 0 || offset + length > session.size) {
+            throw new IllegalArgumentException("Chunk at " + offset + " with " + length
+                    + " bytes is outside the file of " + session.size + " bytes");
+        }
+
+        session.lock.readLock().lock();
+        try {
+            if (session.finished) {
+                throw new IllegalStateException("Upload " + session.id + " is already finished");
+            }
+            session.touch();
+            ReadableByteChannel in = Channels.newChannel(body);
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(session.spool, StandardOpenOption.WRITE)) {
+                while (written < length) {
+                    // Positional writes, so parallel chunks do not contend for a file position
+                    long transferred = channel.transferFrom(in, offset + written, length - written);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    written += transferred;
+                }
+            }
+            if (written < length) {
+                throw new IllegalArgumentException("Chunk ended after " + written + " of " + length + " bytes");
+            }
+            session.received(offset, offset + length);
+        } finally {
+            session.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * End a fully received session and hand over its file; the caller stores
+     * it and deletes what is left
+     */
+    public Path complete(UploadSession session) {
+        session.lock.writeLock().lock();
+        try {
+            if (session.finished) {
+                throw new IllegalStateException("Upload " + session.id + " is already finished");
+            }
+            if (!session.isComplete()) {
+                throw new IllegalStateException("Upload is missing " + (session.size - session.getReceivedBytes())
+                        + " bytes");
+            }
+            session.finished = true;
+            sessions.remove(session.id);
+            return session.spool;
+        } finally {
+            session.lock.writeLock().unlock();
+        }
+    }
+
+    public void cancel(UploadSession session) {
+        sessions.remove(session.id);
+        discard(session);
+    }
+
+    public long getChunkBytes() {
+        return chunkBytes;
+    }
+
+    public long getMaxChunkBytes() {
+        return maxChunkBytes;
+    }
+
+    private void purgeExpiredSessions() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+        sessions.values().removeIf(session -> {
+            if (session.lastActivityAt >= cutoff) {
+                return false;
+            }
+            System.out.println("🧹 Dropping abandoned upload " + session.id);
+            discard(session);
+            return true;
+        });
+    }
+
+    private static void discard(UploadSession session) {
+        // Waits for chunks being written; later ones find the session finished
+        session.lock.writeLock().lock();
+        try {
+            if (session.finished) {
+                return;
+            }
+            session.finished = true;
+            Files.deleteIfExists(session.spool);
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to delete upload " + session.id + ": " + e.getMessage());
+        } finally {
+            session.lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (UploadSession session : sessions.values()) {
+            discard(session);
+        }
+        sessions.clear();
+    }
+
+    public static class UploadSession {
+        private final String id;
+        private final String userId;
+        private final String filename;
+        private final long size;
+        private final String contentType;
+        private final Path spool;
+        // Shared by chunk writes, exclusive for complete() and discard()
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private boolean finished;
+        // Received ranges as start -> end (exclusive), merged and disjoint
+        private final TreeMap<Long, Long> ranges = new TreeMap<>();
+        private long receivedBytes;
+        private volatile long lastActivityAt = System.currentTimeMillis();
+
+        private UploadSession(String id, String userId, String filename, long size, String contentType,
+                Path spool) {
+            this.id = id;
+            this.userId = userId;
+            this.filename = filename;
+            this.size = size;
+            this.contentType = contentType;
+            this.spool = spool;
+        }
+
+        private void touch() {
+            lastActivityAt = System.currentTimeMillis();
+        }
+
+        private synchronized void received(long start, long end) {
+            Map.Entry<Long, Long> before = ranges.floorEntry(start);
+            if (before != null && before.getValue() >= start) {
+                start = before.getKey();
+                end = Math.max(end, before.getValue());
+            }
+            // Absorb every range that starts inside the new one
+            Map.Entry<Long, Long> next = ranges.ceilingEntry(start);
+            while (next != null && next.getKey() <= end) {
+                end = Math.max(end, next.getValue());
+                ranges.remove(next.getKey());
+                next = ranges.ceilingEntry(start);
+            }
+            ranges.put(start, end);
+
+            long total = 0;
+            for (Map.Entry<Long, Long> range : ranges.entrySet()) {
+                total += range.getValue() - range.getKey();
+            }
+            receivedBytes = total;
+            touch();
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public synchronized long getReceivedBytes() {
+            return receivedBytes;
+        }
+
+        public synchronized boolean isComplete() {
+            return receivedBytes == size;
+        }
+
+        /**
+         * Byte ranges not received yet, as [start, end) pairs
+         */
+        public synchronized List<long[]> getMissing() {
+            List<long[]> missing = new ArrayList<>();
+            long position = 0;
+            for (Map.Entry<Long, Long> range : ranges.entrySet()) {
+                if (range.getKey() > position) {
+                    missing.add(new long[] { position, range.getKey() });
+                }
+                position = range.getValue();
+            }
+            if (position < size) {
+                missing.add(new long[] { position, size });
+            }
+            return missing;
+        }
+    }
+
+    /**
+     * Thrown when a user or the server has too many uploads open
+     */
+    public static class TooManyUploadsException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private TooManyUploadsException(String message) {
+            super(message);
+        }
+    }
+}
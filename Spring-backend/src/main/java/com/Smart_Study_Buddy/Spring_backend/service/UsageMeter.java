@@ -0,0 +1,150 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Per-user usage counters: AI calls, uploaded bytes and extracted pages.
+ *
+ * Recording only adds to in-memory counters, so the request path never waits
+ * on storage. The counts are added to the stored totals every
+ * usage.flush-interval-millis, in batched writes, and once more on shutdown.
+ * A failed flush keeps the counts for the next one. Users whose counters were
+ * drained are dropped, so only users active since the last flush take memory.
+ */
+@Service
+public class UsageMeter {
+
+    public enum Metric {
+        AI_CALLS("aiCalls"),
+        UPLOADED_BYTES("uploadedBytes"),
+        EXTRACTED_PAGES("extractedPages");
+
+        private final String name;
+
+        Metric(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static final Metric[] METRICS = Metric.values();
+
+    private final DocumentRepository documentRepository;
+    // userId -> one adder per metric, counts not flushed yet
+    private final Map<String, LongAdder[]> pending = new ConcurrentHashMap<>();
+
+    public UsageMeter(DocumentRepository documentRepository) {
+        this.documentRepository = documentRepository;
+    }
+
+    public void record(String userId, Metric metric, long amount) {
+        if (userId == null || userId.isEmpty() || amount <= 0) {
+            return;
+        }
+        add(userId, metric, amount);
+    }
+
+    /**
+     * Stored totals of a user plus what was recorded since the last flush
+     */
+    public Map<String, Object> getUsage(String userId) throws ExecutionException, InterruptedException {
+        Map<String, Object> usage = documentRepository.getUsage(userId);
+        LongAdder[] adders = pending.get(userId);
+        for (Metric metric : METRICS) {
+            long stored = usage.get(metric.getName()) instanceof Number number ? number.longValue() : 0;
+            long unflushed = adders != null ? adders[metric.ordinal()].sum() : 0;
+            usage.put(metric.getName(), stored + unflushed);
+        }
+        return usage;
+    }
+
+    @Scheduled(fixedDelayString = "${usage.flush-interval-millis:60000}",
+            initialDelayString = "${usage.flush-interval-millis:60000}")
+    public synchronized void flush() {
+        Map<String, Map<String, Long>> deltas = new HashMap<>();
+        Map<String, long[]> taken = new HashMap<>();
+        for (Map.Entry<String, LongAdder[]> user : pending.entrySet()) {
+            long[] amounts = new long[METRICS.length];
+            Map<String, Long> counters = new HashMap<>();
+            for (Metric metric : METRICS) {
+                LongAdder adder = user.getValue()[metric.ordinal()];
+                // Subtract what was read rather than reset, so concurrent adds are never lost
+                long amount = adder.sum();
+                if (amount != 0) {
+                    adder.add(-amount);
+                    amounts[metric.ordinal()] = amount;
+                    counters.put(metric.getName(), amount);
+                }
+            }
+            if (!counters.isEmpty()) {
+                deltas.put(user.getKey(), counters);
+                taken.put(user.getKey(), amounts);
+            }
+            // Atomic with record, so an add cannot land in counters that were just dropped
+            pending.computeIfPresent(user.getKey(), (userId, adders) -> isDrained(adders) ? null : adders);
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            documentRepository.incrementUsage(deltas);
+            System.out.println("📊 Flushed usage of " + deltas.size() + " users");
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to flush usage, keeping it for the next flush: " + e.getMessage());
+            taken.forEach((userId, amounts) -> {
+                for (Metric metric : METRICS) {
+                    add(userId, metric, amounts[metric.ordinal()]);
+                }
+            });
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void add(String userId, Metric metric, long amount) {
+        if (amount == 0) {
+            return;
+        }
+        pending.compute(userId, (key, adders) -> {
+            LongAdder[] counters = adders != null ? adders : newAdders();
+            counters[metric.ordinal()].add(amount);
+            return counters;
+        });
+    }
+
+    private static boolean isDrained(LongAdder[] adders) {
+        for (LongAdder adder : adders) {
+            if (adder.sum() != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[METRICS.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
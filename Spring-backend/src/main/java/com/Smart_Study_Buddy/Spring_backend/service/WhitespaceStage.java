@@ -0,0 +1,61 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Collapses runs of spaces and tabs, trims lines and keeps at most one blank
+ * line in a row, dropping blank lines at the edges of a page.
+ */
+@Component
+public class WhitespaceStage implements TextNormalizationStage {
+
+    @Override
+    public String getName() {
+        return "whitespace";
+    }
+
+    @Override
+    public PageFilter open(PagedText text) {
+        return (pageIndex, lines) -> {
+            List<String> kept = new ArrayList<>(lines.size());
+            boolean previousBlank = true;
+            for (String line : lines) {
+                String collapsed = collapse(line);
+                if (collapsed.isEmpty()) {
+                    if (!previousBlank) {
+                        kept.add(collapsed);
+                    }
+                    previousBlank = true;
+                } else {
+                    kept.add(collapsed);
+                    previousBlank = false;
+                }
+            }
+            if (!kept.isEmpty() && kept.get(kept.size() - 1).isEmpty()) {
+                kept.remove(kept.size() - 1);
+            }
+            return kept;
+        };
+    }
+
+    private static String collapse(String line) {
+        StringBuilder collapsed = new StringBuilder(line.length());
+        boolean space = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                space = collapsed.length() > 0;
+            } else {
+                if (space) {
+                    collapsed.append(' ');
+                    space = false;
+                }
+                collapsed.append(c);
+            }
+        }
+        return collapsed.toString();
+    }
+}
@@ -0,0 +1,315 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.YouTubeResponse;
+import com.Smart_Study_Buddy.Spring_backend.service.AiCallExecutor.Priority;
+import com.Smart_Study_Buddy.Spring_backend.service.YouTubeIngestionService.ResolvedVideo;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Imports many YouTube videos for one user in the background.
+ *
+ * Videos are resolved in parallel on a fixed pool, which caps how many
+ * extractions of batch jobs are pending at once; the extractions themselves
+ * run at background priority on AiCallExecutor, behind users' requests. Per-user
+ * records are not written one by one; finished videos are buffered and
+ * committed to Firestore in batches. Each job keeps per-video progress that
+ * clients poll by job id.
+ */
+@Service
+public class YouTubeBatchService {
+
+    public enum ItemStatus {
+        QUEUED, EXTRACTING, SAVING, DONE, FAILED
+    }
+
+    private final YouTubeIngestionService ingestionService;
+    private final DocumentRepository documentRepository;
+    private final AiCallExecutor aiCallExecutor;
+    private final ExecutorService executor;
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${youtube.batch.commit-size:20}")
+    private int commitSize;
+
+    @Value("${youtube.batch.max-videos:200}")
+    private int maxVideos;
+
+    // Finished jobs are forgotten after this long
+    @Value("${youtube.batch.retention-minutes:60}")
+    private long retentionMinutes;
+
+    public YouTubeBatchService(YouTubeIngestionService ingestionService, DocumentRepository documentRepository,
+            AiCallExecutor aiCallExecutor, @Value("${youtube.batch.concurrency:4}") int concurrency) {
+        this.ingestionService = ingestionService;
+        this.documentRepository = documentRepository;
+        this.aiCallExecutor = aiCallExecutor;
+        this.executor = Executors.newFixedThreadPool(concurrency, namedThreads("youtube-batch-"));
+    }
+
+    public int getMaxVideos() {
+        return maxVideos;
+    }
+
+    public BatchJob submit(String userId, List<String> urls, String language) {
+        if (urls.size() > maxVideos) {
+            throw new IllegalArgumentException("A batch can import at most " + maxVideos + " videos");
+        }
+        purgeExpiredJobs();
+
+        BatchJob job = new BatchJob(UUID.randomUUID().toString(), userId, language, urls);
+        jobs.put(job.id, job);
+
+        System.out.println("📚 Batch import " + job.id + " queued with " + urls.size() + " videos");
+        for (BatchItem item : job.items) {
+            executor.submit(() -> process(job, item));
+        }
+        return job;
+    }
+
+    /**
+     * The job with this id if it belongs to userId
+     */
+    public BatchJob getJob(String jobId, String userId) {
+        BatchJob job = jobs.get(jobId);
+        return job != null && job.userId.equals(userId) ? job : null;
+    }
+
+    private void process(BatchJob job, BatchItem item) {
+        try {
+            item.status = ItemStatus.EXTRACTING;
+            ResolvedVideo resolved = aiCallExecutor.call(Priority.BACKGROUND,
+                    () -> ingestionService.resolve(item.url, job.language));
+            YouTubeResponse video = resolved.getVideo();
+            if (!resolved.isSuccess()) {
+                item.fail(video.getError() != null ? video.getError() : "Failed to extract transcript");
+            } else {
+                item.title = video.getTitle();
+                item.sharedTranscript = resolved.isReused();
+                item.status = ItemStatus.SAVING;
+                List<PendingRecord> ready = job.enqueue(new PendingRecord(item, resolved), commitSize);
+                if (ready != null) {
+                    commit(job, ready);
+                }
+            }
+        } catch (HttpClientErrorException e) {
+            item.fail(YouTubeIngestionService.describeAiServiceError(e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            item.fail("Import was interrupted");
+        } catch (Exception e) {
+            System.err.println("❌ Batch import " + job.id + " failed for " + item.url + ": " + e.getMessage());
+            item.fail("Failed to import video: " + e.getMessage());
+        } finally {
+            release(job);
+        }
+    }
+
+    /**
+     * Count one video or commit of the job as finished. Whoever finishes the
+     * last one commits whatever is still buffered, and the job is complete
+     * once that commit is finished too.
+     */
+    private void release(BatchJob job) {
+        if (job.remaining.decrementAndGet() > 0) {
+            return;
+        }
+        List<PendingRecord> rest = job.drain();
+        if (!rest.isEmpty()) {
+            // Its own release completes the job
+            commit(job, rest);
+            return;
+        }
+        job.completedAt = System.currentTimeMillis();
+        System.out.println("✅ Batch import " + job.id + " finished: " + job.count(ItemStatus.DONE)
+                + " added, " + job.count(ItemStatus.FAILED) + " failed");
+    }
+
+    private void commit(BatchJob job, List<PendingRecord> records) {
+        // Keeps the job incomplete, and so safe from purging, until the records are saved
+        job.remaining.incrementAndGet();
+        try {
+            save(job, records);
+        } finally {
+            release(job);
+        }
+    }
+
+    private void save(BatchJob job, List<PendingRecord> records) {
+        List<String> transcriptIds = new ArrayList<>(records.size());
+        List<YouTubeResponse> videos = new ArrayList<>(records.size());
+        for (PendingRecord record : records) {
+            transcriptIds.add(record.resolved.getTranscriptId());
+            videos.add(record.resolved.getVideo());
+        }
+
+        try {
+            List<String> documentIds = documentRepository.saveYouTubeVideos(job.userId, transcriptIds, videos);
+            for (int i = 0; i < records.size(); i++) {
+                PendingRecord record = records.get(i);
+                record.item.documentId = documentIds.get(i);
+                record.item.status = ItemStatus.DONE;
+                ingestionService.registerSaved(documentIds.get(i), job.userId, record.resolved);
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            System.err.println("❌ Batch import " + job.id + " failed to save records: " + e.getMessage());
+            for (PendingRecord record : records) {
+                record.item.fail("Failed to save video: " + e.getMessage());
+            }
+        }
+    }
+
+    private void purgeExpiredJobs() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+        jobs.values().removeIf(job -> job.completedAt > 0 && job.completedAt < cutoff);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class PendingRecord {
+        private final BatchItem item;
+        private final ResolvedVideo resolved;
+
+        private PendingRecord(BatchItem item, ResolvedVideo resolved) {
+            this.item = item;
+            this.resolved = resolved;
+        }
+    }
+
+    public static class BatchJob {
+        private final String id;
+        private final String userId;
+        private final String language;
+        private final long createdAt = System.currentTimeMillis();
+        private final List<BatchItem> items;
+        // Videos not finished plus commits in progress
+        private final AtomicInteger remaining;
+        private final List<PendingRecord> pending = new ArrayList<>();
+        private volatile long completedAt;
+
+        private BatchJob(String id, String userId, String language, List<String> urls) {
+            this.id = id;
+            this.userId = userId;
+            this.language = language;
+            List<BatchItem> list = new ArrayList<>(urls.size());
+            for (String url : urls) {
+                list.add(new BatchItem(url));
+            }
+            this.items = Collections.unmodifiableList(list);
+            this.remaining = new AtomicInteger(list.size());
+        }
+
+        /**
+         * Buffer a finished video; returns a full batch to commit, if any
+         */
+        private synchronized List<PendingRecord> enqueue(PendingRecord record, int commitSize) {
+            pending.add(record);
+            return pending.size() >= commitSize ? drain() : null;
+        }
+
+        private synchronized List<PendingRecord> drain() {
+            List<PendingRecord> batch = new ArrayList<>(pending);
+            pending.clear();
+            return batch;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public boolean isComplete() {
+            return completedAt > 0;
+        }
+
+        public List<BatchItem> getItems() {
+            return items;
+        }
+
+        public int count(ItemStatus status) {
+            int count = 0;
+            for (BatchItem item : items) {
+                if (item.status == status) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    public static class BatchItem {
+        private final String url;
+        private volatile ItemStatus status = ItemStatus.QUEUED;
+        private volatile String title;
+        private volatile String documentId;
+        private volatile String error;
+        private volatile boolean sharedTranscript;
+
+        private BatchItem(String url) {
+            this.url = url;
+        }
+
+        private void fail(String message) {
+            error = message;
+            status = ItemStatus.FAILED;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public ItemStatus getStatus() {
+            return status;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getDocumentId() {
+            return documentId;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSharedTranscript() {
+            return sharedTranscript;
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.CompactTranscript;
+import com.Smart_Study_Buddy.Spring_backend.dto.YouTubeResponse;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Ingests YouTube videos into a shared transcript store keyed by video id and
+ * language. The first ingestion of a video streams the Python service's
+ * extract response token by token, writing transcript entries to Firestore in
+ * fixed-size chunks as they arrive, so at most one chunk of entries is held in
+ * memory regardless of video length. The response's full_text is still read
+ * whole, since it is stored on the shared transcript, so peak memory grows
+ * with the length of the text. Every later ingestion of the same video, by any
+ * user, skips the Python call and only writes a small per-user record that
+ * references the shared transcript.
+ *
+ * Each extraction writes its chunks under a generation of its own, which the
+ * transcript record points to once complete. Another instance extracting the
+ * same video at the same time writes a different generation, so whichever
+ * attempt fails deletes only its own chunks.
+ */
+@Service
+public class YouTubeIngestionService {
+
+    // Same URL shapes the Python service accepts
+    private static final List<Pattern> VIDEO_ID_PATTERNS = List.of(
+            Pattern.compile("(?:youtube\\.com/watch\\?v=|youtu\\.be/|youtube\\.com/embed/)([a-zA-Z0-9_-]{11})"),
+            Pattern.compile("youtube\\.com/watch\\?.*v=([a-zA-Z0-9_-]{11})"));
+    private static final Pattern BARE_VIDEO_ID = Pattern.compile("^[a-zA-Z0-9_-]{11}$");
+
+    private final AiServiceTransport transport;
+    private final DocumentRepository documentRepository;
+    private final TranscriptWindowService transcriptWindowService;
+    private final LibrarySearchService librarySearchService;
+    private final PrecomputeService precomputeService;
+
+    // Concurrent first-time ingestions of the same video share one Python call
+    private final Map<String, CompletableFuture<ResolvedVideo>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${youtube.transcript.chunk-size:500}")
+    private int chunkSize;
+
+    public YouTubeIngestionService(AiServiceTransport transport, DocumentRepository documentRepository,
+            TranscriptWindowService transcriptWindowService, LibrarySearchService librarySearchService,
+            PrecomputeService precomputeService) {
+        this.transport = transport;
+        this.documentRepository = documentRepository;
+        this.transcriptWindowService = transcriptWindowService;
+        this.librarySearchService = librarySearchService;
+        this.precomputeService = precomputeService;
+    }
+
+    /**
+     * Extract and store a video for a user. Returns the video metadata
+     * (without the transcript) and the id of the user's document, or a result
+     * whose video is unsuccessful if the URL is invalid or the Python service
+     * reported an error. HTTP errors from the Python service propagate as
+     * RestClientExceptions.
+     */
+    public IngestedVideo ingest(String userId, String url, String language)
+            throws ExecutionException, InterruptedException {
+        ResolvedVideo resolved = resolve(url, language);
+        if (!resolved.isSuccess()) {
+            return new IngestedVideo(null, resolved.getVideo(), 0, 0, false);
+        }
+
+        String documentId = documentRepository.saveYouTubeVideo(userId, resolved.getTranscriptId(),
+                resolved.getVideo());
+        registerSaved(documentId, userId, resolved);
+
+        return new IngestedVideo(documentId, resolved.getVideo(), resolved.entryCount,
+                resolved.chunkIndex.size(), resolved.reused);
+    }
+
+    /**
+     * Make sure the shared transcript for a video exists, extracting it on a
+     * miss, without writing any per-user record. Batch ingestion uses this and
+     * commits the user records itself.
+     */
+    public ResolvedVideo resolve(String url, String language) throws ExecutionException, InterruptedException {
+        String videoId = extractVideoId(url);
+        if (videoId == null) {
+            YouTubeResponse invalid = new YouTubeResponse();
+            invalid.setError("Invalid YouTube URL. Please provide a valid YouTube video URL.");
+            return new ResolvedVideo(null, null, invalid, null, 0, false);
+        }
+
+        String transcriptId = videoId + "_" + language;
+        ResolvedVideo shared = loadShared(transcriptId);
+        if (shared != null) {
+            return shared;
+        }
+        return extractShared(transcriptId, url, language);
+    }
+
+    /**
+     * Video URLs of a playlist, in playlist order, as listed by the Python service
+     */
+    public List<String> expandPlaylist(String playlistUrl) {
+        @SuppressWarnings("unchecked")
+        Class<Map<String, Object>> responseType = (Class<Map<String, Object>>) (Class<?>) Map.class;
+        ResponseEntity<Map<String, Object>> response = transport.post(
+                "/api/youtube/playlist",
+                Map.of("url", playlistUrl),
+                responseType);
+
+        List<String> urls = new ArrayList<>();
+        if (response.getBody() != null && response.getBody().get("video_ids") instanceof List<?> videoIds) {
+            for (Object videoId : videoIds) {
+                urls.add("https://www.youtube.com/watch?v=" + videoId);
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * Prime the transcript window cache and the owner's search index with a
+     * user record that was just written, and queue its study material
+     */
+    public void registerSaved(String documentId, String userId, ResolvedVideo resolved) {
+        transcriptWindowService.cacheIndex(documentId, userId, resolved.transcriptId, resolved.generation,
+                resolved.chunkIndex);
+        try {
+            librarySearchService.indexVideo(userId, documentId, resolved.video.getTitle());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // The next index build picks the video up
+            System.err.println("⚠️ Failed to index video " + documentId + " for search: " + e.getMessage());
+        }
+        precomputeService.enqueue(documentId);
+    }
+
+    /**
+     * Turn an HTTP error from the Python service into a message for the user
+     */
+    public static String describeAiServiceError(HttpClientErrorException e) {
+        String body = e.getResponseBodyAsString();
+        String errorMessage = "This video doesn't have captions/subtitles available. Please try a different video.";
+        try {
+            if (body.contains("no element found")) {
+                errorMessage = "No transcript found for this video. The video may not have captions enabled.";
+            } else if (body.contains("detail")) {
+                // Extract error from JSON response
+                int start = body.indexOf("\"detail\":\"") + 10;
+                int end = body.indexOf("\"", start);
+                if (start > 9 && end > start) {
+                    errorMessage = body.substring(start, end);
+                }
+            }
+        } catch (Exception parseError) {
+            // Use default message if parsing fails
+        }
+        return errorMessage;
+    }
+
+    public static String extractVideoId(String url) {
+        String trimmed = url.trim();
+        for (Pattern pattern : VIDEO_ID_PATTERNS) {
+            Matcher matcher = pattern.matcher(trimmed);
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        return BARE_VIDEO_ID.matcher(trimmed).matches() ? trimmed : null;
+    }
+
+    private ResolvedVideo loadShared(String transcriptId) throws ExecutionException, InterruptedException {
+        Map<String, Object> data = documentRepository.getSharedTranscript(transcriptId);
+        if (data == null) {
+            return null;
+        }
+
+        TranscriptIndex chunkIndex = TranscriptIndex.fromLists(
+                (List<?>) data.get("transcriptChunkStarts"),
+                (List<?>) data.get("transcriptChunkEnds"));
+        if (chunkIndex == null) {
+            return null;
+        }
+
+        YouTubeResponse video = new YouTubeResponse();
+        video.setSuccess(true);
+        video.setVideoId((String) data.get("videoId"));
+        video.setTitle((String) data.get("title"));
+        video.setChannel((String) data.get("channel"));
+        video.setThumbnailUrl((String) data.get("thumbnailUrl"));
+        video.setLanguage((String) data.get("language"));
+        video.setGenerated(Boolean.TRUE.equals(data.get("isGenerated")));
+        video.setDuration(data.get("duration") instanceof Number n ? n.doubleValue() : 0.0);
+        int entryCount = data.get("transcriptEntryCount") instanceof Number n ? n.intValue() : 0;
+        return new ResolvedVideo(transcriptId, TranscriptWindowService.generation(data), video, chunkIndex,
+                entryCount, true);
+    }
+
+    private ResolvedVideo extractShared(String transcriptId, String url, String language)
+            throws ExecutionException, InterruptedException {
+        CompletableFuture<ResolvedVideo> mine = new CompletableFuture<>();
+        CompletableFuture<ResolvedVideo> existing = inFlight.putIfAbsent(transcriptId, mine);
+        if (existing != null) {
+            try {
+                return existing.get();
+            } catch (ExecutionException e) {
+                // Rethrow the leader's failure as our own
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            ResolvedVideo resolved = streamFromAiService(transcriptId, url, language);
+            mine.complete(resolved);
+            return resolved;
+        } catch (RuntimeException | ExecutionException | InterruptedException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(transcriptId, mine);
+        }
+    }
+
+    private ResolvedVideo streamFromAiService(String transcriptId, String url, String language)
+            throws ExecutionException, InterruptedException {
+        String extractPath = "/api/youtube/extract";
+
+        System.out.println("🔄 Streaming transcript from AI service: " + extractPath);
+
+        String generation = UUID.randomUUID().toString();
+        // Chunks already written are orphans unless the marker below points at them
+        boolean stored = false;
+        try {
+            StreamedTranscript streamed = transport.postForStream(extractPath,
+                    Map.of("url", url, "languages", List.of(language)),
+                    parser -> readResponse(parser, transcriptId, generation));
+
+            YouTubeResponse video = streamed.video;
+            if (!video.isSuccess()) {
+                return new ResolvedVideo(null, null, video, null, 0, false);
+            }
+
+            // Another instance finished the same video first; keep its transcript
+            ResolvedVideo shared = loadShared(transcriptId);
+            if (shared != null) {
+                return shared;
+            }
+
+            TranscriptIndex chunkIndex = streamed.chunkIndexBuilder.build();
+            // Written last: its presence marks the shared transcript as complete
+            documentRepository.saveSharedTranscript(transcriptId, generation, video, chunkIndex,
+                    streamed.entryCount);
+            stored = true;
+            // Text is persisted; do not keep it alive in the in-flight future
+            video.setFullText(null);
+            return new ResolvedVideo(transcriptId, generation, video, chunkIndex, streamed.entryCount, false);
+        } finally {
+            if (!stored) {
+                discardChunks(transcriptId, generation);
+            }
+        }
+    }
+
+    private StreamedTranscript readResponse(JsonParser parser, String transcriptId, String generation)
+            throws IOException {
+        StreamedTranscript streamed = new StreamedTranscript(generation);
+        YouTubeResponse video = streamed.video;
+
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected an object from AI service");
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            if (valueToken == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "success" -> video.setSuccess(parser.getBooleanValue());
+                case "video_id" -> video.setVideoId(parser.getText());
+                case "title" -> video.setTitle(parser.getText());
+                case "channel" -> video.setChannel(parser.getText());
+                case "thumbnail_url" -> video.setThumbnailUrl(parser.getText());
+                case "full_text" -> video.setFullText(parser.getText());
+                case "language" -> video.setLanguage(parser.getText());
+                case "is_generated" -> video.setGenerated(parser.getBooleanValue());
+                case "duration" -> video.setDuration(parser.getDoubleValue());
+                case "error" -> video.setError(parser.getText());
+                case "transcript" -> streamTranscript(parser, transcriptId, streamed);
+                default -> parser.skipChildren();
+            }
+        }
+        return streamed;
+    }
+
+    private void streamTranscript(JsonParser parser, String transcriptId, StreamedTranscript streamed)
+            throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Expected transcript array from AI service");
+        }
+
+        CompactTranscript.Builder chunk = new CompactTranscript.Builder(chunkSize);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            CompactTranscript.Deserializer.readEntry(parser, chunk);
+            if (chunk.size() == chunkSize) {
+                flushChunk(transcriptId, chunk.build(), streamed);
+                chunk = new CompactTranscript.Builder(chunkSize);
+            }
+        }
+        if (chunk.size() > 0) {
+            flushChunk(transcriptId, chunk.build(), streamed);
+        }
+    }
+
+    private void flushChunk(String transcriptId, CompactTranscript chunk, StreamedTranscript streamed)
+            throws IOException {
+        int index = streamed.chunkIndexBuilder.size();
+        try {
+            documentRepository.saveTranscriptChunk(transcriptId, streamed.generation, index, chunk);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to store transcript chunk " + index, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while storing transcript chunk " + index, e);
+        }
+        streamed.chunkIndexBuilder.addChunk(chunk);
+        streamed.entryCount += chunk.size();
+    }
+
+    private void discardChunks(String transcriptId, String generation) {
+        try {
+            documentRepository.deleteTranscriptChunks(transcriptId, generation);
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to clean up transcript chunks for " + transcriptId + ": " + e.getMessage());
+        }
+    }
+
+    private static class StreamedTranscript {
+        private final String generation;
+        private final YouTubeResponse video = new YouTubeResponse();
+        // One interval per stored chunk, persisted so seeks can skip other chunks
+        private final TranscriptIndex.Builder chunkIndexBuilder = new TranscriptIndex.Builder();
+        private int entryCount;
+
+        private StreamedTranscript(String generation) {
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * A video whose shared transcript is stored, or the error that prevented it
+     */
+    public static class ResolvedVideo {
+        private final String transcriptId;
+        private final String generation;
+        private final YouTubeResponse video;
+        private final TranscriptIndex chunkIndex;
+        private final int entryCount;
+        private final boolean reused;
+
+        private ResolvedVideo(String transcriptId, String generation, YouTubeResponse video,
+                TranscriptIndex chunkIndex, int entryCount, boolean reused) {
+            this.transcriptId = transcriptId;
+            this.generation = generation;
+            this.video = video;
+            this.chunkIndex = chunkIndex;
+            this.entryCount = entryCount;
+            this.reused = reused;
+        }
+
+        public boolean isSuccess() {
+            return transcriptId != null && video.isSuccess();
+        }
+
+        public String getTranscriptId() {
+            return transcriptId;
+        }
+
+        public YouTubeResponse getVideo() {
+            return video;
+        }
+
+        public boolean isReused() {
+            return reused;
+        }
+    }
+
+    public static class IngestedVideo {
+        private final String documentId;
+        private final YouTubeResponse video;
+        private final int transcriptEntryCount;
+        private final int transcriptChunkCount;
+        private final boolean sharedTranscriptReused;
+
+        public IngestedVideo(String documentId, YouTubeResponse video, int transcriptEntryCount,
+                int transcriptChunkCount, boolean sharedTranscriptReused) {
+            this.documentId = documentId;
+            this.video = video;
+            this.transcriptEntryCount = transcriptEntryCount;
+            this.transcriptChunkCount = transcriptChunkCount;
+            this.sharedTranscriptReused = sharedTranscriptReused;
+        }
+
+        public String getDocumentId() {
+            return documentId;
+        }
+
+        public YouTubeResponse getVideo() {
+            return video;
+        }
+
+        public int getTranscriptEntryCount() {
+            return transcriptEntryCount;
+        }
+
+        public int getTranscriptChunkCount() {
+            return transcriptChunkCount;
+        }
+
+        public boolean isSharedTranscriptReused() {
+            return sharedTranscriptReused;
+        }
+    }
+}
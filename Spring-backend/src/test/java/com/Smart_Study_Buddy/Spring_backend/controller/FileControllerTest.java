@@ -0,0 +1,170 @@
+package com.Smart_Study_Buddy.Spring_backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.Smart_Study_Buddy.Spring_backend.service.LocalStorageService;
+
+class FileControllerTest {
+
+    private static final String PATH = "users/u1/documents/notes.txt";
+    private static final String CONTENT = "0123456789";
+
+    @TempDir
+    Path directory;
+
+    private FileController controller;
+    private URI url;
+    private long expires;
+    private String signature;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LocalStorageService storage = new LocalStorageService(directory.resolve("storage").toString(),
+                "http://localhost:8080", "test-key");
+        Path source = Files.writeString(directory.resolve("source.txt"), CONTENT);
+        url = URI.create(storage.storeFile(source, PATH, "text/plain"));
+        var query = UriComponentsBuilder.fromUri(url).build().getQueryParams();
+        expires = Long.parseLong(query.getFirst("expires"));
+        signature = query.getFirst("signature");
+        controller = new FileController(storage);
+    }
+
+    @Test
+    void servesTheWholeFileWithValidators() throws Exception {
+        MockHttpServletResponse response = get(request());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isNotBlank();
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getContentType()).startsWith("text/plain");
+    }
+
+    @Test
+    void rejectsBadSignatures() throws Exception {
+        signature = signature.substring(1) + "A";
+
+        assertThat(get(request()).getStatus()).isEqualTo(403);
+    }
+
+    @Test
+    void answersDeletedFilesWith404() throws Exception {
+        Files.delete(directory.resolve("storage").resolve(PATH));
+
+        assertThat(get(request()).getStatus()).isEqualTo(404);
+    }
+
+    @Test
+    void servesByteRanges() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-4");
+
+        MockHttpServletResponse response = get(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("234");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-4/10");
+        assertThat(response.getContentLengthLong()).isEqualTo(3);
+    }
+
+    @Test
+    void servesOpenAndSuffixRanges() throws Exception {
+        assertThat(rangeOf("bytes=7-")).isEqualTo("789");
+        assertThat(rangeOf("bytes=-3")).isEqualTo("789");
+        // Ends past the file are cut to its length
+        assertThat(rangeOf("bytes=8-100")).isEqualTo("89");
+        assertThat(rangeOf("bytes=-100")).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void answersUnsatisfiableRangesWith416() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-12");
+
+        MockHttpServletResponse response = get(request);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+    }
+
+    @Test
+    void ignoresMultipleRangesAndOtherUnits() throws Exception {
+        for (String range : new String[] { "bytes=0-1,4-5", "items=0-1", "bytes=x-y" }) {
+            MockHttpServletRequest request = request();
+            request.addHeader(HttpHeaders.RANGE, range);
+
+            MockHttpServletResponse response = get(request);
+
+            assertThat(response.getStatus()).as(range).isEqualTo(200);
+            assertThat(response.getContentAsString()).as(range).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void revalidatesWithIfNoneMatch() throws Exception {
+        String etag = get(request()).getHeader(HttpHeaders.ETAG);
+
+        for (String ifNoneMatch : new String[] { etag, "W/" + etag, "\"other\", " + etag, "*" }) {
+            MockHttpServletRequest request = request();
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+
+            MockHttpServletResponse response = get(request);
+
+            assertThat(response.getStatus()).as(ifNoneMatch).isEqualTo(304);
+            assertThat(response.getContentAsByteArray()).isEmpty();
+        }
+
+        MockHttpServletRequest stale = request();
+        stale.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+        assertThat(get(stale).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void sendsTheWholeFileWhenIfRangeNoLongerMatches() throws Exception {
+        String etag = get(request()).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest current = request();
+        current.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        current.addHeader(HttpHeaders.IF_RANGE, etag);
+        assertThat(get(current).getStatus()).isEqualTo(206);
+
+        MockHttpServletRequest changed = request();
+        changed.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        changed.addHeader(HttpHeaders.IF_RANGE, "\"older\"");
+        MockHttpServletResponse response = get(changed);
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    private String rangeOf(String range) throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, range);
+        MockHttpServletResponse response = get(request);
+        assertThat(response.getStatus()).as(range).isEqualTo(206);
+        return response.getContentAsString();
+    }
+
+    private MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", url.getRawPath());
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        controller.getFile(expires, signature, request, response);
+        return response;
+    }
+}
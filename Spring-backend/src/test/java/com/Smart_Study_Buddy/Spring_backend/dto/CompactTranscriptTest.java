@@ -0,0 +1,108 @@
+package com.Smart_Study_Buddy.Spring_backend.dto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class CompactTranscriptTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static CompactTranscript sample() {
+        return new CompactTranscript.Builder(1)
+                .add("hello", 0.0, 1.5)
+                .add("", 1.5, 0.5)
+                .add("wörld ✓", 2.0, 2.25)
+                .build();
+    }
+
+    @Test
+    void builderGrowsPastItsInitialCapacity() {
+        CompactTranscript.Builder builder = new CompactTranscript.Builder(1);
+        for (int i = 0; i < 100; i++) {
+            builder.add("caption number " + i, i, 1.0);
+        }
+        CompactTranscript transcript = builder.build();
+
+        assertThat(transcript.size()).isEqualTo(100);
+        assertThat(transcript.getText(99)).isEqualTo("caption number 99");
+        assertThat(transcript.getStart(42)).isEqualTo(42.0);
+    }
+
+    @Test
+    void fullTextJoinsEntriesWithSingleSpaces() {
+        CompactTranscript transcript = sample();
+
+        assertThat(transcript.getFullText()).isEqualTo("hello  wörld ✓");
+        assertThat(transcript.getTextLength()).isEqualTo("hello".length() + "wörld ✓".length());
+        assertThat(CompactTranscript.empty().getFullText()).isEmpty();
+    }
+
+    @Test
+    void selectCopiesEntriesInTheGivenOrder() {
+        CompactTranscript selected = sample().select(new int[] { 2, 0 });
+
+        assertThat(selected.size()).isEqualTo(2);
+        assertThat(selected.getText(0)).isEqualTo("wörld ✓");
+        assertThat(selected.getDuration(0)).isEqualTo(2.25);
+        assertThat(selected.getText(1)).isEqualTo("hello");
+    }
+
+    @Test
+    void rejectsIndexesOutsideTheTranscript() {
+        CompactTranscript transcript = sample();
+
+        assertThatThrownBy(() -> transcript.getText(3)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> transcript.select(new int[] { -1 })).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    void roundTripsThroughFirestoreMaps() {
+        CompactTranscript transcript = CompactTranscript.fromMaps(sample().toMaps());
+
+        assertThat(transcript.size()).isEqualTo(3);
+        assertThat(transcript.getText(2)).isEqualTo("wörld ✓");
+        assertThat(transcript.getStart(2)).isEqualTo(2.0);
+    }
+
+    @Test
+    void fromMapsToleratesMissingFields() {
+        CompactTranscript transcript = CompactTranscript.fromMaps(List.of(Map.of("start", 3), Map.of("text", "x")));
+
+        assertThat(transcript.getText(0)).isEmpty();
+        assertThat(transcript.getStart(0)).isEqualTo(3.0);
+        assertThat(transcript.getDuration(1)).isEqualTo(0.0);
+        assertThat(CompactTranscript.fromMaps(null).isEmpty()).isTrue();
+    }
+
+    @Test
+    void serializesToThePythonServiceShape() throws Exception {
+        String json = objectMapper.writeValueAsString(sample());
+
+        assertThat(objectMapper.readTree(json)).isEqualTo(objectMapper.readTree(
+                "[{\"text\":\"hello\",\"start\":0.0,\"duration\":1.5},"
+                        + "{\"text\":\"\",\"start\":1.5,\"duration\":0.5},"
+                        + "{\"text\":\"wörld ✓\",\"start\":2.0,\"duration\":2.25}]"));
+    }
+
+    @Test
+    void deserializesEntriesAndSkipsUnknownFields() throws Exception {
+        CompactTranscript transcript = objectMapper.readValue(
+                "[{\"start\":1,\"text\":\"a \\\"quoted\\\" line\",\"extra\":{\"x\":[1]},\"duration\":2},"
+                        + "{\"text\":null,\"start\":\"n/a\"}]",
+                CompactTranscript.class);
+
+        assertThat(transcript.size()).isEqualTo(2);
+        assertThat(transcript.getText(0)).isEqualTo("a \"quoted\" line");
+        assertThat(transcript.getStart(0)).isEqualTo(1.0);
+        assertThat(transcript.getDuration(0)).isEqualTo(2.0);
+        assertThat(transcript.getText(1)).isEmpty();
+        assertThat(transcript.getStart(1)).isEqualTo(0.0);
+    }
+}
@@ -0,0 +1,143 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.Smart_Study_Buddy.Spring_backend.service.AiCallExecutor.Priority;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * One foreground thread, held by a blocker, so queued tasks can be ordered
+ * before it is let go
+ */
+class AiCallExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch blockerStarted = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private AiCallExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new AiCallExecutor(1, 1, 3, 1000, 5000, 10000, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void runsByPriorityThenDeadline() throws Exception {
+        block();
+        List<String> order = new CopyOnWriteArrayList<>();
+        DeferredResult<ResponseEntity<?>> later = defer(Priority.STANDARD, 5000L, order, "standard-late");
+        DeferredResult<ResponseEntity<?>> sooner = defer(Priority.STANDARD, 2000L, order, "standard-soon");
+        DeferredResult<ResponseEntity<?>> interactive = defer(Priority.INTERACTIVE, 5000L, order, "interactive");
+
+        release.countDown();
+        await(later);
+
+        assertThat(order).containsExactly("interactive", "standard-soon", "standard-late");
+        assertThat(sooner.getResult()).isEqualTo(ResponseEntity.ok("standard-soon"));
+        assertThat(interactive.getResult()).isEqualTo(ResponseEntity.ok("interactive"));
+    }
+
+    @Test
+    void answersTasksWhoseDeadlinePassedInTheQueueWith504() throws Exception {
+        block();
+        AtomicBoolean ran = new AtomicBoolean();
+        DeferredResult<ResponseEntity<?>> result = executor.defer(Priority.STANDARD, 50L, () -> {
+            ran.set(true);
+            return ResponseEntity.ok().build();
+        });
+        // Queued behind it, so the expired task is reached before this one finishes
+        DeferredResult<ResponseEntity<?>> next = defer(Priority.STANDARD, 5000L, new CopyOnWriteArrayList<>(), "next");
+
+        Thread.sleep(100);
+        release.countDown();
+        await(next);
+
+        assertThat(ran).isFalse();
+        assertThat(status(result)).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+        assertThat(meterRegistry.counter("ai.executor.expired").count()).isEqualTo(1);
+    }
+
+    @Test
+    void runsBackgroundWorkOnItsOwnThreads() throws Exception {
+        block();
+
+        String answer = executor.call(Priority.BACKGROUND, () -> Thread.currentThread().getName());
+
+        assertThat(answer).startsWith("ai-background-");
+    }
+
+    @Test
+    void answersWith503WhenTheQueueIsFull() throws Exception {
+        block();
+        List<String> order = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            defer(Priority.STANDARD, 5000L, order, "queued-" + i);
+        }
+
+        DeferredResult<ResponseEntity<?>> result = defer(Priority.INTERACTIVE, 5000L, order, "rejected");
+
+        assertThat(status(result)).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(meterRegistry.counter("ai.executor.rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    void rethrowsRuntimeExceptionsOfCalls() {
+        IllegalStateException failure = new IllegalStateException("upstream failed");
+
+        assertThatThrownBy(() -> executor.call(Priority.STANDARD, () -> {
+            throw failure;
+        })).isSameAs(failure);
+    }
+
+    private void block() throws InterruptedException {
+        executor.defer(Priority.INTERACTIVE, 5000L, () -> {
+            blockerStarted.countDown();
+            release.await();
+            return ResponseEntity.ok().build();
+        });
+        assertThat(blockerStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private DeferredResult<ResponseEntity<?>> defer(Priority priority, Long timeoutMillis, List<String> order,
+            String name) {
+        return executor.defer(priority, timeoutMillis, () -> {
+            order.add(name);
+            return ResponseEntity.ok(name);
+        });
+    }
+
+    private static void await(DeferredResult<ResponseEntity<?>> result) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!result.hasResult() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(result.hasResult()).isTrue();
+    }
+
+    private static HttpStatus status(DeferredResult<ResponseEntity<?>> result) throws InterruptedException {
+        await(result);
+        return HttpStatus.valueOf(((ResponseEntity<?>) result.getResult()).getStatusCode().value());
+    }
+}
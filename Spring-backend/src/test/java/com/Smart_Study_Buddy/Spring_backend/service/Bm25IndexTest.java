@@ -0,0 +1,59 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class Bm25IndexTest {
+
+    @Test
+    void splitsTextIntoOverlappingChunks() {
+        Bm25Index index = Bm25Index.build("one two three four five six seven", 3, 1);
+
+        assertThat(index.chunkCount()).isEqualTo(3);
+        assertThat(chunk(index, 0)).isEqualTo("one two three");
+        assertThat(chunk(index, 1)).isEqualTo("three four five");
+        assertThat(chunk(index, 2)).isEqualTo("five six seven");
+    }
+
+    @Test
+    void emptyTextHasNoChunks() {
+        Bm25Index index = Bm25Index.build("   \n ", 10, 2);
+
+        assertThat(index.chunkCount()).isZero();
+        assertThat(index.search("anything", 3)).isEmpty();
+    }
+
+    @Test
+    void ranksChunksByRelevance() {
+        String text = "Mitochondria produce energy for the cell. "
+                + "Unrelated words about history and kings. "
+                + "The cell membrane surrounds the cell and the mitochondria.";
+        Bm25Index index = Bm25Index.build(text, 6, 0);
+
+        int[] hits = index.search("What do mitochondria produce?", 5);
+
+        assertThat(hits).isNotEmpty();
+        assertThat(chunk(index, hits[0])).contains("produce");
+        for (int hit : hits) {
+            assertThat(chunk(index, hit).toLowerCase()).contains("mitochondria");
+        }
+    }
+
+    @Test
+    void ignoresStopWordsAndSingleCharacters() {
+        assertThat(Bm25Index.tokenize("What is a B-tree, and why?", 0, 26)).containsExactly("tree");
+        assertThat(Bm25Index.build("the and of a", 10, 0).search("the a of", 3)).isEmpty();
+    }
+
+    @Test
+    void limitsResultsToK() {
+        Bm25Index index = Bm25Index.build("cell ".repeat(40), 4, 0);
+
+        assertThat(index.search("cell", 3)).hasSize(3);
+    }
+
+    private static String chunk(Bm25Index index, int chunk) {
+        return index.getText().substring(index.chunkStart(chunk), index.chunkEnd(chunk));
+    }
+}
@@ -0,0 +1,101 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.Smart_Study_Buddy.Spring_backend.service.ChatContextManager.ChatContext;
+
+/**
+ * Budgeting of the verbatim turns; without a document id nothing is folded,
+ * so no AI service or repository is involved
+ */
+class ChatContextManagerTest {
+
+    // 100 tokens at 4 chars each
+    private static final int BUDGET_CHARS = 400;
+
+    private ChatContextManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new ChatContextManager(null, null, null, 10);
+        ReflectionTestUtils.setField(manager, "recentTurns", 4);
+        ReflectionTestUtils.setField(manager, "tokenBudget", BUDGET_CHARS / 4);
+    }
+
+    @Test
+    void sendsShortHistoriesWhole() throws Exception {
+        List<Map<String, String>> history = List.of(turn("q1", "a1"), turn("q2", "a2"));
+
+        ChatContext context = manager.window(null, null, history);
+
+        assertThat(context.getSummary()).isNull();
+        assertThat(context.getTurns()).containsExactlyElementsOf(history);
+    }
+
+    @Test
+    void keepsTheNewestTurnsThatFitTheBudget() throws Exception {
+        List<Map<String, String>> history = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            history.add(turn("q" + i + "x".repeat(48), "a".repeat(50)));
+        }
+
+        List<Map<String, String>> turns = manager.window(null, null, history).getTurns();
+
+        // Each turn costs 100 chars
+        assertThat(turns).hasSize(4);
+        assertThat(turns.get(0).get("question")).startsWith("q6");
+        assertThat(turns.get(3).get("question")).startsWith("q9");
+    }
+
+    @Test
+    void trimsTheAnswerOfALatestTurnThatDoesNotFit() throws Exception {
+        List<Map<String, String>> turns = manager.window(null, null,
+                List.of(turn("older", "answer"), turn("short question", "a".repeat(1000)))).getTurns();
+
+        assertThat(turns).hasSize(1);
+        assertThat(turns.get(0).get("question")).isEqualTo("short question");
+        assertThat(turns.get(0).get("answer")).hasSize(BUDGET_CHARS - "short question".length());
+    }
+
+    @Test
+    void trimsTheQuestionOfALatestTurnThatDoesNotFit() throws Exception {
+        List<Map<String, String>> turns = manager.window(null, null,
+                List.of(turn("q".repeat(1000), "brief answer"))).getTurns();
+
+        assertThat(turns).hasSize(1);
+        assertThat(turns.get(0).get("question")).hasSize(BUDGET_CHARS - "brief answer".length());
+        assertThat(turns.get(0).get("answer")).isEqualTo("brief answer");
+    }
+
+    @Test
+    void splitsTheBudgetWhenBothSidesOfTheLatestTurnAreLong() throws Exception {
+        List<Map<String, String>> turns = manager.window(null, null,
+                List.of(turn("q".repeat(1000), "a".repeat(1000)))).getTurns();
+
+        assertThat(turns).hasSize(1);
+        assertThat(turns.get(0).get("question")).hasSize(BUDGET_CHARS / 2);
+        assertThat(turns.get(0).get("answer")).hasSize(BUDGET_CHARS / 2);
+    }
+
+    @Test
+    void treatsMissingFieldsAsEmpty() throws Exception {
+        Map<String, String> partial = new java.util.HashMap<>();
+        partial.put("question", "only a question");
+
+        List<Map<String, String>> turns = manager.window(null, null, List.of(partial)).getTurns();
+
+        assertThat(turns).containsExactly(turn("only a question", ""));
+    }
+
+    private static Map<String, String> turn(String question, String answer) {
+        return Map.of("question", question, "answer", answer);
+    }
+}
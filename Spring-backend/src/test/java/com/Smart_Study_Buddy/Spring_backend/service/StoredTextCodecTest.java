@@ -0,0 +1,68 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.UncheckedIOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.CompactTranscript;
+
+class StoredTextCodecTest {
+
+    @Test
+    void roundTripsText() {
+        String text = "Photosynthesis ✓ ".repeat(500);
+
+        byte[] encoded = StoredTextCodec.encodeText(text);
+
+        assertThat(encoded[0]).isEqualTo(StoredTextCodec.FORMAT_VERSION);
+        assertThat(encoded.length).isLessThan(text.length() / 10);
+        assertThat(StoredTextCodec.decodeText(encoded)).isEqualTo(text);
+    }
+
+    @Test
+    void roundTripsEmptyText() {
+        assertThat(StoredTextCodec.decodeText(StoredTextCodec.encodeText(""))).isEmpty();
+    }
+
+    @Test
+    void roundTripsTranscripts() {
+        CompactTranscript transcript = new CompactTranscript.Builder()
+                .add("first", 0.0, 1.25)
+                .add("", 1.25, 0.0)
+                .add("dritte Zeile ✓", 3.5, 2.0)
+                .build();
+
+        CompactTranscript decoded = StoredTextCodec.decodeTranscript(StoredTextCodec.encodeTranscript(transcript));
+
+        assertThat(decoded.size()).isEqualTo(3);
+        for (int i = 0; i < 3; i++) {
+            assertThat(decoded.getText(i)).isEqualTo(transcript.getText(i));
+            assertThat(decoded.getStart(i)).isEqualTo(transcript.getStart(i));
+            assertThat(decoded.getDuration(i)).isEqualTo(transcript.getDuration(i));
+        }
+    }
+
+    @Test
+    void rejectsPayloadsOfAnotherType() {
+        byte[] text = StoredTextCodec.encodeText("not a transcript");
+
+        assertThatThrownBy(() -> StoredTextCodec.decodeTranscript(text))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("payload type");
+    }
+
+    @Test
+    void rejectsUnknownVersionsAndTruncatedPayloads() {
+        byte[] encoded = StoredTextCodec.encodeText("text");
+        encoded[0] = 99;
+
+        assertThatThrownBy(() -> StoredTextCodec.decodeText(encoded)).hasMessageContaining("version");
+        assertThatThrownBy(() -> StoredTextCodec.decodeText(new byte[] { 1 }))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> StoredTextCodec.decodeText(new byte[] { 1, 1, 42, 42 }))
+                .isInstanceOf(UncheckedIOException.class);
+    }
+}
@@ -0,0 +1,89 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TextNormalizerTest {
+
+    @Test
+    void dropsPageNumbersOnlyAtPageEdges() {
+        List<String> kept = run(new PageNumberStage(),
+                List.of("Page 3", "Results", "12", "more text", "table row", "- 7 -"));
+
+        assertThat(kept).containsExactly("Results", "12", "more text", "table row");
+    }
+
+    @Test
+    void recognizesCommonPageNumberForms() {
+        for (String number : List.of("12", "Page 3", "4 of 20", "- 7 -", "xii", "5/9")) {
+            assertThat(run(new PageNumberStage(), List.of(number, "body"))).as(number).containsExactly("body");
+        }
+        assertThat(run(new PageNumberStage(), List.of("Chapter 3", "body"))).containsExactly("Chapter 3", "body");
+    }
+
+    @Test
+    void rejoinsWordsHyphenatedAcrossLines() {
+        List<String> kept = run(new DehyphenationStage(),
+                List.of("the process of photo-", "synthesis needs light", "COVID-", "19 cases", "a list -", "item"));
+
+        assertThat(kept).containsExactly("the process of photosynthesis needs light", "COVID-", "19 cases",
+                "a list -", "item");
+    }
+
+    @Test
+    void collapsesWhitespaceAndBlankLines() {
+        List<String> kept = run(new WhitespaceStage(),
+                List.of("", "  lots   of\tspace  ", "", "", "next line", "", ""));
+
+        assertThat(kept).containsExactly("lots of space", "", "next line");
+    }
+
+    @Test
+    void dropsHeadersRepeatedOnMostPages() {
+        RepeatedLineStage stage = new RepeatedLineStage();
+        ReflectionTestUtils.setField(stage, "minPages", 3);
+        ReflectionTestUtils.setField(stage, "minFraction", 0.5);
+        PagedText text = PagedText.of(String.join("\f",
+                "Biology Notes\nfirst page\nChapter 1 - page 1",
+                "Biology Notes\nsecond page\nChapter 1 - page 2",
+                "Biology Notes\nthird page\nChapter 1 - page 3",
+                "a page without the header\nBiology Notes is mentioned here\nbody"));
+
+        TextNormalizationStage.PageFilter filter = stage.open(text);
+
+        assertThat(filter.page(0, text.lines(0))).containsExactly("first page");
+        assertThat(filter.page(3, text.lines(3)))
+                .containsExactly("a page without the header", "Biology Notes is mentioned here", "body");
+    }
+
+    @Test
+    void runsStagesInTheConfiguredOrderAndJoinsPages() {
+        TextNormalizer normalizer = new TextNormalizer(
+                List.of(new WhitespaceStage(), new DehyphenationStage(), new PageNumberStage()),
+                new SimpleMeterRegistry(), new String[] { "page-numbers", "dehyphenate", "whitespace" });
+        ReflectionTestUtils.setField(normalizer, "enabled", true);
+
+        String normalized = normalizer.normalize("1\nan  exam-\nple\n\f\n2\nsecond   page");
+
+        assertThat(normalized).isEqualTo("an example\n\nsecond page");
+    }
+
+    @Test
+    void rejectsUnknownStages() {
+        assertThatThrownBy(() -> new TextNormalizer(List.of(new WhitespaceStage()), new SimpleMeterRegistry(),
+                new String[] { "whitespace", "spellcheck" }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("spellcheck");
+    }
+
+    private static List<String> run(TextNormalizationStage stage, List<String> lines) {
+        return stage.open(PagedText.of(String.join("\n", lines))).page(0, lines);
+    }
+}
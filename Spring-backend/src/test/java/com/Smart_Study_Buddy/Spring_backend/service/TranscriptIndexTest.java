@@ -0,0 +1,69 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.Smart_Study_Buddy.Spring_backend.dto.CompactTranscript;
+
+class TranscriptIndexTest {
+
+    @Test
+    void findsEntriesOverlappingAWindow() {
+        TranscriptIndex index = TranscriptIndex.of(new CompactTranscript.Builder()
+                .add("a", 0, 2)
+                .add("b", 2, 2)
+                .add("c", 4, 2)
+                .add("d", 6, 2)
+                .build());
+
+        assertThat(index.overlapping(2.5, 4.5)).containsExactly(1, 2);
+        // Closed window: touching ends count
+        assertThat(index.overlapping(6, 6)).containsExactly(2, 3);
+        assertThat(index.overlapping(8.5, 10)).isEmpty();
+    }
+
+    @Test
+    void findsLongEntriesThatStartedBeforeShorterOnes() {
+        // Auto-generated captions overlap: "long" runs past the entries after it
+        TranscriptIndex index = TranscriptIndex.of(new CompactTranscript.Builder()
+                .add("long", 0, 30)
+                .add("short", 1, 1)
+                .add("later", 10, 1)
+                .build());
+
+        assertThat(index.overlapping(20, 25)).containsExactly(0);
+        assertThat(index.overlapping(5, 10)).containsExactly(0, 2);
+    }
+
+    @Test
+    void emptyIndexMatchesNothing() {
+        assertThat(TranscriptIndex.of(CompactTranscript.empty()).overlapping(0, 100)).isEmpty();
+    }
+
+    @Test
+    void roundTripsThroughPersistedLists() {
+        TranscriptIndex index = TranscriptIndex.fromLists(List.of(0, 5.5), List.of(5.5, 9L));
+
+        assertThat(index.getStarts()).containsExactly(0.0, 5.5);
+        assertThat(index.getEnds()).containsExactly(5.5, 9.0);
+        assertThat(index.overlapping(6, 7)).containsExactly(1);
+        assertThat(TranscriptIndex.fromLists(List.of(1), List.of())).isNull();
+        assertThat(TranscriptIndex.fromLists(null, List.of())).isNull();
+    }
+
+    @Test
+    void builderRecordsOneIntervalPerChunk() {
+        TranscriptIndex index = new TranscriptIndex.Builder()
+                .addChunk(new CompactTranscript.Builder().add("a", 0, 10).add("b", 2, 1).build())
+                .addChunk(new CompactTranscript.Builder().add("c", 12, 3).build())
+                .build();
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.getStarts()).containsExactly(0.0, 12.0);
+        assertThat(index.getEnds()).containsExactly(10.0, 15.0);
+        assertThat(index.overlapping(11, 11)).isEmpty();
+    }
+}
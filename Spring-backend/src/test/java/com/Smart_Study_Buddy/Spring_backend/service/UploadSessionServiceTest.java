@@ -0,0 +1,141 @@
+package com.Smart_Study_Buddy.Spring_backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.Smart_Study_Buddy.Spring_backend.service.UploadSessionService.TooManyUploadsException;
+import com.Smart_Study_Buddy.Spring_backend.service.UploadSessionService.UploadSession;
+
+class UploadSessionServiceTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path directory;
+
+    private UploadSessionService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new UploadSessionService(directory.toString());
+        ReflectionTestUtils.setField(service, "maxBytes", 1000L);
+        ReflectionTestUtils.setField(service, "maxChunkBytes", 100L);
+        ReflectionTestUtils.setField(service, "retentionMinutes", 60L);
+        ReflectionTestUtils.setField(service, "maxSessionsPerUser", 2);
+        ReflectionTestUtils.setField(service, "maxSessions", 3);
+    }
+
+    @Test
+    void mergesChunksReceivedOutOfOrder() throws Exception {
+        UploadSession session = service.create("u1", "notes.pdf", CONTENT.length, null);
+
+        write(session, 10, 5);
+        write(session, 0, 3);
+        assertThat(session.getReceivedBytes()).isEqualTo(8);
+        assertThat(session.getMissing()).containsExactly(new long[] { 3, 10 }, new long[] { 15, 20 });
+
+        // Overlaps both received ranges and bridges the gap between them
+        write(session, 2, 10);
+        assertThat(session.getReceivedBytes()).isEqualTo(15);
+        assertThat(session.getMissing()).containsExactly(new long[] { 15, 20 });
+
+        // Adjacent ranges merge too
+        write(session, 15, 5);
+        assertThat(session.isComplete()).isTrue();
+        assertThat(session.getMissing()).isEmpty();
+    }
+
+    @Test
+    void resentChunksAreCountedOnce() throws Exception {
+        UploadSession session = service.create("u1", "notes.pdf", CONTENT.length, null);
+
+        write(session, 5, 5);
+        write(session, 5, 5);
+        write(session, 6, 2);
+
+        assertThat(session.getReceivedBytes()).isEqualTo(5);
+    }
+
+    @Test
+    void completeHandsOverTheAssembledFile() throws Exception {
+        UploadSession session = service.create("u1", "notes.pdf", CONTENT.length, null);
+        write(session, 10, 10);
+        write(session, 0, 10);
+
+        Path file = service.complete(session);
+
+        assertThat(Files.readAllBytes(file)).isEqualTo(CONTENT);
+        assertThat(service.get(session.getId(), "u1")).isNull();
+        assertThatThrownBy(() -> write(session, 0, 1)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> service.complete(session)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void refusesToCompleteWithMissingBytes() throws Exception {
+        UploadSession session = service.create("u1", "notes.pdf", CONTENT.length, null);
+        write(session, 0, 19);
+
+        assertThatThrownBy(() -> service.complete(session)).hasMessageContaining("missing 1 bytes");
+    }
+
+    @Test
+    void cancelDeletesTheSpoolFile() throws Exception {
+        UploadSession session = service.create("u1", "notes.pdf", CONTENT.length, null);
+        write(session, 0, 4);
+
+        service.cancel(session);
+
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+        assertThatThrownBy(() -> write(session, 4, 4)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsChunksOutsideTheFile() throws Exception {
+        UploadSession session = service.create("u1", "notes.pdf", CONTENT.length, null);
+
+        assertThatThrownBy(() -> write(session, 15, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.writeChunk(session, 0, 5, new ByteArrayInputStream(CONTENT, 0, 3)))
+                .hasMessageContaining("ended after 3 of 5 bytes");
+        assertThat(session.getReceivedBytes()).isZero();
+    }
+
+    @Test
+    void rejectsFilenamesThatAreNotPlainNames() {
+        for (String filename : List.of("../x.pdf", "a/b.pdf", "a\\b.pdf", "..", " ")) {
+            assertThatThrownBy(() -> service.create("u1", filename, 10, null)).as(filename)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void capsOpenSessionsPerUserAndInTotal() throws Exception {
+        service.create("u1", "a.pdf", 10, null);
+        UploadSession second = service.create("u1", "b.pdf", 10, null);
+        assertThatThrownBy(() -> service.create("u1", "c.pdf", 10, null))
+                .isInstanceOf(TooManyUploadsException.class);
+
+        service.cancel(second);
+        service.create("u1", "c.pdf", 10, null);
+
+        service.create("u2", "d.pdf", 10, null);
+        assertThatThrownBy(() -> service.create("u3", "e.pdf", 10, null))
+                .isInstanceOf(TooManyUploadsException.class);
+    }
+
+    private void write(UploadSession session, int offset, int length) throws Exception {
+        service.writeChunk(session, offset, length, new ByteArrayInputStream(CONTENT, offset, length));
+    }
+}
@@ -6,7 +6,8 @@ from fastapi.middleware.cors import CORSMiddleware
 from services.pdf_service import extract_text_from_pdf
 from services.gemini_service import GeminiService
 from services.youtube_service import YouTubeService
-from models.schemas import SummarizeRequest,QuestionRequest
+from services import transport
+from models.schemas import SummarizeRequest,QuestionRequest,ConversationSummaryRequest
 from pydantic import BaseModel
 import os
 from dotenv import load_dotenv
@@ -14,6 +15,8 @@ from dotenv import load_dotenv
 load_dotenv()
 
 app = FastAPI(title="Smart Study Buddy AI Service")
+# gzip and CBOR bodies with the backend; must come before the routes
+transport.install(app)
 
 app.add_middleware(
     CORSMiddleware,
@@ -56,12 +59,26 @@ async def ask_question(request: QuestionRequest):
             answer = gemini_service.answer_question(
                 request.text,
                 request.question,
-                request.chat_history
+                request.chat_history,
+                request.conversation_summary
             )
             return {"answer": answer, "question": request.question}
         except Exception as e:
             raise HTTPException(status_code=500,detail=str(e))
 
+@app.post("/api/ai/summarize-conversation")
+async def summarize_conversation(request: ConversationSummaryRequest):
+    """Fold older chat turns into a rolling summary"""
+    try:
+        summary = gemini_service.summarize_conversation(
+            request.summary,
+            request.chat_history,
+            request.max_words
+        )
+        return {"summary": summary}
+    except Exception as e:
+        raise HTTPException(status_code=500, detail=str(e))
+
 @app.post("/api/ai/flashcards")
 async def generate_flashcards(request: SummarizeRequest):
     """Generate flashcards from document"""
@@ -85,6 +102,7 @@ async def generate_quiz(request: SummarizeRequest):
 
 class YouTubeRequest(BaseModel):
     url: str
+    languages: list[str] = ['en']
 
 class YouTubeTranscriptRequest(BaseModel):
     video_id: str
@@ -108,7 +126,7 @@ async def extract_youtube_transcript(request: YouTubeRequest):
         
         # Get transcript
         print(f"  Getting transcript for video ID: {video_id}")
-        transcript_data = YouTubeService.get_transcript(video_id)
+        transcript_data = YouTubeService.get_transcript(video_id, request.languages)
         print(f"  Transcript success: {transcript_data.get('success')}")
         
         if not transcript_data['success']:
@@ -143,6 +161,25 @@ async def extract_youtube_transcript(request: YouTubeRequest):
     except Exception as e:
         raise HTTPException(status_code=500, detail=f"Error extracting transcript: {str(e)}")
 
+@app.post("/api/youtube/playlist")
+async def expand_youtube_playlist(request: YouTubeRequest):
+    """List the video IDs of a YouTube playlist"""
+    try:
+        playlist = YouTubeService.get_playlist_videos(request.url)
+
+        if not playlist['success']:
+            raise HTTPException(
+                status_code=400,
+                detail=playlist.get('error', 'Playlist not found')
+            )
+
+        return playlist
+
+    except HTTPException:
+        raise
+    except Exception as e:
+        raise HTTPException(status_code=500, detail=f"Error reading playlist: {str(e)}")
+
 @app.get("/api/youtube/metadata/{video_id}")
 async def get_youtube_metadata(video_id: str):
     """Get YouTube video metadata"""
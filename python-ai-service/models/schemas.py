@@ -10,4 +10,11 @@ class QuestionRequest(BaseModel):
     question: str
     document_id: Optional[str] = None
     chat_history: Optional[List[Dict[str, str]]] = []
+    # Summary of turns older than chat_history, if the backend folded any
+    conversation_summary: Optional[str] = None
+
+class ConversationSummaryRequest(BaseModel):
+    summary: Optional[str] = ""
+    chat_history: List[Dict[str, str]]
+    max_words: int = 150
 
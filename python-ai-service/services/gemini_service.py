@@ -33,13 +33,15 @@ class GeminiService:
         response = self.model.generate_content(prompt)
         return response.text
 
-    def answer_question(self, text: str, question: str, chat_history: list = None) -> str:
+    def answer_question(self, text: str, question: str, chat_history: list = None, conversation_summary: str = None) -> str:
         """Answer questions in a friendly, helpful way with conversation context"""
         
         # Build conversation context from chat history
         conversation_context = ""
+        if conversation_summary:
+            conversation_context = f"\n\nSummary of the earlier conversation:\n{conversation_summary}\n"
         if chat_history and len(chat_history) > 0:
-            conversation_context = "\n\nPrevious conversation:\n"
+            conversation_context += "\n\nPrevious conversation:\n"
             for i, chat in enumerate(chat_history[-5:], 1):  # Include last 5 exchanges to keep context manageable
                 conversation_context += f"\nQ{i}: {chat.get('question', '')}\n"
                 conversation_context += f"A{i}: {chat.get('answer', '')}\n"
@@ -66,6 +68,27 @@ class GeminiService:
         response = self.model.generate_content(prompt)
         return response.text
         
+    def summarize_conversation(self, summary: str, chat_history: list, max_words: int = 150) -> str:
+        """Fold new question/answer turns into a running summary of the conversation"""
+        exchanges = ""
+        for chat in chat_history:
+            exchanges += f"\nQ: {chat.get('question', '')}\nA: {chat.get('answer', '')}\n"
+
+        prompt = f"""Update the summary of a study conversation between a student and a tutor.
+
+        Current summary (may be empty):
+        {summary or ''}
+
+        New exchanges to add:
+        {exchanges[-12000:]}
+
+        Write the updated summary in at most {max_words} words. Keep the topics the student asked about,
+        key facts and explanations given, and anything the student said they found confusing.
+        Write plain prose without headings."""
+
+        response = self.model.generate_content(prompt)
+        return response.text.strip()
+
     def generate_flashcards(self, text: str) -> List[Dict[str, str]]:
         """Generate student-friendly flashcards"""
         prompt = f"""You are creating study flashcards for a student. Generate 10 flashcards from this document.
@@ -6,9 +6,6 @@ def extract_text_from_pdf(pdf_bytes: bytes) -> str:
     pdf_file = BytesIO(pdf_bytes)
     reader = PdfReader(pdf_file)
 
-    text = ""
-
-    for page in reader.pages:
-        text += page.extract_text()
-        
-    return text
+    # Pages are separated by form feeds so the backend can tell running
+    # headers and footers apart from body text
+    return "\f".join(page.extract_text() or "" for page in reader.pages)
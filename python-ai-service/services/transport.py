@@ -0,0 +1,113 @@
+"""Compact transport between the Spring backend and this service.
+
+Request bodies may arrive gzipped (Content-Encoding: gzip) and as CBOR
+(Content-Type: application/cbor). Responses are sent as CBOR to callers that
+accept it and are gzipped by GZipMiddleware when large enough. Every
+response advertises which request bodies are understood, so the backend
+only sends compact bodies to a service that has this installed; anything
+else is plain JSON as before.
+"""
+import gzip
+import json
+from contextvars import ContextVar
+
+import cbor2
+from fastapi import FastAPI, Request
+from fastapi.responses import JSONResponse
+from fastapi.routing import APIRoute
+from starlette.middleware.gzip import GZipMiddleware
+
+CBOR = "application/cbor"
+
+ADVERTISED_HEADERS = [
+    (b"accept-encoding", b"gzip"),
+    (b"accept-post", b"application/json, " + CBOR.encode()),
+]
+
+# Whether the request being handled accepts a CBOR response
+_accepts_cbor: ContextVar[bool] = ContextVar("accepts_cbor", default=False)
+
+
+class CompactRequest(Request):
+    """Request whose body is decompressed and whose CBOR body reads like JSON"""
+
+    def __init__(self, scope, receive):
+        self._gzipped = False
+        self._cbor = False
+        headers = []
+        for name, value in scope["headers"]:
+            if name == b"content-encoding" and value.strip().lower() == b"gzip":
+                self._gzipped = True
+                continue
+            if name == b"content-type" and value.split(b";")[0].strip().lower() == CBOR.encode():
+                # FastAPI only decodes bodies it sees as JSON
+                self._cbor = True
+                value = b"application/json"
+            headers.append((name, value))
+        super().__init__({**scope, "headers": headers}, receive)
+
+    async def body(self) -> bytes:
+        if not hasattr(self, "_decoded_body"):
+            body = await super().body()
+            self._decoded_body = gzip.decompress(body) if self._gzipped and body else body
+        return self._decoded_body
+
+    async def json(self):
+        if not hasattr(self, "_json"):
+            body = await self.body()
+            self._json = cbor2.loads(body) if self._cbor else json.loads(body)
+        return self._json
+
+
+class CompactRoute(APIRoute):
+    def get_route_handler(self):
+        handler = super().get_route_handler()
+
+        async def compact_handler(request: Request):
+            token = _accepts_cbor.set(CBOR in request.headers.get("accept", ""))
+            try:
+                return await handler(CompactRequest(request.scope, request.receive))
+            finally:
+                _accepts_cbor.reset(token)
+
+        return compact_handler
+
+
+class CompactResponse(JSONResponse):
+    """JSON response, or CBOR when the caller asked for it"""
+
+    def __init__(self, content, *args, **kwargs):
+        self._cbor = _accepts_cbor.get()
+        if self._cbor:
+            self.media_type = CBOR
+        super().__init__(content, *args, **kwargs)
+
+    def render(self, content) -> bytes:
+        return cbor2.dumps(content) if self._cbor else super().render(content)
+
+
+class AdvertiseTransportMiddleware:
+    """Adds the accepted request encodings and body types to every response"""
+
+    def __init__(self, app):
+        self.app = app
+
+    async def __call__(self, scope, receive, send):
+        if scope["type"] != "http":
+            await self.app(scope, receive, send)
+            return
+
+        async def send_advertised(message):
+            if message["type"] == "http.response.start":
+                message["headers"] = list(message.get("headers", [])) + ADVERTISED_HEADERS
+            await send(message)
+
+        await self.app(scope, receive, send_advertised)
+
+
+def install(app: FastAPI) -> None:
+    """Use the compact transport for every route declared after this call"""
+    app.router.route_class = CompactRoute
+    app.router.default_response_class = CompactResponse
+    app.add_middleware(GZipMiddleware, minimum_size=1024)
+    app.add_middleware(AdvertiseTransportMiddleware)
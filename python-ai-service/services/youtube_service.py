@@ -279,6 +279,44 @@ class YouTubeService:
                 'video_id': video_id
             }
     
+    @staticmethod
+    def get_playlist_videos(playlist_url: str) -> Dict:
+        """
+        List the videos of a playlist without resolving each one
+        
+        Args:
+            playlist_url: YouTube playlist URL
+            
+        Returns:
+            Dict containing the playlist title and its video IDs in order
+        """
+        try:
+            ydl_opts = {
+                'skip_download': True,
+                'extract_flat': 'in_playlist',
+                'quiet': True,
+                'no_warnings': True,
+            }
+            
+            with yt_dlp.YoutubeDL(ydl_opts) as ydl:
+                info = ydl.extract_info(playlist_url, download=False)
+                
+                entries = info.get('entries') or []
+                video_ids = [entry['id'] for entry in entries if entry and entry.get('id')]
+                
+                return {
+                    'success': True,
+                    'title': info.get('title', 'Unknown Playlist'),
+                    'video_ids': video_ids,
+                    'count': len(video_ids)
+                }
+                
+        except Exception as e:
+            return {
+                'success': False,
+                'error': f'Failed to read playlist: {str(e)}'
+            }
+    
     @staticmethod
     def format_timestamp(seconds: float) -> str:
         """Convert seconds to MM:SS or HH:MM:SS format"""
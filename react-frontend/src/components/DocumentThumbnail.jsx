@@ -0,0 +1,40 @@
+import { useState, useEffect } from 'react';
+import { getDocumentThumbnail } from '../services/api';
+
+// First-page thumbnail of a document, loaded with the user's credentials;
+// shows children (the file icon) until it arrives, or for documents whose
+// listing has no thumbnailUrl yet
+const DocumentThumbnail = ({ documentId, userId, available, children }) => {
+    const [src, setSrc] = useState(null);
+
+    useEffect(() => {
+        if (!available) return undefined;
+        let objectUrl = null;
+        let cancelled = false;
+        getDocumentThumbnail(documentId, userId)
+            .then((response) => {
+                if (!cancelled) {
+                    objectUrl = URL.createObjectURL(response.data);
+                    setSrc(objectUrl);
+                }
+            })
+            .catch(() => {
+                // Keep the icon
+            });
+        return () => {
+            cancelled = true;
+            if (objectUrl) URL.revokeObjectURL(objectUrl);
+        };
+    }, [documentId, userId, available]);
+
+    if (!src) return children;
+    return (
+        <img
+            src={src}
+            alt=""
+            className="w-14 h-20 object-cover object-top rounded border border-gray-200 flex-shrink-0"
+        />
+    );
+};
+
+export default DocumentThumbnail;
@@ -96,7 +96,7 @@ const DocumentViewer = () => {
     const handleSummarize = async () => {
         setLoading(true);
         try {
-            const response = await summarizeDocument(documentText, documentId);
+            const response = await summarizeDocument(documentId, user.userId);
             setSummary(response.data.summary);
         } catch (error) {
             console.error('Error generating summary:', error);
@@ -112,7 +112,7 @@ const DocumentViewer = () => {
         setAsking(true);
         try {
             // Pass the current chat history to maintain context
-            const response = await askQuestion(documentText, question, documentId, qaHistory);
+            const response = await askQuestion(documentId, user.userId, question, qaHistory);
             setQaHistory([...qaHistory, { question, answer: response.data.answer }]);
             setQuestion('');
         } catch (error) {
@@ -342,7 +342,10 @@ const DocumentViewer = () => {
                                         <>
                                             <div className="bg-gray-100 rounded-lg p-2">
                                                 <iframe
-                                                    src={`https://docs.google.com/viewer?url=${encodeURIComponent(document?.downloadUrl)}&embedded=true`}
+                                                    src={document?.downloadUrl?.includes('/api/files/')
+                                                        // Self-hosted files: the browser's viewer loads pages with range requests
+                                                        ? document.downloadUrl
+                                                        : `https://docs.google.com/viewer?url=${encodeURIComponent(document?.downloadUrl)}&embedded=true`}
                                                     className="w-full h-[800px] rounded-lg shadow-lg"
                                                     title="PDF Viewer"
                                                 />
@@ -1,11 +1,16 @@
 import { useState } from 'react';
-import { uploadFile } from '../services/api';
+import { uploadFile, uploadFileResumable } from '../services/api';
+
+// Larger files go through the resumable chunked upload
+const MULTIPART_LIMIT = 10 * 1024 * 1024;
+const MAX_FILE_SIZE = 200 * 1024 * 1024;
 
 const FileUpload = ({ onUploadComplete }) => {
     const [file, setFile] = useState(null);
     const [uploading, setUploading] = useState(false);
     const [error, setError] = useState('');
     const [success, setSuccess] = useState('');
+    const [progress, setProgress] = useState(null);
 
     const user = JSON.parse(localStorage.getItem('user') || '{}');
 
@@ -18,8 +23,8 @@ const FileUpload = ({ onUploadComplete }) => {
             return;
         }
 
-        if (selectedFile && selectedFile.size > 10 * 1024 * 1024) {
-            setError('File size must be less than 10MB');
+        if (selectedFile && selectedFile.size > MAX_FILE_SIZE) {
+            setError('File size must be less than 200MB');
             setFile(null);
             return;
         }
@@ -37,8 +42,12 @@ const FileUpload = ({ onUploadComplete }) => {
         setSuccess('');
 
         try {
-            await uploadFile(file, user.userId);
-            setSuccess('File uploaded successfully!');
+            const response = file.size > MULTIPART_LIMIT
+                ? await uploadFileResumable(file, user.userId, setProgress)
+                : await uploadFile(file, user.userId);
+            setSuccess(response.data?.duplicate
+                ? 'This file is already in your library.'
+                : 'File uploaded successfully!');
             setFile(null);
 
             // Reset file input
@@ -47,9 +56,10 @@ const FileUpload = ({ onUploadComplete }) => {
             // Notify parent component
             if (onUploadComplete) onUploadComplete();
         } catch (err) {
-            setError('Upload failed: ' + (err.response?.data || err.message));
+            setError('Upload failed: ' + (err.response?.data?.error || err.response?.data || err.message));
         } finally {
             setUploading(false);
+            setProgress(null);
         }
     };
 
@@ -100,7 +110,7 @@ const FileUpload = ({ onUploadComplete }) => {
                             {file ? file.name : 'Click to select PDF file'}
                         </span>
                         <span className="text-gray-400 text-sm mt-1">
-                            Maximum file size: 10MB
+                            Maximum file size: 200MB
                         </span>
                     </label>
                 </div>
@@ -111,7 +121,9 @@ const FileUpload = ({ onUploadComplete }) => {
                         disabled={uploading}
                         className="w-full bg-gradient-to-r from-indigo-500 to-purple-600 text-white py-3 rounded-lg font-semibold hover:from-indigo-600 hover:to-purple-700 transition duration-200 disabled:opacity-50 disabled:cursor-not-allowed"
                     >
-                        {uploading ? 'Uploading...' : 'Upload File'}
+                        {uploading
+                            ? (progress !== null ? `Uploading... ${Math.round(progress * 100)}%` : 'Uploading...')
+                            : 'Upload File'}
                     </button>
                 )}
             </div>
@@ -1,6 +1,6 @@
 import { useState, useEffect } from 'react';
 import { useParams, useNavigate } from 'react-router-dom';
-import { getDocumentContent, extractPdfTextFromStoragePath, generateFlashcards } from '../services/api';
+import { getDocumentContent, extractPdfTextFromStoragePath, generateFlashcards, getStudyArtifact } from '../services/api';
 import Navbar from './Navbar';
 import './Flashcards.css';
 
@@ -39,23 +39,27 @@ const Flashcards = () => {
         setLoading(true);
         setError('');
         try {
-            // Get document metadata
-            const response = await getDocumentContent(documentId, user.userId);
+            // Get document metadata; the text itself stays on the server
+            const response = await getDocumentContent(documentId, user.userId, false);
             setDocument(response.data);
 
-            // Extract text
-            const storagePath = response.data.storagePath;
-            if (!storagePath) {
-                setError('This document was uploaded before the AI feature was added. Please upload it again.');
-                return;
+            // Extract text once so the server has it cached
+            if (!response.data.textCached) {
+                const storagePath = response.data.storagePath;
+                if (!storagePath) {
+                    setError('This document was uploaded before the AI feature was added. Please upload it again.');
+                    return;
+                }
+                await extractPdfTextFromStoragePath(storagePath, documentId);
             }
 
-            const textResponse = await extractPdfTextFromStoragePath(storagePath);
-            const documentText = textResponse.data.text;
-
-            // Generate flashcards
-            console.log('Generating flashcards...');
-            const flashcardsResponse = await generateFlashcards(documentText, documentId);
+            // Reuse flashcards generated earlier from the same text, otherwise generate them
+            const flashcardsResponse = await getStudyArtifact(documentId, user.userId, 'flashcards')
+                .catch((error) => {
+                    if (error.response?.status !== 404) throw error;
+                    console.log('Generating flashcards...');
+                    return generateFlashcards(documentId, user.userId);
+                });
 
             if (flashcardsResponse.data && flashcardsResponse.data.flashcards) {
                 setFlashcards(flashcardsResponse.data.flashcards);
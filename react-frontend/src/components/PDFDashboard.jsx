@@ -3,6 +3,7 @@ import { useNavigate } from 'react-router-dom';
 import { getUserDocuments, deleteDocument } from '../services/api';
 import Navbar from './Navbar';
 import FileUpload from './FileUpload';
+import DocumentThumbnail from './DocumentThumbnail';
 
 const PDFDashboard = () => {
     const navigate = useNavigate();
@@ -97,15 +98,17 @@ const PDFDashboard = () => {
                             {documents.map((doc) => (
                                 <div key={doc.id} className="bg-gray-50 rounded-lg p-4 hover:shadow-md transition">
                                     <div className="flex items-start gap-3">
-                                        <div className="bg-red-100 p-3 rounded-lg flex-shrink-0">
-                                            <svg className="w-8 h-8 text-red-600" fill="currentColor" viewBox="0 0 20 20">
-                                                <path
-                                                    fillRule="evenodd"
-                                                    d="M4 4a2 2 0 012-2h4.586A2 2 0 0112 2.586L15.414 6A2 2 0 0116 7.414V16a2 2 0 01-2 2H6a2 2 0 01-2-2V4z"
-                                                    clipRule="evenodd"
-                                                />
-                                            </svg>
-                                        </div>
+                                        <DocumentThumbnail documentId={doc.id} userId={user.userId} available={Boolean(doc.thumbnailUrl)}>
+                                            <div className="bg-red-100 p-3 rounded-lg flex-shrink-0">
+                                                <svg className="w-8 h-8 text-red-600" fill="currentColor" viewBox="0 0 20 20">
+                                                    <path
+                                                        fillRule="evenodd"
+                                                        d="M4 4a2 2 0 012-2h4.586A2 2 0 0112 2.586L15.414 6A2 2 0 0116 7.414V16a2 2 0 01-2 2H6a2 2 0 01-2-2V4z"
+                                                        clipRule="evenodd"
+                                                    />
+                                                </svg>
+                                            </div>
+                                        </DocumentThumbnail>
                                         <div className="flex-1 min-w-0">
                                             <h4 className="font-semibold text-gray-800 truncate">{doc.filename || 'Untitled Document'}</h4>
                                             <p className="text-sm text-gray-500 mt-1">
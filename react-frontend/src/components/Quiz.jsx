@@ -1,6 +1,6 @@
 import { useState, useEffect } from 'react';
 import { useParams, useNavigate } from 'react-router-dom';
-import { getDocumentContent, extractPdfTextFromStoragePath, generateQuiz } from '../services/api';
+import { getDocumentContent, extractPdfTextFromStoragePath, generateQuiz, getStudyArtifact } from '../services/api';
 import Navbar from './Navbar';
 
 const Quiz = () => {
@@ -9,7 +9,6 @@ const Quiz = () => {
     const user = JSON.parse(localStorage.getItem('user') || '{}');
 
     const [document, setDocument] = useState(null);
-    const [documentText, setDocumentText] = useState('');
     const [quiz, setQuiz] = useState([]);
     const [currentQuestion, setCurrentQuestion] = useState(0);
     const [selectedAnswers, setSelectedAnswers] = useState({});
@@ -34,24 +33,27 @@ const Quiz = () => {
 
     const loadDocumentAndQuiz = async () => {
         try {
-            // Load document
-            const response = await getDocumentContent(documentId, user.userId);
+            // Load document; the text itself stays on the server
+            const response = await getDocumentContent(documentId, user.userId, false);
             setDocument(response.data);
 
-            // Extract text
-            const storagePath = response.data.storagePath;
-            if (!storagePath) {
-                alert('This document cannot be used for quizzes. Please upload it again.');
-                navigate('/dashboard');
-                return;
+            // Extract text once so the server has it cached
+            if (!response.data.textCached) {
+                const storagePath = response.data.storagePath;
+                if (!storagePath) {
+                    alert('This document cannot be used for quizzes. Please upload it again.');
+                    navigate('/dashboard');
+                    return;
+                }
+                await extractPdfTextFromStoragePath(storagePath, documentId);
             }
 
-            const textResponse = await extractPdfTextFromStoragePath(storagePath);
-            const text = textResponse.data.text;
-            setDocumentText(text);
-
-            // Generate quiz
-            const quizResponse = await generateQuiz(text, documentId);
+            // Reuse a quiz generated earlier from the same text, otherwise generate one
+            const quizResponse = await getStudyArtifact(documentId, user.userId, 'quiz')
+                .catch((error) => {
+                    if (error.response?.status !== 404) throw error;
+                    return generateQuiz(documentId, user.userId);
+                });
             setQuiz(quizResponse.data.quiz);
             setLoading(false);
             setTimerActive(true); // Start timer when quiz loads
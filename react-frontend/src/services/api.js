@@ -7,6 +7,11 @@ const apiClient = axios.create({
     baseURL: API_URL
 });
 
+// How long the UI waits for AI work; the backend stops working on a request once this passes.
+// Extractions of whole PDFs and videos have no limit here and get the backend's own.
+const AI_TIMEOUT_MS = 60000;
+const AI_LONG_TIMEOUT_MS = 180000;
+
 // Add request interceptor to attach authentication token
 apiClient.interceptors.request.use(
     (config) => {
@@ -17,6 +22,11 @@ apiClient.interceptors.request.use(
             config.headers.Authorization = `Bearer ${token}`;
         }
 
+        // Tell the backend how long we will wait, so it can drop work we give up on
+        if (config.timeout) {
+            config.headers['X-Timeout-Millis'] = config.timeout;
+        }
+
         return config;
     },
     (error) => {
@@ -51,6 +61,72 @@ export const uploadFile = (file, userId) => {
     });
 };
 
+const UPLOAD_CONCURRENCY = 4;
+const UPLOAD_RETRIES = 5;
+
+// Chunked upload that survives dropped connections: chunks go up in parallel and are
+// retried, and the session id is remembered so a reload resumes with the missing bytes
+export const uploadFileResumable = async (file, userId, onProgress) => {
+    const key = `upload:${userId}:${file.name}:${file.size}:${file.lastModified}`;
+    let session = null;
+    const savedId = localStorage.getItem(key);
+    if (savedId) {
+        try {
+            session = (await apiClient.get(`/documents/uploads/${savedId}`, { params: { userId } })).data;
+        } catch {
+            localStorage.removeItem(key);
+        }
+    }
+    if (!session) {
+        session = (await apiClient.post('/documents/uploads', {
+            userId,
+            filename: file.name,
+            size: file.size,
+            contentType: file.type || 'application/pdf'
+        })).data;
+        localStorage.setItem(key, session.uploadId);
+    }
+
+    const pending = [];
+    for (const [start, end] of session.missing) {
+        for (let offset = start; offset < end; offset += session.chunkSize) {
+            pending.push([offset, Math.min(offset + session.chunkSize, end)]);
+        }
+    }
+    let sent = session.receivedBytes;
+    onProgress?.(sent / file.size);
+
+    const sendChunk = async ([start, end]) => {
+        for (let attempt = 1; ; attempt++) {
+            try {
+                await apiClient.put(`/documents/uploads/${session.uploadId}`, file.slice(start, end), {
+                    params: { userId, offset: start },
+                    headers: { 'Content-Type': 'application/octet-stream' }
+                });
+                sent += end - start;
+                onProgress?.(sent / file.size);
+                return;
+            } catch (err) {
+                if (attempt >= UPLOAD_RETRIES || (err.response && err.response.status < 500)) {
+                    throw err;
+                }
+                await new Promise((resolve) => setTimeout(resolve, 1000 * 2 ** (attempt - 1)));
+            }
+        }
+    };
+    await Promise.all(Array.from({ length: UPLOAD_CONCURRENCY }, async () => {
+        while (pending.length > 0) {
+            await sendChunk(pending.shift());
+        }
+    }));
+
+    const response = await apiClient.post(`/documents/uploads/${session.uploadId}/complete`, null, {
+        params: { userId }
+    });
+    localStorage.removeItem(key);
+    return response;
+};
+
 export const getUserDocuments = (userId) => {
     return apiClient.get('/documents', {
         params: { userId }
@@ -71,39 +147,62 @@ export const extractPdfText = (file) => {
     return axios.post('http://localhost:8000/api/ai/extract-text', formData);
 };
 
-export const summarizeDocument = (text, documentId) => {
+// The AI endpoints look the document text up on the server, so only the id is sent
+export const summarizeDocument = (documentId, userId) => {
     return apiClient.post('/ai/summarize', {
-        text,
-        document_id: documentId
-    });
+        document_id: documentId,
+        userId
+    }, { timeout: AI_LONG_TIMEOUT_MS });
 };
 
-export const askQuestion = (text, question, documentId, chatHistory = []) => {
+export const askQuestion = (documentId, userId, question, chatHistory = []) => {
     return apiClient.post('/ai/ask', {
-        text,
         question,
         document_id: documentId,
+        userId,
         chat_history: chatHistory
-    });
+    }, { timeout: AI_TIMEOUT_MS });
 };
 
-export const generateFlashcards = (text, documentId) => {
+export const generateFlashcards = (documentId, userId) => {
     return apiClient.post('/ai/flashcards', {
-        text,
-        document_id: documentId
-    });
+        document_id: documentId,
+        userId
+    }, { timeout: AI_LONG_TIMEOUT_MS });
 };
 
-export const generateQuiz = (text, documentId) => {
+export const generateQuiz = (documentId, userId) => {
     return apiClient.post('/ai/generate-quiz', {
-        text,
-        document_id: documentId
+        document_id: documentId,
+        userId
+    }, { timeout: AI_LONG_TIMEOUT_MS });
+};
+
+// Stored summary/flashcards/quiz of a document; 404 if it still has to be generated.
+// The browser revalidates it with If-None-Match, so unchanged material is not downloaded again.
+export const getStudyArtifact = (documentId, userId, kind) => {
+    return apiClient.get(`/ai/artifacts/${documentId}/${kind}`, {
+        params: { userId }
     });
 };
 
-export const getDocumentContent = (documentId, userId) => {
+export const getDocumentContent = (documentId, userId, includeText = true) => {
     return apiClient.get(`/documents/${documentId}/content`, {
-        params: { userId }
+        params: { userId, includeText }
+    });
+};
+
+// Several documents in one request, e.g. for a study set; ids the user cannot
+// open come back in `missing` and `forbidden`
+export const getDocumentsContent = (documentIds, userId, includeText = true) => {
+    return apiClient.post('/documents/batch', { userId, documentIds, includeText });
+};
+
+// JPEG of the first page; listings give documents that have one a thumbnailUrl
+export const getDocumentThumbnail = (documentId, userId) => {
+    return apiClient.get(`/documents/${documentId}/thumbnail`, {
+        params: { userId },
+        responseType: 'blob'
     });
 };
 
@@ -131,4 +230,30 @@ export const uploadYouTubeVideo = (url, userId) => {
         url,
         userId
     });
-};
\ No newline at end of file
+};
+export const importYouTubeBatch = (urls, userId, playlistUrl) => {
+    return apiClient.post('/youtube/batch', {
+        urls,
+        playlistUrl,
+        userId
+    }, { timeout: AI_TIMEOUT_MS });
+};
+
+export const getYouTubeBatchStatus = (jobId, userId) => {
+    return apiClient.get(`/youtube/batch/${jobId}`, {
+        params: { userId }
+    });
+};
+
+export const searchLibrary = (query, userId, limit = 20) => {
+    return apiClient.get('/search', {
+        params: { userId, q: query, limit }
+    });
+};
+
+// AI calls, uploaded bytes and extracted pages of the user so far
+export const getUsage = (userId) => {
+    return apiClient.get('/usage', {
+        params: { userId }
+    });
+};